@@ -1,9 +1,16 @@
 -- ========================================
 -- Library Management System Database Schema
 -- Database: library_management_ititiu22124
+--
+-- The application schema is owned by the Flyway migrations in
+-- src/main/resources/db/migration and applied at startup; this file
+-- mirrors them for a manual setup with sample data.
 -- ========================================
 
 -- Drop existing tables if they exist (for clean setup)
+DROP TABLE IF EXISTS flyway_schema_history;
+DROP TABLE IF EXISTS audit_logs;
+DROP TABLE IF EXISTS fines;
 DROP TABLE IF EXISTS reservations;
 DROP TABLE IF EXISTS borrow_records;
 DROP TABLE IF EXISTS books;
@@ -76,6 +83,48 @@ CREATE TABLE reservations (
         ON DELETE CASCADE
 );
 
+-- ========================================
+-- TABLE 5: fines
+-- ========================================
+CREATE TABLE fines (
+    id BIGINT PRIMARY KEY AUTO_INCREMENT,
+    user_id BIGINT NOT NULL,
+    borrow_record_id BIGINT NOT NULL,
+    amount DECIMAL(10, 2) NOT NULL,
+    days_overdue INT NOT NULL,
+    daily_rate DECIMAL(10, 2) NOT NULL,
+    status ENUM('UNPAID', 'PAID', 'WAIVED') NOT NULL,
+    created_at DATETIME(6),
+    paid_at DATETIME(6),
+    due_date DATE,
+    return_date DATE,
+
+    CONSTRAINT fk_fine_user
+        FOREIGN KEY (user_id) REFERENCES users(id)
+        ON DELETE CASCADE,
+
+    CONSTRAINT fk_fine_borrow
+        FOREIGN KEY (borrow_record_id) REFERENCES borrow_records(id)
+        ON DELETE CASCADE
+);
+
+-- ========================================
+-- TABLE 6: audit_logs
+-- ========================================
+CREATE TABLE audit_logs (
+    id BIGINT PRIMARY KEY AUTO_INCREMENT,
+    action VARCHAR(255) NOT NULL,
+    performed_by VARCHAR(255) NOT NULL,
+    details VARCHAR(255) NOT NULL,
+    `timestamp` DATETIME(6)
+);
+
+-- ========================================
+-- Indexes
+-- ========================================
+-- Not created here: on first start Flyway baselines this schema at V1 and
+-- V2__query_indexes.sql adds the secondary indexes.
+
 -- ========================================
 -- Sample Data (Optional)
 -- ========================================
@@ -112,3 +161,7 @@ DESCRIBE users;
 DESCRIBE books;
 DESCRIBE borrow_records;
 DESCRIBE reservations;
+DESCRIBE fines;
+SHOW INDEX FROM borrow_records;
+SHOW INDEX FROM reservations;
+SHOW INDEX FROM fines;
@@ -1,10 +1,24 @@
-import React, { useState } from 'react';
+import React, { useEffect, useState } from 'react';
+import bookApi from '../services/bookApi';
 import './BookSearchBar.css';
 
 const BookSearchBar = ({ onSearch, onFilter }) => {
   const [query, setQuery] = useState('');
   const [category, setCategory] = useState('');
   const [availability, setAvailability] = useState('');
+  const [suggestions, setSuggestions] = useState([]);
+
+  // Type-ahead: ask the suggest endpoint once typing pauses
+  useEffect(() => {
+    if (query.trim().length < 2) {
+      setSuggestions([]);
+      return undefined;
+    }
+    const timer = setTimeout(() => {
+      bookApi.suggest(query).then(setSuggestions).catch(() => setSuggestions([]));
+    }, 150);
+    return () => clearTimeout(timer);
+  }, [query]);
 
   const categories = [
     'Fiction',
@@ -43,7 +57,13 @@ const BookSearchBar = ({ onSearch, onFilter }) => {
             value={query}
             onChange={(e) => setQuery(e.target.value)}
             className="search-input"
+            list="book-suggestions"
           />
+          <datalist id="book-suggestions">
+            {suggestions.map((s) => (
+              <option key={`${s.type}-${s.text}`} value={s.text} />
+            ))}
+          </datalist>
           <button type="submit" className="btn btn-primary search-btn">
             🔍 Search
           </button>
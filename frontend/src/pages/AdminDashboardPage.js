@@ -16,6 +16,8 @@ const AdminDashboardPage = () => {
 
   const [activeTab, setActiveTab] = useState('books');
   const [books, setBooks] = useState([]);
+  const [nextCursor, setNextCursor] = useState(null);
+  const [loadingMore, setLoadingMore] = useState(false);
   const [users, setUsers] = useState([]);
   const [borrows, setBorrows] = useState([]);
   const [reservations, setReservations] = useState([]);
@@ -45,8 +47,9 @@ const AdminDashboardPage = () => {
     try {
       switch (activeTab) {
         case 'books':
-          const booksData = await bookApi.getAllBooks();
-          setBooks(booksData);
+          const booksPage = await bookApi.getAllBooks({ limit: 100 });
+          setBooks(booksPage.items);
+          setNextCursor(booksPage.nextCursor);
           break;
         case 'users':
           const usersData = await userApi.getAllUsers();
@@ -68,6 +71,19 @@ const AdminDashboardPage = () => {
     }
   };
 
+  const loadMoreBooks = async () => {
+    setLoadingMore(true);
+    try {
+      const booksPage = await bookApi.getAllBooks({ limit: 100, cursor: nextCursor });
+      setBooks((loaded) => [...loaded, ...booksPage.items]);
+      setNextCursor(booksPage.nextCursor);
+    } catch (error) {
+      // Error handled by errorHandler
+    } finally {
+      setLoadingMore(false);
+    }
+  };
+
   // Book handlers
   const handleAddBook = () => {
     setEditingBook(null);
@@ -151,7 +167,7 @@ const AdminDashboardPage = () => {
             className={`tab ${activeTab === 'books' ? 'active' : ''}`}
             onClick={() => setActiveTab('books')}
           >
-            📚 Books ({books.length})
+            📚 Books ({books.length}{nextCursor ? '+' : ''})
           </button>
           <button
             className={`tab ${activeTab === 'users' ? 'active' : ''}`}
@@ -245,6 +261,11 @@ const AdminDashboardPage = () => {
                           })}
                         </tbody>
                       </table>
+                      {nextCursor && (
+                        <button onClick={loadMoreBooks} className="btn btn-secondary" disabled={loadingMore}>
+                          Load more
+                        </button>
+                      )}
                     </>
                   )}
                 </div>
@@ -7,6 +7,7 @@ import './BookListPage.css';
 const BookListPage = () => {
   const [books, setBooks] = useState([]);
   const [filteredBooks, setFilteredBooks] = useState([]);
+  const [nextCursor, setNextCursor] = useState(null);
   const [loading, setLoading] = useState(true);
   const [error, setError] = useState(null);
 
@@ -17,9 +18,25 @@ const BookListPage = () => {
   const fetchBooks = async () => {
     setLoading(true);
     try {
-      const data = await bookApi.getAllBooks();
-      setBooks(data);
-      setFilteredBooks(data);
+      const page = await bookApi.getAllBooks();
+      setBooks(page.items);
+      setFilteredBooks(page.items);
+      setNextCursor(page.nextCursor);
+    } catch (err) {
+      setError('Failed to load books');
+    } finally {
+      setLoading(false);
+    }
+  };
+
+  const loadMoreBooks = async () => {
+    setLoading(true);
+    try {
+      const page = await bookApi.getAllBooks({ cursor: nextCursor });
+      const allBooks = [...books, ...page.items];
+      setBooks(allBooks);
+      setFilteredBooks(allBooks);
+      setNextCursor(page.nextCursor);
     } catch (err) {
       setError('Failed to load books');
     } finally {
@@ -31,7 +48,11 @@ const BookListPage = () => {
     setLoading(true);
     try {
       if (query) {
-        const data = await bookApi.searchBooks(query);
+        let data = await bookApi.searchBooks(query);
+        if (data.length === 0) {
+          // Nothing matched exactly, try again tolerating typos
+          data = await bookApi.searchBooks(query, { fuzzy: true });
+        }
         let results = data;
         if (category) {
           results = results.filter((book) => book.category === category);
@@ -119,6 +140,11 @@ const BookListPage = () => {
                 <BookCard key={book.id} book={book} />
               ))}
             </div>
+            {nextCursor && filteredBooks === books && (
+              <button onClick={loadMoreBooks} className="btn btn-secondary" disabled={loading}>
+                Load more
+              </button>
+            )}
           </>
         )}
       </div>
@@ -49,8 +49,8 @@ const FinesPage = () => {
     
     setPayingAll(true);
     try {
-      await fineApi.payAllFines();
-      toast.success('All fines paid successfully!');
+      const result = await fineApi.payAllFines();
+      toast.success(`${result.fineCount} fine(s) paid successfully!`);
       fetchFines();
     } catch (error) {
       // Error handled by errorHandler
@@ -192,9 +192,9 @@ const FinesPage = () => {
               <div key={fine.id} className={`fine-card card ${fine.status.toLowerCase()}`}>
                 <div className="fine-header">
                   <div className="fine-book-info">
-                    <h3>{fine.borrowRecord?.book?.title || 'Unknown Book'}</h3>
+                    <h3>{fine.bookTitle || 'Unknown Book'}</h3>
                     <p className="fine-book-author">
-                      by {fine.borrowRecord?.book?.author || 'Unknown Author'}
+                      by {fine.bookAuthor || 'Unknown Author'}
                     </p>
                   </div>
                   <div className="fine-amount">
@@ -212,6 +212,12 @@ const FinesPage = () => {
                     <span className="detail-label">📆 Return Date</span>
                     <span className="detail-value">{formatDate(fine.returnDate)}</span>
                   </div>
+                  {fine.status === 'UNPAID' && fine.amountPaid > 0 && (
+                    <div className="detail-row">
+                      <span className="detail-label">💳 Paid So Far</span>
+                      <span className="detail-value">{formatCurrency(fine.amountPaid)}</span>
+                    </div>
+                  )}
                   <div className="detail-row">
                     <span className="detail-label">⏰ Days Overdue</span>
                     <span className="detail-value overdue">{fine.daysOverdue} days</span>
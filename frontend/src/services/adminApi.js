@@ -10,6 +10,34 @@ const adminApi = {
       throw handleApiError(error);
     }
   },
+
+  // Paged listings: params = { status, userId, bookId, from, to, cursor, limit, order }
+  listBorrows: async (params = {}) => {
+    try {
+      const response = await apiClient.get('/admin/borrows', { params });
+      return response.data;
+    } catch (error) {
+      throw handleApiError(error);
+    }
+  },
+
+  listReservations: async (params = {}) => {
+    try {
+      const response = await apiClient.get('/admin/reservations', { params });
+      return response.data;
+    } catch (error) {
+      throw handleApiError(error);
+    }
+  },
+
+  listFines: async (params = {}) => {
+    try {
+      const response = await apiClient.get('/admin/fines', { params });
+      return response.data;
+    } catch (error) {
+      throw handleApiError(error);
+    }
+  },
 };
 
 export default adminApi;
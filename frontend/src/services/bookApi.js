@@ -7,8 +7,9 @@ import { handleApiError } from '../utils/errorHandler';
  */
 const bookApi = {
   /**
-   * Get all books
-   * GET /books
+   * Get a page of books (keyset pagination)
+   * GET /books?cursor={cursor}&limit={limit}
+   * Returns { items, nextCursor, hasMore, limit }
    */
   getAllBooks: async (params = {}) => {
     try {
@@ -47,6 +48,35 @@ const bookApi = {
     }
   },
 
+  /**
+   * Autocomplete titles and authors
+   * GET /books/suggest?prefix={prefix}
+   */
+  suggest: async (prefix, limit = 8) => {
+    try {
+      const response = await apiClient.get('/books/suggest', {
+        params: { prefix, limit },
+      });
+      return response.data;
+    } catch (error) {
+      throw handleApiError(error);
+    }
+  },
+
+  /**
+   * Filter by category, year range and availability with facet counts
+   * GET /books/facets?category=&yearFrom=&yearTo=&available=
+   * Returns { total, items, categories, years, availability }
+   */
+  getFacets: async (filters = {}) => {
+    try {
+      const response = await apiClient.get('/books/facets', { params: filters });
+      return response.data;
+    } catch (error) {
+      throw handleApiError(error);
+    }
+  },
+
   /**
    * Get available books
    * GET /books/available
@@ -73,6 +103,23 @@ const bookApi = {
     }
   },
 
+  /**
+   * Bulk import a CSV or NDJSON file (Admin only)
+   * POST /books/import
+   * Returns { rowsRead, imported, rejected, durationMs, errors, errorsTruncated }
+   */
+  importBooks: async (file) => {
+    try {
+      const contentType = file.name.endsWith('.csv') ? 'text/csv' : 'application/x-ndjson';
+      const response = await apiClient.post('/books/import', file, {
+        headers: { 'Content-Type': contentType },
+      });
+      return response.data;
+    } catch (error) {
+      throw handleApiError(error);
+    }
+  },
+
   /**
    * Update book (Admin only)
    * PUT /books/{id}
@@ -19,6 +19,20 @@ const borrowApi = {
     }
   },
 
+  /**
+   * Check out several books for one user at once
+   * POST /borrow/batch  { userId, bookIds }
+   * Returns one { item, success, message, borrowId } per book
+   */
+  borrowBooks: async (userId, bookIds) => {
+    try {
+      const response = await apiClient.post('/borrow/batch', { userId, bookIds });
+      return response.data;
+    } catch (error) {
+      throw handleApiError(error);
+    }
+  },
+
   /**
    * Return a book
    * POST /borrow/return
@@ -32,6 +46,19 @@ const borrowApi = {
     }
   },
 
+  /**
+   * Process many returns at once by borrow id and/or ISBN (Admin only)
+   * POST /borrow/return/batch  { borrowIds, isbns }
+   */
+  returnBooks: async ({ borrowIds = [], isbns = [] }) => {
+    try {
+      const response = await apiClient.post('/borrow/return/batch', { borrowIds, isbns });
+      return response.data;
+    } catch (error) {
+      throw handleApiError(error);
+    }
+  },
+
   /**
    * Get borrowed books by user
    * GET /borrow/user/{userId}
@@ -46,12 +46,12 @@ const fineApi = {
   },
 
   /**
-   * Pay a specific fine
+   * Pay a specific fine; pass an amount to pay only part of it
    * POST /fines/{id}/pay
    */
-  payFine: async (fineId) => {
+  payFine: async (fineId, amount) => {
     try {
-      const response = await apiClient.post(`/fines/${fineId}/pay`);
+      const response = await apiClient.post(`/fines/${fineId}/pay`, amount == null ? undefined : { amount });
       return response.data;
     } catch (error) {
       throw handleApiError(error);
@@ -59,7 +59,7 @@ const fineApi = {
   },
 
   /**
-   * Pay all unpaid fines
+   * Pay all unpaid fines on returned books; resolves to { fineCount, userCount, totalAmount }
    * POST /fines/pay-all
    */
   payAllFines: async () => {
@@ -165,6 +165,19 @@ const fineApi = {
       throw handleApiError(error);
     }
   },
+
+  /**
+   * Waive every unpaid fine matching any of { userId, from, to, below } (Admin)
+   * POST /fines/waive
+   */
+  waiveFines: async (criteria) => {
+    try {
+      const response = await apiClient.post('/fines/waive', criteria);
+      return response.data;
+    } catch (error) {
+      throw handleApiError(error);
+    }
+  },
 };
 
 export default fineApi;
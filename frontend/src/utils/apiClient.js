@@ -17,6 +17,11 @@ apiClient.interceptors.request.use(
     if (token) {
       config.headers.Authorization = `Bearer ${token}`;
     }
+    // One key per logical POST; kept when this config is retried (e.g. after a token refresh)
+    // so the server replays the first response instead of borrowing/paying twice
+    if (config.method === 'post' && !config.headers['Idempotency-Key']) {
+      config.headers['Idempotency-Key'] = crypto.randomUUID();
+    }
     return config;
   },
   (error) => {
@@ -0,0 +1,145 @@
+package com.example.Library.Management.ITITIU22124.config;
+
+import com.example.Library.Management.ITITIU22124.service.CatalogVersion;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Conditional GETs and a response cache for the public catalog endpoints.
+ * ETags are derived from CatalogVersion, so an unchanged catalog is answered
+ * with 304 before any controller runs. Successful bodies are kept together with
+ * a pre-gzipped copy until the catalog version moves on.
+ */
+@Component
+public class CatalogResponseCacheFilter extends OncePerRequestFilter {
+
+    private static final String CATALOG_PATH = "/api/books";
+
+    // Streamed, potentially huge responses must not be buffered
+    private static final String EXPORT_PATH = "/api/books/export";
+
+    private final CatalogVersion catalogVersion;
+
+    private final Cache<String, CachedResponse> responses;
+
+    private final int maxEntryBytes;
+
+    public CatalogResponseCacheFilter(CatalogVersion catalogVersion,
+            @Value("${library.http.catalog-cache.max-bytes:33554432}") long maxBytes,
+            @Value("${library.http.catalog-cache.max-entry-bytes:1048576}") int maxEntryBytes) {
+        this.catalogVersion = catalogVersion;
+        this.maxEntryBytes = maxEntryBytes;
+        this.responses = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((String key, CachedResponse value) -> value.body.length + value.gzipped.length)
+                .build();
+    }
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        return !"GET".equals(request.getMethod()) || !request.getRequestURI().startsWith(CATALOG_PATH)
+                || request.getRequestURI().startsWith(EXPORT_PATH);
+    }
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain) throws ServletException, IOException {
+
+        String key = request.getQueryString() == null
+                ? request.getRequestURI()
+                : request.getRequestURI() + "?" + request.getQueryString();
+        long version = catalogVersion.current();
+        String etag = "\"" + Long.toHexString(catalogVersion.getEpoch()) + "-" + version + "-"
+                + Integer.toHexString(key.hashCode()) + "\"";
+
+        if (matches(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            setValidators(response, etag);
+            return;
+        }
+
+        CachedResponse cached = responses.getIfPresent(key);
+        if (cached != null && cached.version == version) {
+            write(request, response, cached, etag);
+            return;
+        }
+
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        filterChain.doFilter(request, wrapper);
+
+        // Only cache when the catalog did not change while the response was being built
+        byte[] body = wrapper.getContentAsByteArray();
+        if (wrapper.getStatus() == HttpServletResponse.SC_OK && catalogVersion.current() == version) {
+            setValidators(wrapper, etag);
+            if (body.length <= maxEntryBytes) {
+                responses.put(key, new CachedResponse(version, wrapper.getContentType(), body, gzip(body)));
+            }
+        }
+        wrapper.copyBodyToResponse();
+    }
+
+    private void write(HttpServletRequest request, HttpServletResponse response, CachedResponse cached,
+            String etag) throws IOException {
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        boolean gzip = acceptEncoding != null && acceptEncoding.contains("gzip");
+        byte[] payload = gzip ? cached.gzipped : cached.body;
+
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType(cached.contentType);
+        if (gzip) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        setValidators(response, etag);
+        response.setContentLength(payload.length);
+        response.getOutputStream().write(payload);
+    }
+
+    private static void setValidators(HttpServletResponse response, String etag) {
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+    }
+
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+            if (value.startsWith("W/")) {
+                value = value.substring(2);
+            }
+            if (value.equals(etag) || value.equals("*")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static byte[] gzip(byte[] body) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, body.length / 4));
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(body);
+        }
+        return out.toByteArray();
+    }
+
+    private record CachedResponse(long version, String contentType, byte[] body, byte[] gzipped) {
+    }
+}
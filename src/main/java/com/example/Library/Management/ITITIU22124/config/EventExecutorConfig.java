@@ -0,0 +1,34 @@
+package com.example.Library.Management.ITITIU22124.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Bounded pool for after-commit circulation event listeners. When the queue is full the
+ * publishing thread runs the listener itself, which slows producers instead of dropping events.
+ */
+@Configuration
+public class EventExecutorConfig {
+
+    public static final String EVENT_EXECUTOR = "eventExecutor";
+
+    @Bean(name = EVENT_EXECUTOR)
+    public ThreadPoolTaskExecutor eventExecutor(
+            @Value("${library.events.core-pool-size:2}") int corePoolSize,
+            @Value("${library.events.max-pool-size:4}") int maxPoolSize,
+            @Value("${library.events.queue-capacity:1000}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("event-");
+        executor.setCorePoolSize(corePoolSize);
+        executor.setMaxPoolSize(maxPoolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+}
@@ -0,0 +1,246 @@
+package com.example.Library.Management.ITITIU22124.config;
+
+import com.example.Library.Management.ITITIU22124.service.IdempotencyStore;
+import com.example.Library.Management.ITITIU22124.service.IdempotencyStore.StoredResponse;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.PathContainer;
+import org.springframework.lang.NonNull;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Idempotency-Key support for the borrow, return and pay endpoints. The first request
+ * with a key runs and its response is stored; retries with the same key, user and path
+ * get that response back (Idempotent-Replayed: true) without touching the services, and
+ * a duplicate arriving while the first is still running waits for it. Reusing a key with
+ * a different body is rejected with 422. Server errors are not stored, so they can be retried.
+ */
+@Component
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+    public static final String HEADER = "Idempotency-Key";
+
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private static final List<PathPattern> PATHS = List.of(
+            PathPatternParser.defaultInstance.parse("/api/borrow"),
+            PathPatternParser.defaultInstance.parse("/api/borrow/batch"),
+            PathPatternParser.defaultInstance.parse("/api/borrow/return/{id}"),
+            PathPatternParser.defaultInstance.parse("/api/borrow/{id}/return"),
+            PathPatternParser.defaultInstance.parse("/api/fines/{id}/pay"),
+            PathPatternParser.defaultInstance.parse("/api/fines/pay-all"));
+
+    private final IdempotencyStore store;
+
+    private final ObjectMapper objectMapper;
+
+    private final long waitTimeoutMs;
+
+    private final int maxBodyBytes;
+
+    public IdempotencyFilter(IdempotencyStore store, ObjectMapper objectMapper,
+            @Value("${library.idempotency.wait-timeout-ms:10000}") long waitTimeoutMs,
+            @Value("${library.idempotency.max-body-bytes:262144}") int maxBodyBytes) {
+        this.store = store;
+        this.objectMapper = objectMapper;
+        this.waitTimeoutMs = waitTimeoutMs;
+        this.maxBodyBytes = maxBodyBytes;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        if (!"POST".equals(request.getMethod()) || request.getHeader(HEADER) == null) {
+            return true;
+        }
+        PathContainer path = PathContainer.parsePath(request.getRequestURI());
+        return PATHS.stream().noneMatch(pattern -> pattern.matches(path));
+    }
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain) throws ServletException, IOException {
+
+        String key = request.getHeader(HEADER).trim();
+        if (key.isEmpty() || key.length() > MAX_KEY_LENGTH) {
+            writeError(request, response, HttpStatus.BAD_REQUEST,
+                    HEADER + " must be 1 to " + MAX_KEY_LENGTH + " characters");
+            return;
+        }
+
+        // Keys are scoped to the caller and the endpoint, so two users can never collide
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        String principal = auth == null ? "anonymous" : auth.getName();
+        String scopeHash = sha256((principal + "\n" + request.getRequestURI() + "\n" + key)
+                .getBytes(StandardCharsets.UTF_8));
+        byte[] body = request.getInputStream().readAllBytes();
+        String requestHash = sha256(body);
+
+        StoredResponse stored = store.find(scopeHash).orElse(null);
+        if (stored != null) {
+            replay(request, response, stored, requestHash);
+            return;
+        }
+
+        CompletableFuture<StoredResponse> pending = store.claim(scopeHash);
+        if (pending != null) {
+            awaitAndReplay(request, response, pending, requestHash);
+            return;
+        }
+        // A duplicate may have finished between find and claim; it stores its response before
+        // releasing its claim, so looking again now cannot miss it
+        stored = store.find(scopeHash).orElse(null);
+        if (stored != null) {
+            store.complete(scopeHash, stored, false);
+            replay(request, response, stored, requestHash);
+            return;
+        }
+
+        ContentCachingResponseWrapper wrapped = new ContentCachingResponseWrapper(response);
+        try {
+            filterChain.doFilter(new CachedBodyRequest(request, body), wrapped);
+        } catch (IOException | ServletException | RuntimeException e) {
+            store.fail(scopeHash, e);
+            throw e;
+        }
+        byte[] responseBody = wrapped.getContentAsByteArray();
+        StoredResponse result = new StoredResponse(requestHash, wrapped.getStatus(), wrapped.getContentType(),
+                responseBody);
+        store.complete(scopeHash, result, wrapped.getStatus() < 500 && responseBody.length <= maxBodyBytes);
+        wrapped.copyBodyToResponse();
+    }
+
+    private void awaitAndReplay(HttpServletRequest request, HttpServletResponse response,
+            CompletableFuture<StoredResponse> pending, String requestHash) throws IOException {
+        try {
+            replay(request, response, pending.get(waitTimeoutMs, TimeUnit.MILLISECONDS), requestHash);
+        } catch (TimeoutException | ExecutionException e) {
+            writeError(request, response, HttpStatus.CONFLICT,
+                    "A request with this " + HEADER + " is still being processed or failed; retry later");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            writeError(request, response, HttpStatus.SERVICE_UNAVAILABLE, "Interrupted while waiting");
+        }
+    }
+
+    private void replay(HttpServletRequest request, HttpServletResponse response, StoredResponse stored,
+            String requestHash) throws IOException {
+        if (!stored.requestHash().equals(requestHash)) {
+            writeError(request, response, HttpStatus.UNPROCESSABLE_ENTITY,
+                    HEADER + " was already used for a different request");
+            return;
+        }
+        response.setStatus(stored.status());
+        if (stored.contentType() != null) {
+            response.setContentType(stored.contentType());
+        }
+        response.setHeader("Idempotent-Replayed", "true");
+        response.setContentLength(stored.body().length);
+        response.getOutputStream().write(stored.body());
+    }
+
+    // Same shape as GlobalExceptionHandler's error bodies
+    private void writeError(HttpServletRequest request, HttpServletResponse response, HttpStatus status,
+            String message) throws IOException {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("timestamp", LocalDateTime.now().toString());
+        body.put("status", status.value());
+        body.put("error", status.getReasonPhrase());
+        body.put("message", message);
+        body.put("path", request.getRequestURI());
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), body);
+    }
+
+    private static String sha256(byte[] data) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Lets the controller read the body the filter already consumed for hashing
+    private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+        private final byte[] body;
+
+        private CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream input = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public int read() {
+                    return input.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return input.read(b, off, len);
+                }
+
+                @Override
+                public boolean isFinished() {
+                    return input.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    throw new UnsupportedOperationException();
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            Charset charset = getCharacterEncoding() == null
+                    ? StandardCharsets.UTF_8
+                    : Charset.forName(getCharacterEncoding());
+            return new BufferedReader(new InputStreamReader(getInputStream(), charset));
+        }
+    }
+}
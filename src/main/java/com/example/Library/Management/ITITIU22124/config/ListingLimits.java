@@ -0,0 +1,24 @@
+package com.example.Library.Management.ITITIU22124.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+/**
+ * Hard cap on the unpaged list endpoints (GET /api/borrow, /api/reservations, /api/fines, ...);
+ * use /api/admin/* to page through everything
+ */
+@Component
+public class ListingLimits {
+
+    @Value("${library.listing.max-rows:1000}")
+    private int maxRows;
+
+    /**
+     * The first maxRows rows of an unpaged listing
+     */
+    public Pageable firstPage() {
+        return PageRequest.ofSize(maxRows);
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.Library.Management.ITITIU22124.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.flywaydb.core.api.callback.Callback;
+import org.flywaydb.core.api.callback.Context;
+import org.flywaydb.core.api.callback.Event;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Fails startup when an index the repository queries rely on is missing or has
+ * different columns, instead of letting those queries silently fall back to table scans.
+ * The expected set mirrors the CREATE INDEX statements in db/migration. Runs as a
+ * Flyway callback right after the migrations, so a bad schema stops startup before
+ * JPA, the scheduled jobs or the web server come up.
+ */
+@Component
+@Slf4j
+public class SchemaIndexCheck implements Callback {
+
+    private static final List<ExpectedIndex> EXPECTED = List.of(
+            new ExpectedIndex("borrow_records", "idx_borrow_user_open", "user_id", "return_date", "due_date"),
+            new ExpectedIndex("borrow_records", "idx_borrow_user", "user_id"),
+            new ExpectedIndex("borrow_records", "idx_borrow_book", "book_id"),
+            new ExpectedIndex("borrow_records", "idx_borrow_open_due", "return_date", "due_date"),
+            new ExpectedIndex("borrow_records", "idx_borrow_open_id", "return_date", "id"),
+            new ExpectedIndex("borrow_records", "idx_borrow_status", "status"),
+            new ExpectedIndex("borrow_records", "idx_borrow_borrow_date", "borrow_date"),
+            new ExpectedIndex("reservations", "idx_res_book_status_date", "book_id", "status", "reservation_date"),
+            new ExpectedIndex("reservations", "idx_res_user_status", "user_id", "status"),
+            new ExpectedIndex("reservations", "idx_res_user", "user_id"),
+            new ExpectedIndex("reservations", "idx_res_status", "status"),
+            new ExpectedIndex("reservations", "idx_res_date", "reservation_date"),
+            new ExpectedIndex("fines", "idx_fine_user_status", "user_id", "status", "amount"),
+            new ExpectedIndex("fines", "idx_fine_user", "user_id"),
+            new ExpectedIndex("fines", "idx_fine_status", "status"),
+            new ExpectedIndex("fines", "uk_fine_borrow_record", "borrow_record_id"),
+            new ExpectedIndex("fines", "idx_fine_created_at", "created_at"),
+            new ExpectedIndex("fine_ledger", "idx_ledger_user", "user_id", "id"),
+            new ExpectedIndex("fine_ledger", "idx_ledger_fine", "fine_id"),
+            new ExpectedIndex("books", "idx_book_category", "category"),
+            new ExpectedIndex("email_outbox", "idx_outbox_status_next", "status", "next_attempt_at"),
+            new ExpectedIndex("idempotency_keys", "idx_idempotency_expires", "expires_at"));
+
+    @Value("${library.schema.verify-indexes:true}")
+    private boolean enabled;
+
+    @Override
+    public boolean supports(Event event, Context context) {
+        return enabled && event == Event.AFTER_MIGRATE;
+    }
+
+    @Override
+    public boolean canHandleInTransaction(Event event, Context context) {
+        return true;
+    }
+
+    @Override
+    public void handle(Event event, Context context) {
+        // Flyway's connection; it stays open for Flyway to use afterwards
+        verify(context.getConnection());
+    }
+
+    @Override
+    public String getCallbackName() {
+        return "SchemaIndexCheck";
+    }
+
+    void verify(Connection connection) {
+        List<String> problems = new ArrayList<>();
+        Map<String, Map<String, List<String>>> indexesByTable = new HashMap<>();
+        try {
+            DatabaseMetaData metaData = connection.getMetaData();
+            String catalog = connection.getCatalog();
+            for (ExpectedIndex expected : EXPECTED) {
+                Map<String, List<String>> indexes = indexesByTable.computeIfAbsent(expected.table(),
+                        table -> readIndexes(metaData, catalog, table));
+                List<String> columns = indexes.get(expected.name());
+                if (columns == null) {
+                    problems.add(expected.table() + "." + expected.name() + " is missing");
+                } else if (!columns.equals(expected.columns())) {
+                    problems.add(expected.table() + "." + expected.name() + " is on " + columns
+                            + ", expected " + expected.columns());
+                }
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not read the schema's index metadata", e);
+        }
+        if (!problems.isEmpty()) {
+            throw new IllegalStateException("Schema index check failed (run the Flyway migrations): "
+                    + String.join("; ", problems));
+        }
+        log.info("Schema index check passed: {} indexes", EXPECTED.size());
+    }
+
+    // index name -> columns in key order, names lower-cased
+    private static Map<String, List<String>> readIndexes(DatabaseMetaData metaData, String catalog, String table) {
+        Map<String, TreeMap<Short, String>> columnsByIndex = new HashMap<>();
+        try (ResultSet rs = metaData.getIndexInfo(catalog, null, table, false, false)) {
+            while (rs.next()) {
+                String indexName = rs.getString("INDEX_NAME");
+                String columnName = rs.getString("COLUMN_NAME");
+                if (indexName == null || columnName == null) {
+                    continue;
+                }
+                columnsByIndex.computeIfAbsent(indexName.toLowerCase(Locale.ROOT), k -> new TreeMap<>())
+                        .put(rs.getShort("ORDINAL_POSITION"), columnName.toLowerCase(Locale.ROOT));
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not read indexes of table " + table, e);
+        }
+        Map<String, List<String>> indexes = new HashMap<>();
+        columnsByIndex.forEach((name, columns) -> indexes.put(name, List.copyOf(columns.values())));
+        return indexes;
+    }
+
+    private record ExpectedIndex(String table, String name, List<String> columns) {
+        private ExpectedIndex(String table, String name, String... columns) {
+            this(table, name, List.of(columns));
+        }
+    }
+}
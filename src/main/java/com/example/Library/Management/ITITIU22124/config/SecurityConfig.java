@@ -44,7 +44,8 @@ public class SecurityConfig {
                         // Public endpoints - Authentication
                         .requestMatchers("/api/auth/**").permitAll()
 
-                        // Public endpoints - Books (read operations)
+                        // Public endpoints - Books (read operations); the full export is admin only
+                        .requestMatchers(HttpMethod.GET, "/api/books/export").hasRole("ADMIN")
                         .requestMatchers(HttpMethod.GET, "/api/books/**").permitAll()
                         .requestMatchers(HttpMethod.GET, "/api/books/search").permitAll()
 
@@ -60,6 +61,7 @@ public class SecurityConfig {
                         .requestMatchers(HttpMethod.DELETE, "/api/books/**").hasRole("ADMIN")
                         .requestMatchers("/api/admin/**").hasRole("ADMIN")
                         .requestMatchers("/api/borrow/overdue").hasRole("ADMIN")
+                        .requestMatchers(HttpMethod.POST, "/api/borrow/return/batch").hasRole("ADMIN")
                         .requestMatchers(HttpMethod.PUT, "/api/reservations/*/ready").hasRole("ADMIN")
 
                         // User endpoints (authenticated users)
@@ -84,8 +86,9 @@ public class SecurityConfig {
         CorsConfiguration configuration = new CorsConfiguration();
         configuration.setAllowedOrigins(List.of("http://localhost:3000", "http://localhost:8080"));
         configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "DELETE", "PATCH", "OPTIONS"));
-        configuration.setAllowedHeaders(Arrays.asList("Authorization", "Content-Type", "X-Requested-With"));
-        configuration.setExposedHeaders(List.of("Authorization"));
+        configuration.setAllowedHeaders(Arrays.asList("Authorization", "Content-Type", "X-Requested-With",
+                "Idempotency-Key"));
+        configuration.setExposedHeaders(List.of("Authorization", "Idempotent-Replayed"));
         configuration.setAllowCredentials(true);
         configuration.setMaxAge(3600L);
 
@@ -0,0 +1,71 @@
+package com.example.Library.Management.ITITIU22124.controller;
+
+import com.example.Library.Management.ITITIU22124.dto.BorrowDTO;
+import com.example.Library.Management.ITITIU22124.dto.CursorPage;
+import com.example.Library.Management.ITITIU22124.dto.FineDTO;
+import com.example.Library.Management.ITITIU22124.dto.ReservationDTO;
+import com.example.Library.Management.ITITIU22124.service.AdminListingService;
+import com.example.Library.Management.ITITIU22124.service.AdminListingService.ListingFilter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+
+/**
+ * Paged admin listings. Filters: status, userId, bookId, from/to (ISO dates, inclusive);
+ * order=desc (newest first, default) or asc; pass nextCursor back as ?cursor= for the next page.
+ */
+@RestController
+@RequestMapping("/api/admin")
+public class AdminListingController {
+
+    @Autowired
+    private AdminListingService adminListingService;
+
+    @GetMapping("/borrows")
+    public ResponseEntity<CursorPage<BorrowDTO>> listBorrows(
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) Long userId,
+            @RequestParam(required = false) Long bookId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String order) {
+        return ResponseEntity.ok(adminListingService.listBorrows(
+                new ListingFilter(status, userId, bookId, from, to, cursor, limit, order)));
+    }
+
+    @GetMapping("/reservations")
+    public ResponseEntity<CursorPage<ReservationDTO>> listReservations(
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) Long userId,
+            @RequestParam(required = false) Long bookId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String order) {
+        return ResponseEntity.ok(adminListingService.listReservations(
+                new ListingFilter(status, userId, bookId, from, to, cursor, limit, order)));
+    }
+
+    @GetMapping("/fines")
+    public ResponseEntity<CursorPage<FineDTO>> listFines(
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) Long userId,
+            @RequestParam(required = false) Long bookId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String order) {
+        return ResponseEntity.ok(adminListingService.listFines(
+                new ListingFilter(status, userId, bookId, from, to, cursor, limit, order)));
+    }
+}
@@ -1,21 +1,54 @@
 package com.example.Library.Management.ITITIU22124.controller;
 
+import com.example.Library.Management.ITITIU22124.config.EventExecutorConfig;
 import com.example.Library.Management.ITITIU22124.dto.AdminStatsDTO;
+import com.example.Library.Management.ITITIU22124.event.EventMetrics;
 import com.example.Library.Management.ITITIU22124.service.AdminStatsService;
+import com.example.Library.Management.ITITIU22124.service.BookService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 @RestController
 @RequestMapping("/api/admin/stats")
 public class AdminStatsController {
     @Autowired
     private AdminStatsService adminStatsService;
+    @Autowired
+    private BookService bookService;
+    @Autowired
+    private EventMetrics eventMetrics;
+    @Autowired
+    @Qualifier(EventExecutorConfig.EVENT_EXECUTOR)
+    private ThreadPoolTaskExecutor eventExecutor;
 
     @GetMapping
     public ResponseEntity<AdminStatsDTO> getStats() {
         return ResponseEntity.ok(adminStatsService.getStats());
     }
+
+    @GetMapping("/cache")
+    public ResponseEntity<Map<String, Object>> getCacheStats() {
+        return ResponseEntity.ok(bookService.getCacheStatistics());
+    }
+
+    /**
+     * After-commit event listener lag and outcomes per event type and listener, plus executor load
+     */
+    @GetMapping("/events")
+    public ResponseEntity<Map<String, Object>> getEventStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("events", eventMetrics.snapshot());
+        stats.put("activeThreads", eventExecutor.getActiveCount());
+        stats.put("poolSize", eventExecutor.getPoolSize());
+        stats.put("queued", eventExecutor.getThreadPoolExecutor().getQueue().size());
+        return ResponseEntity.ok(stats);
+    }
 }
@@ -1,11 +1,23 @@
 package com.example.Library.Management.ITITIU22124.controller;
 
+import com.example.Library.Management.ITITIU22124.dto.BookDTO;
+import com.example.Library.Management.ITITIU22124.dto.BookFacetsDTO;
+import com.example.Library.Management.ITITIU22124.dto.CursorPage;
+import com.example.Library.Management.ITITIU22124.dto.ImportResultDTO;
+import com.example.Library.Management.ITITIU22124.dto.SuggestionDTO;
 import com.example.Library.Management.ITITIU22124.model.Book;
+import com.example.Library.Management.ITITIU22124.exception.BadRequestException;
+import com.example.Library.Management.ITITIU22124.service.BookExportService;
+import com.example.Library.Management.ITITIU22124.service.BookImportService;
 import com.example.Library.Management.ITITIU22124.service.BookService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
 import java.util.List;
 
 @RestController
@@ -15,9 +27,36 @@ public class BookController {
     @Autowired
     private BookService bookService;
 
+    @Autowired
+    private BookImportService bookImportService;
+
+    @Autowired
+    private BookExportService bookExportService;
+
     @GetMapping
-    public ResponseEntity<List<Book>> getAllBooks() {
-        return ResponseEntity.ok(bookService.getAllBooks());
+    public ResponseEntity<CursorPage<BookDTO>> getAllBooks(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(bookService.getBooksPage(cursor, limit));
+    }
+
+    /**
+     * Full catalog dump written straight to the response (Admin only)
+     */
+    @GetMapping("/export")
+    public void exportBooks(@RequestParam(defaultValue = "ndjson") String format, HttpServletResponse response)
+            throws IOException {
+        BookExportService.Format exportFormat;
+        try {
+            exportFormat = BookExportService.Format.valueOf(format.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Unsupported export format: " + format);
+        }
+        boolean csv = exportFormat == BookExportService.Format.CSV;
+        response.setContentType(csv ? "text/csv;charset=UTF-8" : "application/x-ndjson;charset=UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=\"books." + (csv ? "csv" : "ndjson") + "\"");
+        bookExportService.export(response.getOutputStream(), exportFormat);
     }
 
     @GetMapping("/{id}")
@@ -32,6 +71,18 @@ public class BookController {
         return ResponseEntity.ok(bookService.addBook(book));
     }
 
+    /**
+     * Bulk import: text/csv with a header row, or application/x-ndjson with one book per line.
+     * The body is streamed, not buffered.
+     */
+    @PostMapping(value = "/import", consumes = { "text/csv", "application/x-ndjson" })
+    public ResponseEntity<ImportResultDTO> importBooks(HttpServletRequest request) throws IOException {
+        BookImportService.Format format = request.getContentType().startsWith("text/csv")
+                ? BookImportService.Format.CSV
+                : BookImportService.Format.NDJSON;
+        return ResponseEntity.ok(bookImportService.importBooks(request.getInputStream(), format));
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<Book> updateBook(@PathVariable Long id, @RequestBody Book bookDetails) {
         return ResponseEntity.ok(bookService.updateBook(id, bookDetails));
@@ -44,8 +95,25 @@ public class BookController {
     }
 
     @GetMapping("/search")
-    public ResponseEntity<List<Book>> searchBooks(@RequestParam String query) {
-        return ResponseEntity.ok(bookService.searchBooks(query));
+    public ResponseEntity<List<Book>> searchBooks(@RequestParam String query,
+            @RequestParam(defaultValue = "false") boolean fuzzy) {
+        return ResponseEntity.ok(bookService.searchBooks(query, fuzzy));
+    }
+
+    @GetMapping("/suggest")
+    public ResponseEntity<List<SuggestionDTO>> suggest(@RequestParam String prefix,
+            @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(bookService.suggest(prefix, limit));
+    }
+
+    @GetMapping("/facets")
+    public ResponseEntity<BookFacetsDTO> facetSearch(
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) Integer yearFrom,
+            @RequestParam(required = false) Integer yearTo,
+            @RequestParam(defaultValue = "false") boolean available,
+            @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(bookService.facetSearch(category, yearFrom, yearTo, available, limit));
     }
 
     @PostMapping("/{id}/borrow")
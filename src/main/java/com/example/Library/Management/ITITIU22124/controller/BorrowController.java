@@ -2,6 +2,9 @@
 package com.example.Library.Management.ITITIU22124.controller;
 // Get all borrows (Admin)
 
+import com.example.Library.Management.ITITIU22124.dto.BatchBorrowRequest;
+import com.example.Library.Management.ITITIU22124.dto.BatchItemResult;
+import com.example.Library.Management.ITITIU22124.dto.BatchReturnRequest;
 import com.example.Library.Management.ITITIU22124.dto.BorrowDTO;
 import com.example.Library.Management.ITITIU22124.model.BorrowRecord;
 import com.example.Library.Management.ITITIU22124.model.User;
@@ -22,44 +25,64 @@ public class BorrowController {
     private BorrowService borrowService;
 
     @PostMapping
-    public ResponseEntity<BorrowRecord> borrowBook(@RequestBody Map<String, Long> borrowData) {
+    public ResponseEntity<BorrowDTO> borrowBook(@RequestBody Map<String, Long> borrowData) {
         Long userId = borrowData.get("userId");
         Long bookId = borrowData.get("bookId");
-        return ResponseEntity.ok(borrowService.borrowBook(userId, bookId));
+        BorrowRecord record = borrowService.borrowBook(userId, bookId);
+        return ResponseEntity.ok(borrowService.getBorrow(record.getId()));
+    }
+
+    /**
+     * Check out several books for one user at once; returns one result per requested book
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<List<BatchItemResult>> borrowBooks(@RequestBody BatchBorrowRequest request) {
+        return ResponseEntity.ok(borrowService.borrowBooks(request.getUserId(), request.getBookIds()));
+    }
+
+    /**
+     * Process many returns at once (e.g. the book-drop bin) by borrow id and/or ISBN
+     */
+    @PostMapping("/return/batch")
+    public ResponseEntity<List<BatchItemResult>> returnBooks(@RequestBody BatchReturnRequest request) {
+        return ResponseEntity.ok(borrowService.returnBooks(request.getBorrowIds(), request.getIsbns()));
     }
 
     @PostMapping("/return/{id}")
-    public ResponseEntity<BorrowRecord> returnBook(@PathVariable Long id) {
-        return ResponseEntity.ok(borrowService.returnBook(id));
+    public ResponseEntity<BorrowDTO> returnBook(@PathVariable Long id) {
+        borrowService.returnBook(id);
+        return ResponseEntity.ok(borrowService.getBorrow(id));
     }
 
     @PostMapping("/{id}/return")
-    public ResponseEntity<BorrowRecord> returnBookAlt(@PathVariable Long id) {
-        return ResponseEntity.ok(borrowService.returnBook(id));
+    public ResponseEntity<BorrowDTO> returnBookAlt(@PathVariable Long id) {
+        borrowService.returnBook(id);
+        return ResponseEntity.ok(borrowService.getBorrow(id));
     }
 
     @GetMapping("/user/{userId}")
-    public List<BorrowRecord> getBorrowedBooksByUser(@PathVariable Long userId) {
+    public List<BorrowDTO> getBorrowedBooksByUser(@PathVariable Long userId) {
         return borrowService.getBorrowedBooksByUser(userId);
     }
 
     @GetMapping("/my-books")
-    public List<BorrowRecord> getMyBorrowedBooks(@AuthenticationPrincipal User user) {
+    public List<BorrowDTO> getMyBorrowedBooks(@AuthenticationPrincipal User user) {
         return borrowService.getBorrowedBooksByUser(user.getId());
     }
 
     @PutMapping("/{id}/extend")
-    public ResponseEntity<BorrowRecord> extendBorrow(@PathVariable Long id) {
-        return ResponseEntity.ok(borrowService.extendBorrow(id));
+    public ResponseEntity<BorrowDTO> extendBorrow(@PathVariable Long id) {
+        borrowService.extendBorrow(id);
+        return ResponseEntity.ok(borrowService.getBorrow(id));
     }
 
     @GetMapping("/overdue")
-    public List<BorrowRecord> getOverdueBooks() {
+    public List<BorrowDTO> getOverdueBooks() {
         return borrowService.getOverdueBooks();
     }
 
     @GetMapping
-    public List<BorrowRecord> getAllBorrows() {
+    public List<BorrowDTO> getAllBorrows() {
         return borrowService.getAllBorrows();
     }
 }
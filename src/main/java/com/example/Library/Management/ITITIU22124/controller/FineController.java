@@ -1,12 +1,17 @@
 package com.example.Library.Management.ITITIU22124.controller;
 
-import com.example.Library.Management.ITITIU22124.model.Fine;
+import com.example.Library.Management.ITITIU22124.dto.BulkFineResult;
+import com.example.Library.Management.ITITIU22124.dto.FineDTO;
+import com.example.Library.Management.ITITIU22124.dto.FinePaymentRequest;
+import com.example.Library.Management.ITITIU22124.dto.FineWaiverRequest;
 import com.example.Library.Management.ITITIU22124.model.User;
+import com.example.Library.Management.ITITIU22124.service.FineAccrualJob;
 import com.example.Library.Management.ITITIU22124.service.FineService;
 import com.example.Library.Management.ITITIU22124.service.FineService.FineStatistics;
 import com.example.Library.Management.ITITIU22124.service.FineService.FinePreview;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
@@ -25,11 +30,14 @@ public class FineController {
     @Autowired
     private FineService fineService;
 
+    @Autowired
+    private FineAccrualJob fineAccrualJob;
+
     /**
      * Get current user's fines
      */
     @GetMapping("/my-fines")
-    public ResponseEntity<List<Fine>> getMyFines(@AuthenticationPrincipal User user) {
+    public ResponseEntity<List<FineDTO>> getMyFines(@AuthenticationPrincipal User user) {
         return ResponseEntity.ok(fineService.getFinesByUser(user.getId()));
     }
 
@@ -37,7 +45,7 @@ public class FineController {
      * Get current user's unpaid fines
      */
     @GetMapping("/my-fines/unpaid")
-    public ResponseEntity<List<Fine>> getMyUnpaidFines(@AuthenticationPrincipal User user) {
+    public ResponseEntity<List<FineDTO>> getMyUnpaidFines(@AuthenticationPrincipal User user) {
         return ResponseEntity.ok(fineService.getUnpaidFinesByUser(user.getId()));
     }
 
@@ -54,24 +62,27 @@ public class FineController {
     }
 
     /**
-     * Pay a specific fine
+     * Pay a specific fine; an optional {"amount": ...} body pays only part of it
      */
     @PostMapping("/{id}/pay")
-    public ResponseEntity<Fine> payFine(@PathVariable Long id, @AuthenticationPrincipal User user) {
-        Fine fine = fineService.getFineById(id);
+    public ResponseEntity<FineDTO> payFine(@PathVariable Long id,
+            @RequestBody(required = false) FinePaymentRequest payment,
+            @AuthenticationPrincipal User user) {
+        FineDTO fine = fineService.getFineById(id);
         // Verify the fine belongs to the user (or user is admin)
         if (!fine.getUser().getId().equals(user.getId()) && !user.getRole().name().equals("ADMIN")) {
             return ResponseEntity.status(403).build();
         }
-        return ResponseEntity.ok(fineService.payFine(id));
+        fineService.payFine(id, payment == null ? null : payment.getAmount());
+        return ResponseEntity.ok(fineService.getFineById(id));
     }
 
     /**
      * Pay all unpaid fines for current user
      */
     @PostMapping("/pay-all")
-    public ResponseEntity<List<Fine>> payAllFines(@AuthenticationPrincipal User user) {
-        return ResponseEntity.ok(fineService.payAllFines(user.getId()));
+    public ResponseEntity<BulkFineResult> payAllFines(@AuthenticationPrincipal User user) {
+        return ResponseEntity.ok(fineService.payAllFines(user.getId(), user.getEmail()));
     }
 
     /**
@@ -91,7 +102,7 @@ public class FineController {
      */
     @GetMapping
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<List<Fine>> getAllFines() {
+    public ResponseEntity<List<FineDTO>> getAllFines() {
         return ResponseEntity.ok(fineService.getAllFines());
     }
 
@@ -100,7 +111,7 @@ public class FineController {
      */
     @GetMapping("/unpaid")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<List<Fine>> getAllUnpaidFines() {
+    public ResponseEntity<List<FineDTO>> getAllUnpaidFines() {
         return ResponseEntity.ok(fineService.getAllUnpaidFines());
     }
 
@@ -109,7 +120,7 @@ public class FineController {
      */
     @GetMapping("/user/{userId}")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<List<Fine>> getFinesByUser(@PathVariable Long userId) {
+    public ResponseEntity<List<FineDTO>> getFinesByUser(@PathVariable Long userId) {
         return ResponseEntity.ok(fineService.getFinesByUser(userId));
     }
 
@@ -122,21 +133,54 @@ public class FineController {
         return ResponseEntity.ok(fineService.getStatistics());
     }
 
+    /**
+     * Start today's fine accrual on loans still out now, instead of waiting for the nightly
+     * job; 409 while a run is in progress (Admin)
+     */
+    @PostMapping("/accrue")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> accrueFines() {
+        fineAccrualJob.start();
+        Map<String, Object> response = new HashMap<>();
+        response.put("status", "started");
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
+    }
+
+    /**
+     * Progress of the latest fine accrual run (Admin)
+     */
+    @GetMapping("/accrue")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getAccrualStatus() {
+        return ResponseEntity.ok(fineAccrualJob.status());
+    }
+
     /**
      * Waive a fine (Admin)
      */
     @PostMapping("/{id}/waive")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<Fine> waiveFine(@PathVariable Long id) {
-        return ResponseEntity.ok(fineService.waiveFine(id));
+    public ResponseEntity<FineDTO> waiveFine(@PathVariable Long id) {
+        fineService.waiveFine(id);
+        return ResponseEntity.ok(fineService.getFineById(id));
+    }
+
+    /**
+     * Waive every unpaid fine matching the criteria in one operation (Admin)
+     */
+    @PostMapping("/waive")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<BulkFineResult> waiveFines(@RequestBody FineWaiverRequest criteria,
+            @AuthenticationPrincipal User user) {
+        return ResponseEntity.ok(fineService.waiveFines(criteria, user.getEmail()));
     }
 
     /**
      * Get fine by ID
      */
     @GetMapping("/{id}")
-    public ResponseEntity<Fine> getFineById(@PathVariable Long id, @AuthenticationPrincipal User user) {
-        Fine fine = fineService.getFineById(id);
+    public ResponseEntity<FineDTO> getFineById(@PathVariable Long id, @AuthenticationPrincipal User user) {
+        FineDTO fine = fineService.getFineById(id);
         // Verify the fine belongs to the user (or user is admin)
         if (!fine.getUser().getId().equals(user.getId()) && !user.getRole().name().equals("ADMIN")) {
             return ResponseEntity.status(403).build();
@@ -0,0 +1,31 @@
+package com.example.Library.Management.ITITIU22124.controller;
+
+import com.example.Library.Management.ITITIU22124.service.OutboxDispatcher;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin/outbox")
+public class OutboxAdminController {
+
+    @Autowired
+    private OutboxDispatcher outboxDispatcher;
+
+    @GetMapping
+    public ResponseEntity<Map<String, Long>> getCounts() {
+        return ResponseEntity.ok(outboxDispatcher.countByStatus());
+    }
+
+    @PostMapping("/{id}/retry")
+    public ResponseEntity<Void> retry(@PathVariable Long id) {
+        outboxDispatcher.requeue(id);
+        return ResponseEntity.ok().build();
+    }
+}
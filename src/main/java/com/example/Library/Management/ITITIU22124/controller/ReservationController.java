@@ -1,6 +1,7 @@
 
 package com.example.Library.Management.ITITIU22124.controller;
 
+import com.example.Library.Management.ITITIU22124.dto.ReservationDTO;
 import com.example.Library.Management.ITITIU22124.model.Reservation;
 import com.example.Library.Management.ITITIU22124.model.User;
 import com.example.Library.Management.ITITIU22124.service.ReservationService;
@@ -20,19 +21,20 @@ public class ReservationController {
     private ReservationService reservationService;
 
     @PostMapping
-    public ResponseEntity<Reservation> createReservation(@RequestBody Map<String, Long> reservationData) {
+    public ResponseEntity<ReservationDTO> createReservation(@RequestBody Map<String, Long> reservationData) {
         Long userId = reservationData.get("userId");
         Long bookId = reservationData.get("bookId");
-        return ResponseEntity.ok(reservationService.createReservation(userId, bookId));
+        Reservation reservation = reservationService.createReservation(userId, bookId);
+        return ResponseEntity.ok(reservationService.getReservation(reservation.getId()));
     }
 
     @GetMapping("/user/{userId}")
-    public List<Reservation> getReservationsByUser(@PathVariable Long userId) {
+    public List<ReservationDTO> getReservationsByUser(@PathVariable Long userId) {
         return reservationService.getReservationsByUser(userId);
     }
 
     @GetMapping("/my-reservations")
-    public List<Reservation> getMyReservations(@AuthenticationPrincipal User user) {
+    public List<ReservationDTO> getMyReservations(@AuthenticationPrincipal User user) {
         return reservationService.getReservationsByUser(user.getId());
     }
 
@@ -49,12 +51,13 @@ public class ReservationController {
     }
 
     @PutMapping("/{id}/ready")
-    public ResponseEntity<Reservation> markReady(@PathVariable Long id) {
-        return ResponseEntity.ok(reservationService.markReady(id));
+    public ResponseEntity<ReservationDTO> markReady(@PathVariable Long id) {
+        reservationService.markReady(id);
+        return ResponseEntity.ok(reservationService.getReservation(id));
     }// Get all reservations (Admin)
 
     @GetMapping
-    public List<Reservation> getAllReservations() {
+    public List<ReservationDTO> getAllReservations() {
         return reservationService.getAllReservations();
     }
 }
@@ -4,7 +4,6 @@ import com.example.Library.Management.ITITIU22124.dto.UserProfileDTO;
 import com.example.Library.Management.ITITIU22124.dto.BookDTO;
 import com.example.Library.Management.ITITIU22124.model.User;
 import com.example.Library.Management.ITITIU22124.model.Book;
-import com.example.Library.Management.ITITIU22124.model.BorrowRecord;
 import com.example.Library.Management.ITITIU22124.service.UserService;
 import com.example.Library.Management.ITITIU22124.repository.BorrowRepository;
 import com.example.Library.Management.ITITIU22124.repository.BookRepository;
@@ -104,14 +103,15 @@ public class UserController {
     public List<BookDTO> getRecommendations(@PathVariable Long id) {
         // Get all books first (optimization: could be paginated in real app)
         List<Book> allBooks = bookRepository.findAll();
-        Set<Long> borrowedBookIds = borrowRepository.findByUserId(id).stream()
-                .map(b -> b.getBook().getId())
+        // Book id and category of each past borrow, read in one query
+        List<Object[]> borrowed = borrowRepository.findBorrowedBookCategories(id);
+        Set<Long> borrowedBookIds = borrowed.stream()
+                .map(row -> (Long) row[0])
                 .collect(Collectors.toSet());
 
         // 1. Try strategy: Most borrowed category
-        List<BorrowRecord> borrows = borrowRepository.findByUserId(id);
-        Map<String, Long> categoryCount = borrows.stream()
-                .map(b -> b.getBook().getCategory())
+        Map<String, Long> categoryCount = borrowed.stream()
+                .map(row -> (String) row[1])
                 .filter(Objects::nonNull)
                 .collect(Collectors.groupingBy(c -> c, Collectors.counting()));
 
@@ -0,0 +1,15 @@
+package com.example.Library.Management.ITITIU22124.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchBorrowRequest {
+    private Long userId;
+    private List<Long> bookIds;
+}
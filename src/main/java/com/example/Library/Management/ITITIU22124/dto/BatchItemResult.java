@@ -0,0 +1,23 @@
+package com.example.Library.Management.ITITIU22124.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchItemResult {
+    private String item; // The request entry this result is for (book id, borrow id or ISBN)
+    private boolean success;
+    private String message;
+    private Long borrowId;
+
+    public static BatchItemResult ok(Object item, Long borrowId, String message) {
+        return new BatchItemResult(String.valueOf(item), true, message, borrowId);
+    }
+
+    public static BatchItemResult failed(Object item, String message) {
+        return new BatchItemResult(String.valueOf(item), false, message, null);
+    }
+}
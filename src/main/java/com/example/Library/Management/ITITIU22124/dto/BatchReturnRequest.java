@@ -0,0 +1,15 @@
+package com.example.Library.Management.ITITIU22124.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchReturnRequest {
+    private List<Long> borrowIds;
+    private List<String> isbns; // Each ISBN closes that title's open loan with the earliest due date
+}
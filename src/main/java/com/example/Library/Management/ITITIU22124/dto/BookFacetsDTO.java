@@ -0,0 +1,19 @@
+package com.example.Library.Management.ITITIU22124.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookFacetsDTO {
+    private int total; // Books matching all filters
+    private List<BookDTO> items; // First matches, ordered by id
+    private Map<String, Integer> categories; // Category -> count ("" = uncategorised)
+    private Map<Integer, Integer> years; // Published year -> count, newest first
+    private Map<String, Integer> availability; // "available" / "unavailable" -> count
+}
@@ -3,7 +3,10 @@ package com.example.Library.Management.ITITIU22124.dto;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
+import com.example.Library.Management.ITITIU22124.model.BorrowStatus;
+
 import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
 
 @Data
 @NoArgsConstructor
@@ -18,4 +21,20 @@ public class BorrowDTO {
     private String status; // BORROWED, RETURNED
     private boolean isOverdue; // Computed field
     private long daysOverdue; // Computed field
+
+    // Flat constructor for JPQL projections: only the user and book columns a listing shows
+    public BorrowDTO(Long id, Long userId, String userName, String userEmail, Long bookId, String bookTitle,
+            String bookAuthor, String bookIsbn, LocalDate borrowDate, LocalDate dueDate, LocalDate returnDate,
+            BorrowStatus status) {
+        this.id = id;
+        this.user = new UserDTO(userId, userName, userEmail, null);
+        this.book = new BookDTO(bookId, bookTitle, bookAuthor, bookIsbn, null, null, null, null, false);
+        this.borrowDate = borrowDate;
+        this.dueDate = dueDate;
+        this.returnDate = returnDate;
+        this.status = status.name();
+        LocalDate today = LocalDate.now();
+        this.isOverdue = returnDate == null && dueDate != null && today.isAfter(dueDate);
+        this.daysOverdue = isOverdue ? ChronoUnit.DAYS.between(dueDate, today) : 0;
+    }
 }
@@ -0,0 +1,16 @@
+package com.example.Library.Management.ITITIU22124.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkFineResult {
+    private int fineCount;
+    private int userCount;
+    private BigDecimal totalAmount;
+}
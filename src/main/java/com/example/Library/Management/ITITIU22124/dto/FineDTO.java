@@ -0,0 +1,41 @@
+package com.example.Library.Management.ITITIU22124.dto;
+
+import com.example.Library.Management.ITITIU22124.model.FineStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FineDTO {
+    private Long id;
+    private UserDTO user;
+    private Long borrowRecordId;
+    private Long bookId;
+    private String bookTitle;
+    private String bookAuthor;
+    private BigDecimal amount;
+    private BigDecimal amountPaid;
+    private int daysOverdue;
+    private BigDecimal dailyRate;
+    private String status; // UNPAID, PAID, WAIVED
+    private LocalDateTime createdAt;
+    private LocalDateTime paidAt;
+    private LocalDate dueDate;
+    private LocalDate returnDate;
+
+    // Flat constructor for JPQL projections
+    public FineDTO(Long id, Long userId, String userName, String userEmail, Long borrowRecordId, Long bookId,
+            String bookTitle, String bookAuthor, BigDecimal amount, BigDecimal amountPaid, int daysOverdue,
+            BigDecimal dailyRate,
+            FineStatus status, LocalDateTime createdAt, LocalDateTime paidAt, LocalDate dueDate,
+            LocalDate returnDate) {
+        this(id, new UserDTO(userId, userName, userEmail, null), borrowRecordId, bookId, bookTitle, bookAuthor,
+                amount, amountPaid, daysOverdue, dailyRate, status.name(), createdAt, paidAt, dueDate, returnDate);
+    }
+}
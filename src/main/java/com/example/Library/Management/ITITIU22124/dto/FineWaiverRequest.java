@@ -0,0 +1,19 @@
+package com.example.Library.Management.ITITIU22124.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FineWaiverRequest {
+    // Unpaid fines matching every given criterion are waived; at least one is required
+    private Long userId;
+    private LocalDate from; // Assessed on or after
+    private LocalDate to; // Assessed on or before
+    private BigDecimal below; // Outstanding amount strictly below
+}
@@ -0,0 +1,19 @@
+package com.example.Library.Management.ITITIU22124.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportResultDTO {
+    private long rowsRead;
+    private long imported;
+    private long rejected;
+    private long durationMs;
+    private List<String> errors; // First errors only, "line N: reason"
+    private boolean errorsTruncated;
+}
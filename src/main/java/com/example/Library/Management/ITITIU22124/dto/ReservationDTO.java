@@ -3,6 +3,8 @@ package com.example.Library.Management.ITITIU22124.dto;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
+import com.example.Library.Management.ITITIU22124.model.ReservationStatus;
+
 import java.time.LocalDateTime;
 
 @Data
@@ -16,4 +18,16 @@ public class ReservationDTO {
     private String status; // PENDING, READY, CANCELLED
     private Integer queuePosition; // Position in the reservation queue
     private LocalDateTime estimatedAvailableDate; // Optional: when book might be available
+
+    // Flat constructor for JPQL projections; queuePosition is null unless the reservation is pending
+    public ReservationDTO(Long id, Long userId, String userName, String userEmail, Long bookId, String bookTitle,
+            String bookAuthor, String bookIsbn, LocalDateTime reservationDate, ReservationStatus status,
+            Long queuePosition) {
+        this.id = id;
+        this.user = new UserDTO(userId, userName, userEmail, null);
+        this.book = new BookDTO(bookId, bookTitle, bookAuthor, bookIsbn, null, null, null, null, false);
+        this.reservationDate = reservationDate;
+        this.status = status.name();
+        this.queuePosition = queuePosition == null ? null : queuePosition.intValue();
+    }
 }
@@ -0,0 +1,12 @@
+package com.example.Library.Management.ITITIU22124.event;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+public record BookBorrowed(Long borrowId, Long userId, Long bookId, LocalDate borrowDate, LocalDate dueDate,
+        Instant occurredAt) implements CirculationEvent {
+
+    public BookBorrowed(Long borrowId, Long userId, Long bookId, LocalDate borrowDate, LocalDate dueDate) {
+        this(borrowId, userId, bookId, borrowDate, dueDate, Instant.now());
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.Library.Management.ITITIU22124.event;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * fineAmount is null when the return was not fined. reservationsChecked is true when the
+ * returned copy was already offered to waiting reservations in the return's transaction
+ * (batch returns); otherwise the handoff runs after commit.
+ */
+public record BookReturned(Long borrowId, Long userId, Long bookId, LocalDate returnDate, BigDecimal fineAmount,
+        boolean reservationsChecked, Instant occurredAt) implements CirculationEvent {
+
+    public BookReturned(Long borrowId, Long userId, Long bookId, LocalDate returnDate, BigDecimal fineAmount,
+            boolean reservationsChecked) {
+        this(borrowId, userId, bookId, returnDate, fineAmount, reservationsChecked, Instant.now());
+    }
+}
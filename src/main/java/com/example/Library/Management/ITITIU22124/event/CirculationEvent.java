@@ -0,0 +1,12 @@
+package com.example.Library.Management.ITITIU22124.event;
+
+import java.time.Instant;
+
+/**
+ * A change in circulation, published inside the service transaction. Outbox emails are
+ * queued before commit in that transaction; deferrable listeners run after commit on the
+ * event executor, and occurredAt is used to measure their lag.
+ */
+public interface CirculationEvent {
+    Instant occurredAt();
+}
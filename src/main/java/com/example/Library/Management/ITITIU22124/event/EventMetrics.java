@@ -0,0 +1,72 @@
+package com.example.Library.Management.ITITIU22124.event;
+
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per event type and after-commit listener: how many were handled or failed, and the lag
+ * between the event being raised and the listener starting on it on the event executor
+ * (this includes the commit and any queueing).
+ */
+@Component
+public class EventMetrics {
+
+    private final Map<String, Stats> statsByListener = new ConcurrentHashMap<>();
+
+    /**
+     * Run a listener body, recording its lag and outcome under "EventType/listener"
+     */
+    public void handle(CirculationEvent event, String listenerName, Runnable listener) {
+        Stats stats = statsByListener.computeIfAbsent(event.getClass().getSimpleName() + "/" + listenerName,
+                k -> new Stats());
+        stats.recordLag(Duration.between(event.occurredAt(), Instant.now()).toMillis());
+        try {
+            listener.run();
+            stats.handled.increment();
+        } catch (RuntimeException e) {
+            stats.failed.increment();
+            throw e;
+        }
+    }
+
+    public Map<String, Map<String, Object>> snapshot() {
+        Map<String, Map<String, Object>> snapshot = new TreeMap<>();
+        statsByListener.forEach((type, stats) -> snapshot.put(type, stats.toMap()));
+        return snapshot;
+    }
+
+    private static final class Stats {
+        private final LongAdder handled = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+        private final LongAdder lagCount = new LongAdder();
+        private final LongAdder lagTotalMs = new LongAdder();
+        private final AtomicLong lastLagMs = new AtomicLong();
+        private final AtomicLong maxLagMs = new AtomicLong();
+
+        private void recordLag(long lagMs) {
+            lagCount.increment();
+            lagTotalMs.add(lagMs);
+            lastLagMs.set(lagMs);
+            maxLagMs.accumulateAndGet(lagMs, Math::max);
+        }
+
+        private Map<String, Object> toMap() {
+            long count = lagCount.sum();
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("handled", handled.sum());
+            map.put("failed", failed.sum());
+            map.put("lastLagMs", lastLagMs.get());
+            map.put("maxLagMs", maxLagMs.get());
+            map.put("avgLagMs", count == 0 ? 0 : lagTotalMs.sum() / count);
+            return map;
+        }
+    }
+}
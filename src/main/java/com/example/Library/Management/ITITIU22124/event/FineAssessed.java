@@ -0,0 +1,12 @@
+package com.example.Library.Management.ITITIU22124.event;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+public record FineAssessed(Long borrowRecordId, Long userId, BigDecimal amount, int daysOverdue, Instant occurredAt)
+        implements CirculationEvent {
+
+    public FineAssessed(Long borrowRecordId, Long userId, BigDecimal amount, int daysOverdue) {
+        this(borrowRecordId, userId, amount, daysOverdue, Instant.now());
+    }
+}
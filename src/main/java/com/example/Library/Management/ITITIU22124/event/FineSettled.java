@@ -0,0 +1,14 @@
+package com.example.Library.Management.ITITIU22124.event;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * Unpaid fines of a user were paid or waived; amount is the total taken off the balance
+ */
+public record FineSettled(Long userId, BigDecimal amount, Instant occurredAt) implements CirculationEvent {
+
+    public FineSettled(Long userId, BigDecimal amount) {
+        this(userId, amount, Instant.now());
+    }
+}
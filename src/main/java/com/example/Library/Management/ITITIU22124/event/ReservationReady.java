@@ -0,0 +1,11 @@
+package com.example.Library.Management.ITITIU22124.event;
+
+import java.time.Instant;
+
+public record ReservationReady(Long reservationId, Long userId, Long bookId, Instant occurredAt)
+        implements CirculationEvent {
+
+    public ReservationReady(Long reservationId, Long userId, Long bookId) {
+        this(reservationId, userId, bookId, Instant.now());
+    }
+}
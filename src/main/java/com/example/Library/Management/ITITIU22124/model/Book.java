@@ -5,10 +5,12 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.DynamicUpdate;
 
 import java.time.LocalDateTime;
 
 @Entity
+@DynamicUpdate // Only write changed columns, so editing a title cannot overwrite a concurrent copy count change
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -42,4 +44,11 @@ public class Book {
     @CreationTimestamp
     @Column(name = "created_at", updatable = false)
     private LocalDateTime createdAt;
+
+    /**
+     * Field-by-field detached copy, safe to hand out from in-memory indexes and caches
+     */
+    public Book copy() {
+        return new Book(id, title, author, isbn, category, publishedYear, copiesTotal, copiesAvailable, createdAt);
+    }
 }
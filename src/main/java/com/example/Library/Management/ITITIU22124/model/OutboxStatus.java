@@ -0,0 +1,7 @@
+package com.example.Library.Management.ITITIU22124.model;
+
+public enum OutboxStatus {
+    PENDING, // Waiting for (re)delivery at nextAttemptAt
+    SENT,
+    DEAD // Gave up after the maximum number of attempts
+}
@@ -1,11 +1,22 @@
 package com.example.Library.Management.ITITIU22124.repository;
 
+import com.example.Library.Management.ITITIU22124.dto.BookDTO;
 import com.example.Library.Management.ITITIU22124.model.Book;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface BookRepository extends JpaRepository<Book, Long> {
@@ -20,4 +31,42 @@ public interface BookRepository extends JpaRepository<Book, Long> {
 
     // Find books by category
     List<Book> findByCategory(String category);
+
+    // Keyset page on the primary key, read straight into DTOs instead of managed entities
+    @Query("SELECT new com.example.Library.Management.ITITIU22124.dto.BookDTO(b.id, b.title, b.author, b.isbn, "
+            + "b.category, b.publishedYear, b.copiesTotal, b.copiesAvailable, "
+            + "CASE WHEN b.copiesAvailable > 0 THEN true ELSE false END) "
+            + "FROM Book b WHERE b.id > :afterId ORDER BY b.id ASC")
+    List<BookDTO> findPageAfter(Long afterId, Pageable pageable);
+
+    // Forward-only cursor over the whole table for exports; must be consumed inside a transaction
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false") })
+    @Query("SELECT b FROM Book b ORDER BY b.id ASC")
+    Stream<Book> streamAllOrderById();
+
+    // Conditional in-place updates: the row lock makes check-and-change atomic, 0 means the condition failed
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Book b SET b.copiesAvailable = b.copiesAvailable - 1 WHERE b.id = :bookId AND b.copiesAvailable > 0")
+    int decrementAvailable(Long bookId);
+
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Book b SET b.copiesAvailable = b.copiesAvailable + 1 "
+            + "WHERE b.id = :bookId AND b.copiesAvailable < b.copiesTotal")
+    int incrementAvailable(Long bookId);
+
+    // Batch checkout: lock rows in id order so two batches over the same books cannot deadlock
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM Book b WHERE b.id IN :bookIds ORDER BY b.id ASC")
+    List<Book> findAllByIdForUpdate(Collection<Long> bookIds);
+
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Book b SET b.copiesAvailable = b.copiesAvailable - 1 WHERE b.id IN :bookIds AND b.copiesAvailable > 0")
+    int decrementAvailableAll(Collection<Long> bookIds);
+
+    // Current copy counts as scalars, so values changed by bulk updates are seen despite managed entities
+    @Query("SELECT b.id, b.copiesAvailable FROM Book b WHERE b.id IN :bookIds")
+    List<Object[]> findAvailableCounts(Collection<Long> bookIds);
 }
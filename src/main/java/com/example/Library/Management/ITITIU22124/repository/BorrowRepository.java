@@ -1,14 +1,25 @@
 package com.example.Library.Management.ITITIU22124.repository;
 
+import com.example.Library.Management.ITITIU22124.dto.BorrowDTO;
 import com.example.Library.Management.ITITIU22124.model.BorrowRecord;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface BorrowRepository extends JpaRepository<BorrowRecord, Long> {
+
+    // Listing projection: one query, only the columns BorrowDTO needs
+    String BORROW_DTO_SELECT = "SELECT new com.example.Library.Management.ITITIU22124.dto.BorrowDTO(b.id, u.id, "
+            + "u.name, u.email, bk.id, bk.title, bk.author, bk.isbn, b.borrowDate, b.dueDate, b.returnDate, b.status) "
+            + "FROM BorrowRecord b JOIN b.user u JOIN b.book bk ";
+
     List<BorrowRecord> findByUserId(Long userId);
 
     List<BorrowRecord> findByBookId(Long bookId);
@@ -17,7 +28,13 @@ public interface BorrowRepository extends JpaRepository<BorrowRecord, Long> {
 
     List<BorrowRecord> findByDueDateBeforeAndReturnDateIsNull(LocalDate date);
 
-    boolean existsByUserIdAndBookIdAndReturnDateIsNull(Long userId, Long bookId);
+    long countByDueDateBeforeAndReturnDateIsNull(LocalDate date);
+
+    // One keyset chunk of open loans due before the date (id, user id, due date), for fine accrual;
+    // served by idx_borrow_open_id (return_date, id)
+    @Query("SELECT b.id, b.user.id, b.dueDate FROM BorrowRecord b "
+            + "WHERE b.id > :afterId AND b.returnDate IS NULL AND b.dueDate < :date ORDER BY b.id")
+    List<Object[]> findOverdueLoanChunk(Long afterId, LocalDate date, Pageable pageable);
 
     // Count total borrows for a user
     long countByUserId(Long userId);
@@ -27,4 +44,50 @@ public interface BorrowRepository extends JpaRepository<BorrowRecord, Long> {
 
     // Count overdue books for a user
     long countByUserIdAndDueDateBeforeAndReturnDateIsNull(Long userId, LocalDate date);
+
+    // Borrow count per book id, used to rank autocomplete suggestions
+    @Query("SELECT b.book.id, COUNT(b) FROM BorrowRecord b GROUP BY b.book.id")
+    List<Object[]> countBorrowsByBook();
+
+    // Open loans per book id, used to rebuild the in-memory inventory ledger
+    @Query("SELECT b.book.id, COUNT(b) FROM BorrowRecord b WHERE b.returnDate IS NULL GROUP BY b.book.id")
+    List<Object[]> countOpenLoansByBook();
+
+    // Books the user currently has out, to build the in-memory patron summary
+    @Query("SELECT b.book.id FROM BorrowRecord b WHERE b.user.id = :userId AND b.returnDate IS NULL")
+    List<Long> findOpenLoanBookIds(Long userId);
+
+    // Open loans for the given ISBNs, oldest due date first, for bulk returns by ISBN
+    @Query("SELECT b FROM BorrowRecord b JOIN FETCH b.user JOIN FETCH b.book bk "
+            + "WHERE bk.isbn IN :isbns AND b.returnDate IS NULL ORDER BY b.dueDate ASC, b.id ASC")
+    List<BorrowRecord> findOpenLoansByIsbn(Collection<String> isbns);
+
+    @Query("SELECT b FROM BorrowRecord b JOIN FETCH b.user JOIN FETCH b.book WHERE b.id IN :borrowIds")
+    List<BorrowRecord> findAllByIdWithUserAndBook(Collection<Long> borrowIds);
+
+    // Unfiltered lists are capped through the Pageable; newest first
+    @Query(BORROW_DTO_SELECT + "ORDER BY b.id DESC")
+    List<BorrowDTO> findAllDTOs(Pageable pageable);
+
+    @Query(BORROW_DTO_SELECT + "WHERE u.id = :userId ORDER BY b.id ASC")
+    List<BorrowDTO> findDTOsByUserId(Long userId);
+
+    @Query(BORROW_DTO_SELECT + "WHERE b.dueDate < :date AND b.returnDate IS NULL ORDER BY b.dueDate ASC, b.id ASC")
+    List<BorrowDTO> findOverdueDTOs(LocalDate date, Pageable pageable);
+
+    @Query(BORROW_DTO_SELECT + "WHERE b.id = :borrowId")
+    Optional<BorrowDTO> findDTOById(Long borrowId);
+
+    // Reminder and alert jobs need user and book of every row, fetch them in the same query
+    @Query("SELECT b FROM BorrowRecord b JOIN FETCH b.user JOIN FETCH b.book "
+            + "WHERE b.returnDate IS NULL AND b.dueDate > :after AND b.dueDate <= :until")
+    List<BorrowRecord> findOpenLoansDueBetween(LocalDate after, LocalDate until);
+
+    @Query("SELECT b FROM BorrowRecord b JOIN FETCH b.user JOIN FETCH b.book "
+            + "WHERE b.dueDate < :date AND b.returnDate IS NULL")
+    List<BorrowRecord> findOverdueWithUserAndBook(LocalDate date);
+
+    // Book id and category of everything a user borrowed, for recommendations
+    @Query("SELECT bk.id, bk.category FROM BorrowRecord b JOIN b.book bk WHERE b.user.id = :userId")
+    List<Object[]> findBorrowedBookCategories(Long userId);
 }
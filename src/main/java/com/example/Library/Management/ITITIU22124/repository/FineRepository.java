@@ -1,18 +1,28 @@
 package com.example.Library.Management.ITITIU22124.repository;
 
+import com.example.Library.Management.ITITIU22124.dto.FineDTO;
 import com.example.Library.Management.ITITIU22124.model.Fine;
 import com.example.Library.Management.ITITIU22124.model.FineStatus;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import jakarta.persistence.LockModeType;
 
-import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface FineRepository extends JpaRepository<Fine, Long> {
 
+    // Listing projection: fine columns plus the user and book fields shown next to them
+    String FINE_DTO_SELECT = "SELECT new com.example.Library.Management.ITITIU22124.dto.FineDTO(f.id, u.id, u.name, "
+            + "u.email, br.id, bk.id, bk.title, bk.author, f.amount, f.amountPaid, f.daysOverdue, f.dailyRate, f.status, "
+            + "f.createdAt, f.paidAt, f.dueDate, f.returnDate) "
+            + "FROM Fine f JOIN f.user u JOIN f.borrowRecord br JOIN br.book bk ";
+
     List<Fine> findByUserId(Long userId);
 
     List<Fine> findByUserIdAndStatus(Long userId, FineStatus status);
@@ -21,17 +31,46 @@ public interface FineRepository extends JpaRepository<Fine, Long> {
 
     Optional<Fine> findByBorrowRecordId(Long borrowRecordId);
 
+    // The fine of a loan being returned, locked against a concurrent accrual run
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT f FROM Fine f WHERE f.borrowRecord.id = :borrowRecordId")
+    Optional<Fine> findByBorrowRecordIdForUpdate(Long borrowRecordId);
+
     boolean existsByBorrowRecordId(Long borrowRecordId);
 
-    @Query("SELECT COALESCE(SUM(f.amount), 0) FROM Fine f WHERE f.user.id = :userId AND f.status = 'UNPAID'")
-    BigDecimal getTotalUnpaidFinesByUserId(Long userId);
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT f FROM Fine f WHERE f.id = :fineId")
+    Optional<Fine> findByIdForUpdate(Long fineId);
+
+    // Row count, amount and amount paid per status in one pass, for the statistics snapshot
+    @Query("SELECT f.status, COUNT(f), COALESCE(SUM(f.amount), 0), COALESCE(SUM(f.amountPaid), 0) "
+            + "FROM Fine f GROUP BY f.status")
+    List<Object[]> summarizeByStatus();
+
+    // Borrow records among these that already have a fine, for bulk returns
+    @Query("SELECT f.borrowRecord.id FROM Fine f WHERE f.borrowRecord.id IN :borrowRecordIds")
+    List<Long> findFinedBorrowRecordIds(Collection<Long> borrowRecordIds);
+
+    // Running fines accrued on loans still out (borrow record id, fine id, amount so far), settled on return
+    @Query("SELECT f.borrowRecord.id, f.id, f.amount FROM Fine f WHERE f.borrowRecord.id IN :borrowRecordIds "
+            + "AND f.status = 'UNPAID' AND f.returnDate IS NULL")
+    List<Object[]> findAccruedAmounts(Collection<Long> borrowRecordIds);
+
+    @Query(FINE_DTO_SELECT + "ORDER BY f.id DESC")
+    List<FineDTO> findAllDTOs(Pageable pageable);
+
+    @Query(FINE_DTO_SELECT + "WHERE f.status = :status ORDER BY f.id DESC")
+    List<FineDTO> findDTOsByStatus(FineStatus status, Pageable pageable);
+
+    @Query(FINE_DTO_SELECT + "WHERE u.id = :userId ORDER BY f.id ASC")
+    List<FineDTO> findDTOsByUserId(Long userId);
 
-    @Query("SELECT COUNT(f) FROM Fine f WHERE f.user.id = :userId AND f.status = 'UNPAID'")
-    long countUnpaidFinesByUserId(Long userId);
+    @Query(FINE_DTO_SELECT + "WHERE u.id = :userId AND f.status = :status ORDER BY f.id ASC")
+    List<FineDTO> findDTOsByUserIdAndStatus(Long userId, FineStatus status);
 
-    @Query("SELECT COALESCE(SUM(f.amount), 0) FROM Fine f WHERE f.status = 'UNPAID'")
-    BigDecimal getTotalUnpaidFines();
+    @Query(FINE_DTO_SELECT + "WHERE f.id IN :fineIds ORDER BY f.id ASC")
+    List<FineDTO> findDTOsByIdIn(Collection<Long> fineIds);
 
-    @Query("SELECT COALESCE(SUM(f.amount), 0) FROM Fine f WHERE f.status = 'PAID'")
-    BigDecimal getTotalCollectedFines();
+    @Query(FINE_DTO_SELECT + "WHERE f.id = :fineId")
+    Optional<FineDTO> findDTOById(Long fineId);
 }
@@ -0,0 +1,53 @@
+package com.example.Library.Management.ITITIU22124.repository;
+
+import com.example.Library.Management.ITITIU22124.model.OutboxMessage;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface OutboxRepository extends JpaRepository<OutboxMessage, Long> {
+
+    // Due messages, locked with SKIP LOCKED so concurrent dispatchers never claim the same row
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT m FROM OutboxMessage m WHERE m.status = 'PENDING' AND m.nextAttemptAt <= :now ORDER BY m.id ASC")
+    List<OutboxMessage> findDueForUpdate(LocalDateTime now, Pageable pageable);
+
+    @Modifying
+    @Query("UPDATE OutboxMessage m SET m.status = 'SENT', m.sentAt = :sentAt, m.attempts = m.attempts + 1, "
+            + "m.lastError = NULL WHERE m.id = :id")
+    int markSent(Long id, LocalDateTime sentAt);
+
+    @Modifying
+    @Query("UPDATE OutboxMessage m SET m.attempts = m.attempts + 1, m.nextAttemptAt = :nextAttemptAt, "
+            + "m.lastError = :error WHERE m.id = :id")
+    int markRetry(Long id, LocalDateTime nextAttemptAt, String error);
+
+    @Modifying
+    @Query("UPDATE OutboxMessage m SET m.status = 'DEAD', m.attempts = m.attempts + 1, m.lastError = :error "
+            + "WHERE m.id = :id")
+    int markDead(Long id, String error);
+
+    // Put a dead message back in the queue (admin retry)
+    @Modifying
+    @Query("UPDATE OutboxMessage m SET m.status = 'PENDING', m.attempts = 0, m.nextAttemptAt = :now "
+            + "WHERE m.id = :id AND m.status = 'DEAD'")
+    int requeueDead(Long id, LocalDateTime now);
+
+    @Modifying
+    @Query("DELETE FROM OutboxMessage m WHERE m.status = 'SENT' AND m.sentAt < :before")
+    int deleteSentBefore(LocalDateTime before);
+
+    @Query("SELECT m.status, COUNT(m) FROM OutboxMessage m GROUP BY m.status")
+    List<Object[]> countByStatus();
+}
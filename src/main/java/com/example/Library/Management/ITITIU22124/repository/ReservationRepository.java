@@ -1,13 +1,28 @@
 package com.example.Library.Management.ITITIU22124.repository;
 
+import com.example.Library.Management.ITITIU22124.dto.ReservationDTO;
 import com.example.Library.Management.ITITIU22124.model.Reservation;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface ReservationRepository extends JpaRepository<Reservation, Long> {
+
+    // Listing projection; the queue position is counted in the same statement
+    String RESERVATION_DTO_SELECT = "SELECT new com.example.Library.Management.ITITIU22124.dto.ReservationDTO("
+            + "r.id, u.id, u.name, u.email, bk.id, bk.title, bk.author, bk.isbn, r.reservationDate, r.status, "
+            + "CASE WHEN r.status = 'PENDING' THEN (SELECT COUNT(q) FROM Reservation q WHERE q.book = r.book "
+            + "AND q.status = 'PENDING' AND (q.reservationDate < r.reservationDate "
+            + "OR (q.reservationDate = r.reservationDate AND q.id <= r.id))) END) "
+            + "FROM Reservation r JOIN r.user u JOIN r.book bk ";
+
     List<Reservation> findByUserId(Long userId);
 
     List<Reservation> findByBookId(Long bookId);
@@ -24,4 +39,31 @@ public interface ReservationRepository extends JpaRepository<Reservation, Long>
     // Count active reservations (PENDING or READY status)
     long countByUserIdAndStatusIn(Long userId,
             java.util.List<com.example.Library.Management.ITITIU22124.model.ReservationStatus> statuses);
+
+    // READY reservations hold a copy; counted per book id when rebuilding the inventory ledger
+    @Query("SELECT r.book.id, COUNT(r) FROM Reservation r "
+            + "WHERE r.status = com.example.Library.Management.ITITIU22124.model.ReservationStatus.READY "
+            + "GROUP BY r.book.id")
+    List<Object[]> countReadyReservationsByBook();
+
+    @Query("SELECT r FROM Reservation r JOIN FETCH r.user JOIN FETCH r.book "
+            + "WHERE r.book.id IN :bookIds AND r.status = :status ORDER BY r.reservationDate ASC")
+    List<Reservation> findByBookIdInAndStatusOrderByReservationDateAsc(Collection<Long> bookIds,
+            com.example.Library.Management.ITITIU22124.model.ReservationStatus status);
+
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Reservation r SET r.status = 'READY' WHERE r.id IN :reservationIds AND r.status = 'PENDING'")
+    int markReady(Collection<Long> reservationIds);
+
+    @Query("SELECT r FROM Reservation r JOIN FETCH r.user JOIN FETCH r.book WHERE r.id = :reservationId")
+    Optional<Reservation> findWithUserAndBook(Long reservationId);
+
+    @Query(RESERVATION_DTO_SELECT + "ORDER BY r.id DESC")
+    List<ReservationDTO> findAllDTOs(Pageable pageable);
+
+    @Query(RESERVATION_DTO_SELECT + "WHERE u.id = :userId ORDER BY r.id ASC")
+    List<ReservationDTO> findDTOsByUserId(Long userId);
+
+    @Query(RESERVATION_DTO_SELECT + "WHERE r.id = :reservationId")
+    Optional<ReservationDTO> findDTOById(Long reservationId);
 }
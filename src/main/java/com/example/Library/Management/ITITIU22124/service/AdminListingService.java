@@ -0,0 +1,174 @@
+package com.example.Library.Management.ITITIU22124.service;
+
+import com.example.Library.Management.ITITIU22124.dto.BorrowDTO;
+import com.example.Library.Management.ITITIU22124.dto.CursorPage;
+import com.example.Library.Management.ITITIU22124.dto.FineDTO;
+import com.example.Library.Management.ITITIU22124.dto.ReservationDTO;
+import com.example.Library.Management.ITITIU22124.exception.BadRequestException;
+import com.example.Library.Management.ITITIU22124.model.BorrowStatus;
+import com.example.Library.Management.ITITIU22124.model.FineStatus;
+import com.example.Library.Management.ITITIU22124.model.ReservationStatus;
+import com.example.Library.Management.ITITIU22124.repository.BorrowRepository;
+import com.example.Library.Management.ITITIU22124.repository.FineRepository;
+import com.example.Library.Management.ITITIU22124.repository.ReservationRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Keyset-paginated admin listings of borrows, reservations and fines.
+ * Only the filters that were given end up in the WHERE clause, and rows are
+ * always ordered by id so every page is an index range scan.
+ */
+@Service
+@Transactional(readOnly = true)
+public class AdminListingService {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${library.listing.default-page-size:50}")
+    private int defaultPageSize;
+
+    @Value("${library.listing.max-page-size:200}")
+    private int maxPageSize;
+
+    public CursorPage<BorrowDTO> listBorrows(ListingFilter filter) {
+        Query query = new Query("b");
+        query.equal("b.status", parseStatus(BorrowStatus.class, filter.status()));
+        query.equal("u.id", filter.userId());
+        query.equal("bk.id", filter.bookId());
+        query.range("b.borrowDate", filter.from(), filter.to());
+        return page(BorrowRepository.BORROW_DTO_SELECT, query, filter, BorrowDTO.class, BorrowDTO::getId);
+    }
+
+    public CursorPage<ReservationDTO> listReservations(ListingFilter filter) {
+        Query query = new Query("r");
+        query.equal("r.status", parseStatus(ReservationStatus.class, filter.status()));
+        query.equal("u.id", filter.userId());
+        query.equal("bk.id", filter.bookId());
+        query.range("r.reservationDate", startOf(filter.from()), endOf(filter.to()));
+        return page(ReservationRepository.RESERVATION_DTO_SELECT, query, filter, ReservationDTO.class,
+                ReservationDTO::getId);
+    }
+
+    public CursorPage<FineDTO> listFines(ListingFilter filter) {
+        Query query = new Query("f");
+        query.equal("f.status", parseStatus(FineStatus.class, filter.status()));
+        query.equal("u.id", filter.userId());
+        query.equal("bk.id", filter.bookId());
+        query.range("f.createdAt", startOf(filter.from()), endOf(filter.to()));
+        return page(FineRepository.FINE_DTO_SELECT, query, filter, FineDTO.class, FineDTO::getId);
+    }
+
+    private <T> CursorPage<T> page(String select, Query query, ListingFilter filter, Class<T> type,
+            Function<T, Long> idOf) {
+        if (filter.from() != null && filter.to() != null && filter.from().isAfter(filter.to())) {
+            throw new BadRequestException("'from' must not be after 'to'");
+        }
+        int pageSize = filter.limit() == null ? defaultPageSize : Math.max(1, Math.min(filter.limit(), maxPageSize));
+        boolean ascending = "asc".equalsIgnoreCase(filter.order());
+        if (filter.order() != null && !ascending && !"desc".equalsIgnoreCase(filter.order())) {
+            throw new BadRequestException("Invalid order: " + filter.order() + " (expected asc or desc)");
+        }
+
+        Long lastId = KeysetCursor.decode(filter.cursor());
+        if (lastId != null) {
+            query.add(query.id() + (ascending ? " > " : " < ") + ":lastId", "lastId", lastId);
+        }
+
+        String jpql = select + query.where() + " ORDER BY " + query.id() + (ascending ? " ASC" : " DESC");
+        TypedQuery<T> typedQuery = entityManager.createQuery(jpql, type);
+        query.parameters.forEach(typedQuery::setParameter);
+
+        // Fetch one extra row to know whether another page exists
+        List<T> rows = typedQuery.setMaxResults(pageSize + 1).getResultList();
+        boolean hasMore = rows.size() > pageSize;
+        List<T> items = hasMore ? rows.subList(0, pageSize) : rows;
+        String nextCursor = hasMore ? KeysetCursor.encode(idOf.apply(items.get(items.size() - 1))) : null;
+
+        return new CursorPage<>(items, nextCursor, hasMore, pageSize);
+    }
+
+    private static <E extends Enum<E>> E parseStatus(Class<E> type, String status) {
+        if (status == null || status.isBlank()) {
+            return null;
+        }
+        try {
+            return Enum.valueOf(type, status.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Invalid status: " + status);
+        }
+    }
+
+    private static LocalDateTime startOf(LocalDate date) {
+        return date == null ? null : date.atStartOfDay();
+    }
+
+    // Start of the following day, so the whole of the last day is included
+    private static LocalDateTime endOf(LocalDate date) {
+        return date == null ? null : date.plusDays(1).atStartOfDay();
+    }
+
+    /**
+     * Filters for an admin listing; null fields are not applied. Dates are inclusive days.
+     */
+    public record ListingFilter(String status, Long userId, Long bookId, LocalDate from, LocalDate to,
+            String cursor, Integer limit, String order) {
+    }
+
+    // WHERE clause under construction, with its named parameters
+    private static final class Query {
+        private final String alias;
+        private final List<String> predicates = new ArrayList<>();
+        private final Map<String, Object> parameters = new LinkedHashMap<>();
+
+        private Query(String alias) {
+            this.alias = alias;
+        }
+
+        private String id() {
+            return alias + ".id";
+        }
+
+        private void equal(String path, Object value) {
+            if (value != null) {
+                String name = "p" + parameters.size();
+                add(path + " = :" + name, name, value);
+            }
+        }
+
+        // Lower bound inclusive, upper bound exclusive for date-times and inclusive for dates
+        private void range(String path, Object from, Object to) {
+            if (from != null) {
+                String name = "p" + parameters.size();
+                add(path + " >= :" + name, name, from);
+            }
+            if (to != null) {
+                String name = "p" + parameters.size();
+                add(path + (to instanceof LocalDateTime ? " < :" : " <= :") + name, name, to);
+            }
+        }
+
+        private void add(String predicate, String name, Object value) {
+            predicates.add(predicate);
+            parameters.put(name, value);
+        }
+
+        private String where() {
+            return predicates.isEmpty() ? "" : "WHERE " + String.join(" AND ", predicates);
+        }
+    }
+}
@@ -1,11 +1,27 @@
 package com.example.Library.Management.ITITIU22124.service;
 
 import com.example.Library.Management.ITITIU22124.dto.AdminStatsDTO;
+import com.example.Library.Management.ITITIU22124.model.FineStatus;
 import com.example.Library.Management.ITITIU22124.repository.*;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Dashboard counters, served from a snapshot refreshed in the background.
+ * The snapshot is built from count and grouped aggregate queries only, so reading
+ * the stats never loads rows; a request only refreshes it when the background
+ * refresh has fallen behind by more than the max age.
+ */
 @Service
+@Slf4j
 public class AdminStatsService {
     @Autowired
     private UserRepository userRepository;
@@ -18,14 +34,68 @@ public class AdminStatsService {
     @Autowired
     private FineRepository fineRepository;
 
+    // A snapshot older than this is rebuilt on read instead of waiting for the scheduler
+    @Value("${library.stats.max-age-ms:60000}")
+    private long maxAgeMillis;
+
+    private volatile Snapshot snapshot;
+
     public AdminStatsDTO getStats() {
-        long totalUsers = userRepository.count();
-        long totalBooks = bookRepository.count();
-        long totalBorrows = borrowRepository.count();
-        long totalReservations = reservationRepository.count();
-        long overdueBorrows = borrowRepository.findByDueDateBeforeAndReturnDateIsNull(java.time.LocalDate.now()).size();
-        long activeFines = fineRepository
-                .findByStatus(com.example.Library.Management.ITITIU22124.model.FineStatus.UNPAID).size();
-        return new AdminStatsDTO(totalUsers, totalBooks, totalBorrows, totalReservations, overdueBorrows, activeFines);
+        return current().stats();
+    }
+
+    /**
+     * Fine count and amount per status, from the same snapshot as the dashboard
+     */
+    public Map<FineStatus, FineTotals> getFineTotals() {
+        return current().fines();
+    }
+
+    @Scheduled(fixedDelayString = "${library.stats.refresh-ms:15000}")
+    public void refresh() {
+        rebuild();
+    }
+
+    private Snapshot current() {
+        Snapshot current = snapshot;
+        if (current == null || System.currentTimeMillis() - current.takenAt() > maxAgeMillis) {
+            current = rebuild();
+        }
+        return current;
+    }
+
+    private synchronized Snapshot rebuild() {
+        // Another caller may have refreshed while this one waited for the lock
+        Snapshot current = snapshot;
+        if (current != null && System.currentTimeMillis() - current.takenAt() < 1000) {
+            return current;
+        }
+
+        Map<FineStatus, FineTotals> fines = new EnumMap<>(FineStatus.class);
+        for (FineStatus status : FineStatus.values()) {
+            fines.put(status, new FineTotals(0, BigDecimal.ZERO, BigDecimal.ZERO));
+        }
+        for (Object[] row : fineRepository.summarizeByStatus()) {
+            fines.put((FineStatus) row[0], new FineTotals((Long) row[1], (BigDecimal) row[2], (BigDecimal) row[3]));
+        }
+
+        AdminStatsDTO stats = new AdminStatsDTO(
+                userRepository.count(),
+                bookRepository.count(),
+                borrowRepository.count(),
+                reservationRepository.count(),
+                borrowRepository.countByDueDateBeforeAndReturnDateIsNull(LocalDate.now()),
+                fines.get(FineStatus.UNPAID).count());
+
+        Snapshot fresh = new Snapshot(stats, Map.copyOf(fines), System.currentTimeMillis());
+        snapshot = fresh;
+        log.debug("Stats snapshot refreshed: {}", stats);
+        return fresh;
+    }
+
+    public record FineTotals(long count, BigDecimal amount, BigDecimal amountPaid) {
+    }
+
+    private record Snapshot(AdminStatsDTO stats, Map<FineStatus, FineTotals> fines, long takenAt) {
     }
 }
@@ -0,0 +1,91 @@
+package com.example.Library.Management.ITITIU22124.service;
+
+import com.example.Library.Management.ITITIU22124.model.Book;
+import com.example.Library.Management.ITITIU22124.repository.BookRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Bounded near-cache for single-book reads. BookService keeps it current through
+ * CatalogListener, so an entry is replaced as soon as a write commits; the TTL only
+ * bounds staleness for changes made outside the application.
+ */
+@Component
+public class BookCache implements CatalogListener {
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private InventoryLedger inventoryLedger;
+
+    private final Cache<Long, Book> cache;
+
+    public BookCache(@Value("${library.cache.books.max-size:10000}") long maxSize,
+            @Value("${library.cache.books.ttl-seconds:300}") long ttlSeconds) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Copy of the book, loaded from the database on a miss
+     */
+    public Optional<Book> get(Long id) {
+        Book cached = cache.get(id, key -> bookRepository.findById(key).map(Book::copy).orElse(null));
+        return Optional.ofNullable(cached).map(Book::copy);
+    }
+
+    @Override
+    public void catalogLoaded(List<Book> books) {
+        cache.invalidateAll();
+    }
+
+    @Override
+    public void bookSaved(Book book) {
+        cache.put(book.getId(), book.copy());
+    }
+
+    @Override
+    public void bookDeleted(Long bookId) {
+        cache.invalidate(bookId);
+    }
+
+    @Override
+    public void copiesChanged(Long bookId) {
+        // Read inside the entry's compute, so the last callback to run stores the latest count
+        cache.asMap().computeIfPresent(bookId, (id, cached) -> {
+            Integer available = inventoryLedger.available(id);
+            if (available == null) {
+                return cached;
+            }
+            Book updated = cached.copy();
+            updated.setCopiesAvailable(available);
+            return updated;
+        });
+    }
+
+    public Map<String, Object> getStatistics() {
+        CacheStats stats = cache.stats();
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put("size", cache.estimatedSize());
+        statistics.put("hits", stats.hitCount());
+        statistics.put("misses", stats.missCount());
+        statistics.put("hitRate", stats.hitRate());
+        statistics.put("evictions", stats.evictionCount());
+        statistics.put("averageLoadMillis", stats.averageLoadPenalty() / 1_000_000.0);
+        return statistics;
+    }
+}
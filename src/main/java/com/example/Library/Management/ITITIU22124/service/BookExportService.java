@@ -0,0 +1,112 @@
+package com.example.Library.Management.ITITIU22124.service;
+
+import com.example.Library.Management.ITITIU22124.model.Book;
+import com.example.Library.Management.ITITIU22124.repository.BookRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Streams the whole catalog to an output stream row by row. Rows come from a
+ * database cursor and are detached after writing, so memory use does not grow
+ * with the table. A failed write (client gone) aborts the query.
+ */
+@Service
+@Slf4j
+public class BookExportService {
+
+    public enum Format { CSV, NDJSON }
+
+    static final String CSV_HEADER = "id,title,author,isbn,category,publishedYear,copiesTotal,copiesAvailable,createdAt";
+
+    // Push bytes to the client regularly so a disconnect is noticed quickly
+    private static final int FLUSH_EVERY_ROWS = 500;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Transactional(readOnly = true)
+    public long export(OutputStream out, Format format) throws IOException {
+        long start = System.currentTimeMillis();
+        long rows = 0;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        if (format == Format.CSV) {
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+        }
+        try (Stream<Book> books = bookRepository.streamAllOrderById()) {
+            Iterator<Book> iterator = books.iterator();
+            while (iterator.hasNext()) {
+                Book book = iterator.next();
+                if (format == Format.CSV) {
+                    writeCsv(writer, book);
+                } else {
+                    writer.write(objectMapper.writeValueAsString(book));
+                    writer.write('\n');
+                }
+                // Nothing is written back, so drop the entity from the persistence context
+                entityManager.detach(book);
+                if (++rows % FLUSH_EVERY_ROWS == 0) {
+                    writer.flush();
+                }
+            }
+        }
+        writer.flush();
+        log.info("Exported {} books as {} in {} ms", rows, format, System.currentTimeMillis() - start);
+        return rows;
+    }
+
+    private static void writeCsv(Writer writer, Book book) throws IOException {
+        writer.write(String.valueOf(book.getId()));
+        writer.write(',');
+        writer.write(csv(book.getTitle()));
+        writer.write(',');
+        writer.write(csv(book.getAuthor()));
+        writer.write(',');
+        writer.write(csv(book.getIsbn()));
+        writer.write(',');
+        writer.write(csv(book.getCategory()));
+        writer.write(',');
+        writer.write(book.getPublishedYear() == null ? "" : book.getPublishedYear().toString());
+        writer.write(',');
+        writer.write(String.valueOf(book.getCopiesTotal()));
+        writer.write(',');
+        writer.write(String.valueOf(book.getCopiesAvailable()));
+        writer.write(',');
+        writer.write(book.getCreatedAt() == null ? "" : book.getCreatedAt().toString());
+        writer.write('\n');
+    }
+
+    /**
+     * Quote a CSV field when it contains a separator, quote or line break
+     */
+    static String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0
+                && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
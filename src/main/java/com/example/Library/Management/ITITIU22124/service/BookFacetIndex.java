@@ -0,0 +1,253 @@
+package com.example.Library.Management.ITITIU22124.service;
+
+import com.example.Library.Management.ITITIU22124.model.Book;
+import lombok.extern.slf4j.Slf4j;
+import org.roaringbitmap.IntIterator;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * One compressed bitmap of book ids per category, per published year and for
+ * "has a copy available". Filters are bitmap intersections and facet counts are
+ * intersection cardinalities, so neither touches the database.
+ */
+@Component
+@Slf4j
+public class BookFacetIndex implements CatalogListener {
+
+    static final String NO_CATEGORY = "";
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    @Autowired
+    private InventoryLedger inventoryLedger;
+
+    private final RoaringBitmap allBooks = new RoaringBitmap();
+    private final RoaringBitmap availableBooks = new RoaringBitmap();
+    private final Map<String, RoaringBitmap> byCategory = new HashMap<>();
+    private final NavigableMap<Integer, RoaringBitmap> byYear = new TreeMap<>();
+    private final RoaringBitmap noYear = new RoaringBitmap();
+
+    // book id -> facet values it is currently filed under
+    private final Map<Integer, FacetValues> values = new HashMap<>();
+
+    @Override
+    public void catalogLoaded(List<Book> books) {
+        lock.writeLock().lock();
+        try {
+            allBooks.clear();
+            availableBooks.clear();
+            byCategory.clear();
+            byYear.clear();
+            noYear.clear();
+            values.clear();
+            for (Book book : books) {
+                add(Math.toIntExact(book.getId()), FacetValues.of(book));
+            }
+            allBooks.runOptimize();
+            availableBooks.runOptimize();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Facet index built: {} books, {} categories, {} years",
+                allBooks.getCardinality(), byCategory.size(), byYear.size());
+    }
+
+    @Override
+    public void bookSaved(Book book) {
+        if (book == null || book.getId() == null) {
+            return;
+        }
+        int id = Math.toIntExact(book.getId());
+        FacetValues updated = FacetValues.of(book);
+        lock.writeLock().lock();
+        try {
+            FacetValues current = values.get(id);
+            if (current == null) {
+                add(id, updated);
+                return;
+            }
+            // Flip only the bits that changed; borrow/return usually touches just availability
+            if (current.available() != updated.available()) {
+                if (updated.available()) {
+                    availableBooks.add(id);
+                } else {
+                    availableBooks.remove(id);
+                }
+            }
+            if (!Objects.equals(current.category(), updated.category())) {
+                clear(byCategory, current.category(), id);
+                byCategory.computeIfAbsent(updated.category(), k -> new RoaringBitmap()).add(id);
+            }
+            if (!Objects.equals(current.year(), updated.year())) {
+                removeYear(current.year(), id);
+                addYear(updated.year(), id);
+            }
+            values.put(id, updated);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void copiesChanged(Long bookId) {
+        int id = Math.toIntExact(bookId);
+        lock.writeLock().lock();
+        try {
+            FacetValues current = values.get(id);
+            Integer available = inventoryLedger.available(bookId);
+            if (current == null || available == null || current.available() == available > 0) {
+                return;
+            }
+            if (available > 0) {
+                availableBooks.add(id);
+            } else {
+                availableBooks.remove(id);
+            }
+            values.put(id, new FacetValues(current.category(), current.year(), available > 0));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void bookDeleted(Long bookId) {
+        int id = Math.toIntExact(bookId);
+        lock.writeLock().lock();
+        try {
+            FacetValues current = values.remove(id);
+            if (current == null) {
+                return;
+            }
+            allBooks.remove(id);
+            availableBooks.remove(id);
+            clear(byCategory, current.category(), id);
+            removeYear(current.year(), id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Apply the filters and count facet values. Each facet is counted with every
+     * filter except its own, so the client can show alternatives for that facet.
+     */
+    public FacetResult search(String category, Integer yearFrom, Integer yearTo, boolean availableOnly,
+            int limit) {
+        lock.readLock().lock();
+        try {
+            RoaringBitmap categoryFilter = category == null ? allBooks
+                    : byCategory.getOrDefault(category, new RoaringBitmap());
+            RoaringBitmap yearFilter = yearFrom == null && yearTo == null ? allBooks : yearRange(yearFrom, yearTo);
+            RoaringBitmap availabilityFilter = availableOnly ? availableBooks : allBooks;
+
+            RoaringBitmap matches = RoaringBitmap.and(RoaringBitmap.and(categoryFilter, yearFilter),
+                    availabilityFilter);
+
+            RoaringBitmap withoutCategory = RoaringBitmap.and(yearFilter, availabilityFilter);
+            Map<String, Integer> categoryCounts = new TreeMap<>();
+            for (Map.Entry<String, RoaringBitmap> entry : byCategory.entrySet()) {
+                int count = RoaringBitmap.andCardinality(entry.getValue(), withoutCategory);
+                if (count > 0) {
+                    categoryCounts.put(entry.getKey(), count);
+                }
+            }
+
+            RoaringBitmap withoutYear = RoaringBitmap.and(categoryFilter, availabilityFilter);
+            Map<Integer, Integer> yearCounts = new LinkedHashMap<>();
+            for (Map.Entry<Integer, RoaringBitmap> entry : byYear.descendingMap().entrySet()) {
+                int count = RoaringBitmap.andCardinality(entry.getValue(), withoutYear);
+                if (count > 0) {
+                    yearCounts.put(entry.getKey(), count);
+                }
+            }
+
+            RoaringBitmap withoutAvailability = RoaringBitmap.and(categoryFilter, yearFilter);
+            int available = RoaringBitmap.andCardinality(availableBooks, withoutAvailability);
+            Map<String, Integer> availabilityCounts = new LinkedHashMap<>();
+            availabilityCounts.put("available", available);
+            availabilityCounts.put("unavailable", withoutAvailability.getCardinality() - available);
+
+            List<Long> bookIds = new ArrayList<>(Math.min(limit, matches.getCardinality()));
+            IntIterator iterator = matches.getIntIterator();
+            while (iterator.hasNext() && bookIds.size() < limit) {
+                bookIds.add((long) iterator.next());
+            }
+
+            return new FacetResult(matches.getCardinality(), bookIds, categoryCounts, yearCounts,
+                    availabilityCounts);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private RoaringBitmap yearRange(Integer yearFrom, Integer yearTo) {
+        int from = yearFrom == null ? Integer.MIN_VALUE : yearFrom;
+        int to = yearTo == null ? Integer.MAX_VALUE : yearTo;
+        if (from > to) {
+            return new RoaringBitmap();
+        }
+        return RoaringBitmap.or(byYear.subMap(from, true, to, true).values().iterator());
+    }
+
+    private void add(int id, FacetValues facetValues) {
+        allBooks.add(id);
+        if (facetValues.available()) {
+            availableBooks.add(id);
+        }
+        byCategory.computeIfAbsent(facetValues.category(), k -> new RoaringBitmap()).add(id);
+        addYear(facetValues.year(), id);
+        values.put(id, facetValues);
+    }
+
+    private void addYear(Integer year, int id) {
+        if (year == null) {
+            noYear.add(id);
+        } else {
+            byYear.computeIfAbsent(year, k -> new RoaringBitmap()).add(id);
+        }
+    }
+
+    private void removeYear(Integer year, int id) {
+        if (year == null) {
+            noYear.remove(id);
+        } else {
+            clear(byYear, year, id);
+        }
+    }
+
+    private static <K> void clear(Map<K, RoaringBitmap> bitmaps, K key, int id) {
+        RoaringBitmap bitmap = bitmaps.get(key);
+        if (bitmap != null) {
+            bitmap.remove(id);
+            if (bitmap.isEmpty()) {
+                bitmaps.remove(key);
+            }
+        }
+    }
+
+    private record FacetValues(String category, Integer year, boolean available) {
+        private static FacetValues of(Book book) {
+            return new FacetValues(
+                    book.getCategory() == null ? NO_CATEGORY : book.getCategory(),
+                    book.getPublishedYear(),
+                    book.getCopiesAvailable() != null && book.getCopiesAvailable() > 0);
+        }
+    }
+
+    public record FacetResult(int total, List<Long> bookIds, Map<String, Integer> categories,
+            Map<Integer, Integer> years, Map<String, Integer> availability) {
+    }
+}
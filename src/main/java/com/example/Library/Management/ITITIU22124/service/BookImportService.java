@@ -0,0 +1,345 @@
+package com.example.Library.Management.ITITIU22124.service;
+
+import com.example.Library.Management.ITITIU22124.dto.ImportResultDTO;
+import com.example.Library.Management.ITITIU22124.exception.BadRequestException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Bulk catalog import. The body is read line by line (CSV with a header row, or
+ * one JSON object per line) and written with JDBC batch inserts, one transaction
+ * per batch, because Book's IDENTITY ids keep Hibernate from batching. Duplicate
+ * ISBNs are resolved per batch against the database, so memory stays bounded by
+ * the batch size however long the file is.
+ */
+@Service
+@Slf4j
+public class BookImportService {
+
+    public enum Format { CSV, NDJSON }
+
+    private static final String INSERT_SQL = "INSERT INTO books "
+            + "(title, author, isbn, category, published_year, copies_total, copies_available, created_at) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String INSERT_IGNORE_SQL = INSERT_SQL.replaceFirst("INSERT", "INSERT IGNORE");
+
+    private static final List<String> REQUIRED_COLUMNS = List.of("title", "author", "isbn");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private CatalogIndexLoader catalogIndexLoader;
+
+    @Value("${library.import.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${library.import.max-errors:100}")
+    private int maxErrors;
+
+    @Value("${library.import.progress-interval:100000}")
+    private long progressInterval;
+
+    /**
+     * Import every valid row of the stream. Rows with missing fields or an ISBN
+     * already in the catalog (including one imported from earlier in the file) are
+     * rejected and reported.
+     */
+    public ImportResultDTO importBooks(InputStream body, Format format) throws IOException {
+        long start = System.currentTimeMillis();
+        Progress progress = new Progress();
+        List<ImportRow> batch = new ArrayList<>(batchSize);
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            Map<String, Integer> header = format == Format.CSV ? readHeader(reader) : null;
+            long lineNumber = header == null ? 0 : 1;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                progress.rowsRead++;
+                try {
+                    batch.add(format == Format.CSV ? parseCsv(line, header, lineNumber) : parseJson(line, lineNumber));
+                } catch (IllegalArgumentException | JacksonException e) {
+                    progress.reject(lineNumber, e.getMessage(), maxErrors);
+                }
+                if (batch.size() >= batchSize) {
+                    flush(batch, progress);
+                }
+                if (progress.rowsRead % progressInterval == 0) {
+                    log.info("Book import: {} rows read, {} imported, {} rejected",
+                            progress.rowsRead, progress.imported, progress.rejected);
+                }
+            }
+            flush(batch, progress);
+        } finally {
+            if (progress.imported > 0) {
+                // Rows were written behind the JPA layer; rebuild the in-memory catalog indexes
+                catalogIndexLoader.reload();
+            }
+        }
+
+        long duration = System.currentTimeMillis() - start;
+        log.info("Book import finished: {} rows read, {} imported, {} rejected in {} ms",
+                progress.rowsRead, progress.imported, progress.rejected, duration);
+        return new ImportResultDTO(progress.rowsRead, progress.imported, progress.rejected, duration,
+                progress.errors, progress.rejected > progress.errors.size());
+    }
+
+    /**
+     * Drop rows whose ISBN repeats within the batch or is already stored, then insert
+     * the rest in one JDBC batch. If a concurrent import stores one of the ISBNs in
+     * between, the batch is rolled back and retried row by row.
+     */
+    private void flush(List<ImportRow> batch, Progress progress) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        Map<String, ImportRow> unique = new LinkedHashMap<>();
+        for (ImportRow row : batch) {
+            if (unique.putIfAbsent(row.isbn(), row) != null) {
+                progress.reject(row.lineNumber(), "duplicate ISBN " + row.isbn() + " in file", maxErrors);
+            }
+        }
+        batch.clear();
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        try {
+            List<ImportRow> existing = transactionTemplate.execute(status -> {
+                Set<String> stored = existingIsbns(unique.keySet());
+                List<ImportRow> skipped = new ArrayList<>();
+                List<Object[]> args = new ArrayList<>(unique.size());
+                for (ImportRow row : unique.values()) {
+                    if (stored.contains(row.isbn())) {
+                        skipped.add(row);
+                    } else {
+                        args.add(insertArgs(row, now));
+                    }
+                }
+                if (!args.isEmpty()) {
+                    jdbcTemplate.batchUpdate(INSERT_SQL, args);
+                }
+                return skipped;
+            });
+            for (ImportRow row : existing) {
+                progress.reject(row.lineNumber(), "ISBN " + row.isbn() + " already exists", maxErrors);
+            }
+            progress.imported += unique.size() - existing.size();
+        } catch (DuplicateKeyException e) {
+            log.debug("Book import batch hit a concurrently stored ISBN; retrying row by row");
+            flushRowByRow(unique.values(), progress, now);
+        }
+    }
+
+    /**
+     * Insert each row with INSERT IGNORE; an update count of 0 means the ISBN is taken
+     */
+    private void flushRowByRow(Collection<ImportRow> rows, Progress progress, Timestamp now) {
+        List<ImportRow> duplicates = transactionTemplate.execute(status -> {
+            List<ImportRow> taken = new ArrayList<>();
+            for (ImportRow row : rows) {
+                if (jdbcTemplate.update(INSERT_IGNORE_SQL, insertArgs(row, now)) == 0) {
+                    taken.add(row);
+                }
+            }
+            return taken;
+        });
+        for (ImportRow row : duplicates) {
+            progress.reject(row.lineNumber(), "ISBN " + row.isbn() + " already exists", maxErrors);
+        }
+        progress.imported += rows.size() - duplicates.size();
+    }
+
+    private static Object[] insertArgs(ImportRow row, Timestamp now) {
+        return new Object[] { row.title(), row.author(), row.isbn(), row.category(),
+                row.publishedYear(), row.copiesTotal(), row.copiesAvailable(), now };
+    }
+
+    private Set<String> existingIsbns(Collection<String> isbns) {
+        String placeholders = String.join(",", Collections.nCopies(isbns.size(), "?"));
+        return new HashSet<>(jdbcTemplate.queryForList(
+                "SELECT isbn FROM books WHERE isbn IN (" + placeholders + ")", String.class, isbns.toArray()));
+    }
+
+    private Map<String, Integer> readHeader(BufferedReader reader) throws IOException {
+        String headerLine = reader.readLine();
+        if (headerLine == null) {
+            throw new BadRequestException("CSV import is empty, expected a header row");
+        }
+        Map<String, Integer> header = new HashMap<>();
+        List<String> columns = splitCsv(headerLine.replace("\uFEFF", ""));
+        for (int i = 0; i < columns.size(); i++) {
+            header.put(columns.get(i).trim().toLowerCase(Locale.ROOT).replace("_", ""), i);
+        }
+        for (String column : REQUIRED_COLUMNS) {
+            if (!header.containsKey(column)) {
+                throw new BadRequestException("CSV header is missing column: " + column);
+            }
+        }
+        return header;
+    }
+
+    private ImportRow parseCsv(String line, Map<String, Integer> header, long lineNumber) {
+        List<String> values = splitCsv(line);
+        return toRow(lineNumber,
+                column(values, header, "title"),
+                column(values, header, "author"),
+                column(values, header, "isbn"),
+                column(values, header, "category"),
+                column(values, header, "publishedyear"),
+                column(values, header, "copiestotal"),
+                column(values, header, "copiesavailable"));
+    }
+
+    private ImportRow parseJson(String line, long lineNumber) {
+        JsonNode node = objectMapper.readTree(line);
+        if (!node.isObject()) {
+            throw new IllegalArgumentException("expected a JSON object");
+        }
+        return toRow(lineNumber,
+                text(node, "title"),
+                text(node, "author"),
+                text(node, "isbn"),
+                text(node, "category"),
+                text(node, "publishedYear"),
+                text(node, "copiesTotal"),
+                text(node, "copiesAvailable"));
+    }
+
+    private static ImportRow toRow(long lineNumber, String title, String author, String isbn, String category,
+            String publishedYear, String copiesTotal, String copiesAvailable) {
+        if (title == null || author == null || isbn == null) {
+            throw new IllegalArgumentException("title, author and isbn are required");
+        }
+        if (title.length() > 255 || author.length() > 255 || isbn.length() > 50
+                || (category != null && category.length() > 100)) {
+            throw new IllegalArgumentException("field too long");
+        }
+        Integer year = parseInt(publishedYear, "publishedYear");
+        Integer total = parseInt(copiesTotal, "copiesTotal");
+        if (total == null) {
+            total = 1;
+        }
+        Integer available = parseInt(copiesAvailable, "copiesAvailable");
+        if (available == null) {
+            available = total;
+        }
+        if (total < 0 || available < 0 || available > total) {
+            throw new IllegalArgumentException("copies must satisfy 0 <= copiesAvailable <= copiesTotal");
+        }
+        return new ImportRow(lineNumber, title, author, isbn, category, year, total, available);
+    }
+
+    private static Integer parseInt(String value, String field) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Integer.valueOf(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(field + " is not a number: " + value);
+        }
+    }
+
+    private static String column(List<String> values, Map<String, Integer> header, String name) {
+        Integer index = header.get(name);
+        if (index == null || index >= values.size()) {
+            return null;
+        }
+        String value = values.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    private static String text(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        if (value == null || value.isNull()) {
+            return null;
+        }
+        String text = value.asString().trim();
+        return text.isEmpty() ? null : text;
+    }
+
+    /**
+     * Split one CSV record; supports double-quoted fields with "" escapes (no embedded newlines)
+     */
+    static List<String> splitCsv(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        values.add(current.toString());
+        return values;
+    }
+
+    private record ImportRow(long lineNumber, String title, String author, String isbn, String category,
+            Integer publishedYear, int copiesTotal, int copiesAvailable) {
+    }
+
+    private static final class Progress {
+        private long rowsRead;
+        private long imported;
+        private long rejected;
+        private final List<String> errors = new ArrayList<>();
+
+        private void reject(long lineNumber, String reason, int maxErrors) {
+            rejected++;
+            if (errors.size() < maxErrors) {
+                errors.add("line " + lineNumber + ": " + reason);
+            }
+        }
+    }
+}
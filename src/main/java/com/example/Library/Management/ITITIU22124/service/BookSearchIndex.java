@@ -0,0 +1,290 @@
+package com.example.Library.Management.ITITIU22124.service;
+
+import com.example.Library.Management.ITITIU22124.model.Book;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index over title, author, ISBN and category.
+ * Built once at startup and kept current by BookService, so catalog search
+ * is answered without a LIKE scan on the books table. Results are ranked with BM25.
+ */
+@Component
+@Slf4j
+public class BookSearchIndex implements CatalogListener {
+
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+
+    // Field weights: a hit in the title counts more than a hit in the category
+    private static final float TITLE_WEIGHT = 3.0f;
+    private static final float AUTHOR_WEIGHT = 2.0f;
+    private static final float ISBN_WEIGHT = 2.0f;
+    private static final float CATEGORY_WEIGHT = 1.0f;
+
+    // The last query token is treated as a prefix; cap how many terms it may expand to
+    private static final int MAX_PREFIX_EXPANSIONS = 64;
+
+    @Value("${library.search.max-results:100}")
+    private int maxResults;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    @Autowired
+    private InventoryLedger inventoryLedger;
+
+    // term -> (book id -> weighted term frequency)
+    private final NavigableMap<String, Map<Long, Float>> postings = new TreeMap<>();
+
+    private final Map<Long, IndexedBook> documents = new HashMap<>();
+
+    private double totalLength;
+
+    private volatile boolean ready;
+
+    @Override
+    public void catalogLoaded(List<Book> books) {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            documents.clear();
+            totalLength = 0;
+            for (Book book : books) {
+                add(book);
+            }
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Search index built: {} books, {} terms", books.size(), postings.size());
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    @Override
+    public void bookSaved(Book book) {
+        if (book == null || book.getId() == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            remove(book.getId());
+            add(book);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void copiesChanged(Long bookId) {
+        lock.writeLock().lock();
+        try {
+            IndexedBook indexed = documents.get(bookId);
+            Integer available = inventoryLedger.available(bookId);
+            if (indexed != null && available != null) {
+                // Results are handed out as copies, so the stored book can be updated in place
+                indexed.book().setCopiesAvailable(available);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void bookDeleted(Long bookId) {
+        lock.writeLock().lock();
+        try {
+            remove(bookId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Rank books against the query. Every query token must match a field;
+     * the last token also matches as a prefix so type-ahead input works.
+     */
+    public List<Book> search(String query) {
+        List<String> tokens = tokenize(query);
+        if (tokens.isEmpty()) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            int docCount = documents.size();
+            if (docCount == 0) {
+                return List.of();
+            }
+            double avgLength = totalLength / docCount;
+
+            Map<Long, Double> scores = null;
+            for (int i = 0; i < tokens.size(); i++) {
+                boolean prefix = i == tokens.size() - 1;
+                Map<Long, Double> tokenScores = scoreToken(tokens.get(i), prefix, docCount, avgLength);
+                if (scores == null) {
+                    scores = tokenScores;
+                } else {
+                    // AND semantics: keep only books that matched every token so far
+                    scores.keySet().retainAll(tokenScores.keySet());
+                    for (Map.Entry<Long, Double> entry : scores.entrySet()) {
+                        entry.setValue(entry.getValue() + tokenScores.get(entry.getKey()));
+                    }
+                }
+                if (scores.isEmpty()) {
+                    return List.of();
+                }
+            }
+
+            List<Map.Entry<Long, Double>> ranked = new ArrayList<>(scores.entrySet());
+            ranked.sort(Map.Entry.<Long, Double>comparingByValue().reversed()
+                    .thenComparing(Map.Entry.comparingByKey()));
+
+            List<Book> results = new ArrayList<>(Math.min(ranked.size(), maxResults));
+            for (Map.Entry<Long, Double> entry : ranked) {
+                if (results.size() >= maxResults) {
+                    break;
+                }
+                results.add(documents.get(entry.getKey()).book().copy());
+            }
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Indexed copies of the given books, in the given order; unknown ids are skipped
+     */
+    public List<Book> getBooks(List<Long> bookIds) {
+        lock.readLock().lock();
+        try {
+            List<Book> books = new ArrayList<>(bookIds.size());
+            for (Long bookId : bookIds) {
+                IndexedBook indexed = documents.get(bookId);
+                if (indexed != null) {
+                    books.add(indexed.book().copy());
+                }
+            }
+            return books;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Map<Long, Double> scoreToken(String token, boolean prefix, int docCount, double avgLength) {
+        Map<Long, Double> scores = new HashMap<>();
+        if (prefix) {
+            int expanded = 0;
+            for (Map.Entry<String, Map<Long, Float>> entry : postings.tailMap(token, true).entrySet()) {
+                if (!entry.getKey().startsWith(token) || expanded++ >= MAX_PREFIX_EXPANSIONS) {
+                    break;
+                }
+                accumulate(scores, entry.getValue(), docCount, avgLength);
+            }
+        } else {
+            Map<Long, Float> termPostings = postings.get(token);
+            if (termPostings != null) {
+                accumulate(scores, termPostings, docCount, avgLength);
+            }
+        }
+        return scores;
+    }
+
+    private void accumulate(Map<Long, Double> scores, Map<Long, Float> termPostings, int docCount, double avgLength) {
+        int df = termPostings.size();
+        double idf = Math.log(1 + (docCount - df + 0.5) / (df + 0.5));
+        for (Map.Entry<Long, Float> posting : termPostings.entrySet()) {
+            float tf = posting.getValue();
+            double length = documents.get(posting.getKey()).length();
+            double score = idf * (tf * (K1 + 1)) / (tf + K1 * (1 - B + B * length / avgLength));
+            // A prefix can expand to several terms of the same book; keep the best one
+            scores.merge(posting.getKey(), score, Math::max);
+        }
+    }
+
+    private void add(Book book) {
+        Map<String, Float> termFrequencies = new HashMap<>();
+        float length = 0;
+        length += addField(termFrequencies, book.getTitle(), TITLE_WEIGHT);
+        length += addField(termFrequencies, book.getAuthor(), AUTHOR_WEIGHT);
+        length += addField(termFrequencies, book.getIsbn(), ISBN_WEIGHT);
+        length += addField(termFrequencies, book.getCategory(), CATEGORY_WEIGHT);
+
+        // ISBNs are usually typed without hyphens, so also index the compact form
+        if (book.getIsbn() != null) {
+            String compact = book.getIsbn().replaceAll("[^0-9A-Za-z]", "").toLowerCase(Locale.ROOT);
+            if (!compact.isEmpty()) {
+                termFrequencies.merge(compact, ISBN_WEIGHT, Float::sum);
+            }
+        }
+
+        for (Map.Entry<String, Float> entry : termFrequencies.entrySet()) {
+            postings.computeIfAbsent(entry.getKey(), k -> new HashMap<>()).put(book.getId(), entry.getValue());
+        }
+        documents.put(book.getId(), new IndexedBook(book.copy(), length, List.copyOf(termFrequencies.keySet())));
+        totalLength += length;
+    }
+
+    private float addField(Map<String, Float> termFrequencies, String value, float weight) {
+        List<String> tokens = tokenize(value);
+        for (String token : tokens) {
+            termFrequencies.merge(token, weight, Float::sum);
+        }
+        return tokens.size() * weight;
+    }
+
+    private void remove(Long bookId) {
+        IndexedBook existing = documents.remove(bookId);
+        if (existing == null) {
+            return;
+        }
+        for (String term : existing.terms()) {
+            Map<Long, Float> termPostings = postings.get(term);
+            if (termPostings != null) {
+                termPostings.remove(bookId);
+                if (termPostings.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+        totalLength -= existing.length();
+    }
+
+    /**
+     * Lower-case, strip accents and split on anything that is not a letter or digit
+     */
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFD)
+                .replaceAll("\\p{M}", "")
+                .toLowerCase(Locale.ROOT);
+        List<String> tokens = new ArrayList<>();
+        for (String token : normalized.split("[^\\p{L}\\p{N}]+")) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    private record IndexedBook(Book book, float length, List<String> terms) {
+    }
+}
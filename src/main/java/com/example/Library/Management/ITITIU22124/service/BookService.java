@@ -1,34 +1,115 @@
 package com.example.Library.Management.ITITIU22124.service;
 
+import com.example.Library.Management.ITITIU22124.dto.BookDTO;
+import com.example.Library.Management.ITITIU22124.dto.BookFacetsDTO;
+import com.example.Library.Management.ITITIU22124.dto.CursorPage;
+import com.example.Library.Management.ITITIU22124.dto.SuggestionDTO;
 import com.example.Library.Management.ITITIU22124.exception.BadRequestException;
 import com.example.Library.Management.ITITIU22124.exception.NotFoundException;
+import com.example.Library.Management.ITITIU22124.mapper.BookMapper;
 import com.example.Library.Management.ITITIU22124.model.Book;
 import com.example.Library.Management.ITITIU22124.repository.BookRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
+@Slf4j
 public class BookService {
 
+    private static final String RETURN_COPIES_SQL = "UPDATE books SET copies_available = CASE "
+            + "WHEN copies_available + ? > copies_total THEN copies_total ELSE copies_available + ? END WHERE id = ?";
+
     @Autowired
     private BookRepository bookRepository;
 
-    public List<Book> getAllBooks() {
-        return bookRepository.findAll();
+    @Autowired
+    private BookSearchIndex bookSearchIndex;
+
+    @Autowired
+    private BookSuggestIndex bookSuggestIndex;
+
+    @Autowired
+    private BookTrigramIndex bookTrigramIndex;
+
+    @Autowired
+    private BookFacetIndex bookFacetIndex;
+
+    @Autowired
+    private BookCache bookCache;
+
+    @Autowired
+    private BookMapper bookMapper;
+
+    @Autowired
+    private List<CatalogListener> catalogListeners;
+
+    @Autowired
+    private InventoryLedger inventoryLedger;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${library.catalog.default-page-size:20}")
+    private int defaultPageSize;
+
+    @Value("${library.catalog.max-page-size:100}")
+    private int maxPageSize;
+
+    /**
+     * Keyset-paginated catalog listing ordered by id
+     */
+    public CursorPage<BookDTO> getBooksPage(String cursor, Integer limit) {
+        int pageSize = limit == null ? defaultPageSize : Math.max(1, Math.min(limit, maxPageSize));
+        Long lastId = KeysetCursor.decode(cursor);
+        long afterId = lastId == null ? 0L : lastId;
+
+        // Fetch one extra row to know whether another page exists
+        List<BookDTO> rows = bookRepository.findPageAfter(afterId, PageRequest.ofSize(pageSize + 1));
+        boolean hasMore = rows.size() > pageSize;
+        List<BookDTO> items = hasMore ? rows.subList(0, pageSize) : rows;
+        String nextCursor = hasMore ? KeysetCursor.encode(items.get(items.size() - 1).getId()) : null;
+
+        return new CursorPage<>(items, nextCursor, hasMore, pageSize);
     }
 
     public Optional<Book> getBookById(Long id) {
-        return bookRepository.findById(id);
+        Optional<Book> book = bookCache.get(id);
+        if (inventoryLedger.isEnabled()) {
+            // The stored count may lag behind the ledger until the next flush
+            book.ifPresent(b -> b.setCopiesAvailable(ledgerCount(b)));
+        }
+        return book;
     }
 
     public Book addBook(Book book) {
         if (book.getCopiesAvailable() == null) {
             book.setCopiesAvailable(book.getCopiesTotal());
         }
-        return bookRepository.save(book);
+        Book savedBook = bookRepository.save(book);
+        publishSaved(savedBook);
+        return savedBook;
     }
 
     public Book updateBook(Long id, Book bookDetails) {
@@ -50,32 +131,284 @@ public class BookService {
         if (bookDetails.getCopiesAvailable() != null)
             book.setCopiesAvailable(bookDetails.getCopiesAvailable());
 
-        return bookRepository.save(book);
+        Book savedBook = bookRepository.save(book);
+        if (inventoryLedger.isEnabled() && bookDetails.getCopiesAvailable() != null) {
+            // The ledger owns the count; apply the edit there or the next flush would undo it
+            inventoryLedger.setAvailable(id, savedBook.getCopiesTotal(), bookDetails.getCopiesAvailable());
+        }
+        publishSaved(savedBook);
+        return savedBook;
     }
 
-    public void borrowCopy(Long bookId) {
-        Book book = bookRepository.findById(bookId)
-                .orElseThrow(() -> new NotFoundException("Book not found with id: " + bookId));
-        if (book.getCopiesAvailable() <= 0) {
+    /**
+     * Take one copy off the shelf and return the updated book.
+     * The decrement is a conditional UPDATE, so concurrent checkouts cannot oversell.
+     */
+    @Transactional
+    public Book borrowCopy(Long bookId) {
+        Book book = findBook(bookId);
+        if (inventoryLedger.isEnabled()) {
+            int available = inventoryLedger.tryTake(bookId);
+            if (available < 0) {
+                throw new BadRequestException("No copies available for book with id: " + bookId);
+            }
+            return publishLedgerCount(book, available);
+        }
+        if (bookRepository.decrementAvailable(bookId) == 0) {
             throw new BadRequestException("No copies available for book with id: " + bookId);
         }
-        book.setCopiesAvailable(book.getCopiesAvailable() - 1);
-        bookRepository.save(book);
+        return refreshAndPublish(book);
     }
 
+    @Transactional
     public void returnCopy(Long bookId) {
-        Book book = bookRepository.findById(bookId)
+        Book book = findBook(bookId);
+        if (inventoryLedger.isEnabled()) {
+            int available = inventoryLedger.giveBack(bookId);
+            if (available < 0) {
+                logIgnoredReturn(book);
+                return;
+            }
+            publishLedgerCount(book, available);
+            return;
+        }
+        if (bookRepository.incrementAvailable(bookId) == 0) {
+            logIgnoredReturn(book);
+            return;
+        }
+        refreshAndPublish(book);
+    }
+
+    // Counter is already at copiesTotal; never push it above the number of copies owned
+    private static void logIgnoredReturn(Book book) {
+        log.warn("Return of book {} ignored: all {} copies already on the shelf", book.getId(), book.getCopiesTotal());
+    }
+
+    /**
+     * Set aside one available copy for a reservation that became ready.
+     * Returns false when no copy is available.
+     */
+    @Transactional
+    public boolean holdCopy(Long bookId) {
+        Book book = findBook(bookId);
+        if (inventoryLedger.isEnabled()) {
+            int available = inventoryLedger.tryTake(bookId);
+            if (available < 0) {
+                return false;
+            }
+            publishLedgerCount(book, available);
+            return true;
+        }
+        if (bookRepository.decrementAvailable(bookId) == 0) {
+            return false;
+        }
+        refreshAndPublish(book);
+        return true;
+    }
+
+    /**
+     * Load the books for a batch checkout, keyed by id. In database mode the rows stay
+     * locked until the transaction ends, so their copy counts can be trusted.
+     */
+    @Transactional
+    public Map<Long, Book> lockBooks(Collection<Long> bookIds) {
+        List<Book> books = inventoryLedger.isEnabled()
+                ? bookRepository.findAllById(bookIds)
+                : bookRepository.findAllByIdForUpdate(bookIds);
+        Map<Long, Book> byId = new LinkedHashMap<>();
+        for (Book book : books) {
+            if (inventoryLedger.isEnabled()) {
+                book.setCopiesAvailable(ledgerCount(book));
+                entityManager.detach(book);
+            }
+            byId.put(book.getId(), book);
+        }
+        return byId;
+    }
+
+    /**
+     * Take one copy of each book, obtained from lockBooks in this transaction,
+     * with a single UPDATE. Returns the ids whose copy was taken.
+     */
+    @Transactional
+    public Set<Long> takeCopies(Collection<Book> books) {
+        Set<Long> taken = new HashSet<>();
+        if (inventoryLedger.isEnabled()) {
+            for (Book book : books) {
+                int available = inventoryLedger.tryTake(book.getId());
+                if (available >= 0) {
+                    book.setCopiesAvailable(available);
+                    publishCopiesChanged(book.getId());
+                    taken.add(book.getId());
+                }
+            }
+            return taken;
+        }
+
+        for (Book book : books) {
+            if (book.getCopiesAvailable() > 0) {
+                taken.add(book.getId());
+            }
+        }
+        if (taken.isEmpty()) {
+            return taken;
+        }
+        int updated = bookRepository.decrementAvailableAll(taken);
+        if (updated != taken.size()) {
+            // Cannot happen while the rows are locked; fail rather than record loans without copies
+            throw new IllegalStateException("Expected to take " + taken.size() + " copies but took " + updated);
+        }
+        for (Book book : books) {
+            if (taken.contains(book.getId())) {
+                // The managed entity still holds the locked value, publish the new count without dirtying it
+                Book snapshot = book.copy();
+                snapshot.setCopiesAvailable(book.getCopiesAvailable() - 1);
+                publishSaved(snapshot);
+            }
+        }
+        return taken;
+    }
+
+    /**
+     * Put back several copies per book (book id -> copies) with one batched UPDATE,
+     * never above copiesTotal
+     */
+    @Transactional
+    public void returnCopies(Collection<Book> books, Map<Long, Integer> copiesByBook) {
+        if (copiesByBook.isEmpty()) {
+            return;
+        }
+        if (inventoryLedger.isEnabled()) {
+            for (Book book : books) {
+                int copies = copiesByBook.getOrDefault(book.getId(), 0);
+                for (int i = 0; i < copies; i++) {
+                    inventoryLedger.giveBack(book.getId());
+                }
+                if (copies > 0) {
+                    publishCopiesChanged(book.getId());
+                }
+            }
+            return;
+        }
+
+        List<Object[]> args = new ArrayList<>(copiesByBook.size());
+        copiesByBook.forEach((bookId, copies) -> args.add(new Object[] { copies, copies, bookId }));
+        jdbcTemplate.batchUpdate(RETURN_COPIES_SQL, args);
+
+        Map<Long, Integer> available = new HashMap<>();
+        for (Object[] row : bookRepository.findAvailableCounts(copiesByBook.keySet())) {
+            available.put((Long) row[0], (Integer) row[1]);
+        }
+        for (Book book : books) {
+            if (available.containsKey(book.getId())) {
+                Book snapshot = book.copy();
+                snapshot.setCopiesAvailable(available.get(book.getId()));
+                publishSaved(snapshot);
+            }
+        }
+    }
+
+    private Book findBook(Long bookId) {
+        return bookRepository.findById(bookId)
                 .orElseThrow(() -> new NotFoundException("Book not found with id: " + bookId));
-        book.setCopiesAvailable(book.getCopiesAvailable() + 1);
-        bookRepository.save(book);
+    }
+
+    // The bulk UPDATE bypasses the persistence context; re-read the row before handing it out
+    private Book refreshAndPublish(Book book) {
+        entityManager.refresh(book);
+        publishSaved(book);
+        return book;
     }
 
     public void deleteBook(Long id) {
         bookRepository.deleteById(id);
+        afterCommit(() -> catalogListeners.forEach(listener -> listener.bookDeleted(id)));
     }
 
-    public List<Book> searchBooks(String query) {
+    public List<Book> searchBooks(String query, boolean fuzzy) {
+        if (fuzzy && bookTrigramIndex.isReady() && bookSearchIndex.isReady()) {
+            return bookSearchIndex.getBooks(bookTrigramIndex.search(query));
+        }
+        if (bookSearchIndex.isReady()) {
+            return bookSearchIndex.search(query);
+        }
+        // Index is still being built at startup, fall back to the database
         return bookRepository.findByTitleContainingIgnoreCaseOrAuthorContainingIgnoreCaseOrIsbnContainingIgnoreCase(
                 query, query, query);
     }
+
+    public Map<String, Object> getCacheStatistics() {
+        return bookCache.getStatistics();
+    }
+
+    public List<SuggestionDTO> suggest(String prefix, int limit) {
+        return bookSuggestIndex.suggest(prefix, limit);
+    }
+
+    /**
+     * Combined category / year range / availability filter with per-facet counts
+     */
+    public BookFacetsDTO facetSearch(String category, Integer yearFrom, Integer yearTo, boolean availableOnly,
+            Integer limit) {
+        int pageSize = limit == null ? defaultPageSize : Math.max(1, Math.min(limit, maxPageSize));
+        BookFacetIndex.FacetResult result = bookFacetIndex.search(category, yearFrom, yearTo, availableOnly,
+                pageSize);
+        List<BookDTO> items = bookSearchIndex.getBooks(result.bookIds()).stream()
+                .map(bookMapper::toDTO)
+                .toList();
+        return new BookFacetsDTO(result.total(), items, result.categories(), result.years(),
+                result.availability());
+    }
+
+    /**
+     * Ledger mode: the books row is written by the ledger's flusher, so detach the
+     * entity before putting the ledger count on it to keep Hibernate from writing it
+     */
+    private Book publishLedgerCount(Book book, int available) {
+        entityManager.detach(book);
+        book.setCopiesAvailable(available);
+        publishCopiesChanged(book.getId());
+        return book;
+    }
+
+    // Ledger mode: listeners read the count when the callback runs, not the one seen here
+    private void publishCopiesChanged(Long bookId) {
+        afterCommit(() -> catalogListeners.forEach(listener -> listener.copiesChanged(bookId)));
+    }
+
+    private Integer ledgerCount(Book book) {
+        Integer available = inventoryLedger.available(book.getId());
+        return available == null ? book.getCopiesAvailable() : available;
+    }
+
+    private void publishSaved(Book book) {
+        Book snapshot = book.copy();
+        if (!inventoryLedger.isEnabled()) {
+            afterCommit(() -> catalogListeners.forEach(listener -> listener.bookSaved(snapshot)));
+            return;
+        }
+        snapshot.setCopiesAvailable(ledgerCount(book));
+        // The snapshot's count may be overtaken by then; copiesChanged re-reads the ledger
+        afterCommit(() -> catalogListeners.forEach(listener -> {
+            listener.bookSaved(snapshot);
+            listener.copiesChanged(snapshot.getId());
+        }));
+    }
+
+    /**
+     * In-memory indexes must only see committed data; when called inside a
+     * transaction (e.g. from BorrowService) defer the update until commit.
+     */
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
 }
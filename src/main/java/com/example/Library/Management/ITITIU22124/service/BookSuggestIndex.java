@@ -0,0 +1,450 @@
+package com.example.Library.Management.ITITIU22124.service;
+
+import com.example.Library.Management.ITITIU22124.dto.SuggestionDTO;
+import com.example.Library.Management.ITITIU22124.model.Book;
+import com.example.Library.Management.ITITIU22124.repository.BorrowRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Prefix autocomplete over book titles and authors.
+ * Every trie node keeps its best suggestions precomputed, so a lookup is a walk
+ * down the prefix plus a copy of at most TOP_K entries. Suggestions are ranked by
+ * borrow count, which is refreshed from borrow_records on a schedule.
+ */
+@Component
+@Slf4j
+public class BookSuggestIndex implements CatalogListener {
+
+    static final int TOP_K = 10;
+
+    // Only the first few words of a title start a key, and keys are cut at this length;
+    // longer prefixes fall back to scanning the (small) subtree below the cut
+    private static final int MAX_KEY_WORDS = 4;
+
+    @Value("${library.suggest.max-key-length:24}")
+    private int maxKeyLength;
+
+    @Autowired
+    private BorrowRepository borrowRepository;
+
+    @Autowired
+    private CatalogVersion catalogVersion;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private Node root = new Node();
+
+    // "TITLE:clean code" -> suggestion shared by every book with that title
+    private final Map<String, Suggestion> suggestions = new HashMap<>();
+
+    private final Map<Long, BookEntry> books = new HashMap<>();
+
+    private Map<Long, Long> borrowCounts = Map.of();
+
+    // While bulk loading, node rankings are computed once at the end instead of per insert
+    private boolean loading;
+
+    @Override
+    public void catalogLoaded(List<Book> catalog) {
+        Map<Long, Long> counts = loadBorrowCounts();
+        lock.writeLock().lock();
+        try {
+            root = new Node();
+            suggestions.clear();
+            books.clear();
+            borrowCounts = counts;
+            loading = true;
+            for (Book book : catalog) {
+                addBook(book);
+            }
+            loading = false;
+            recomputeAll(root);
+        } finally {
+            loading = false;
+            lock.writeLock().unlock();
+        }
+        log.info("Suggest index built: {} suggestions", suggestions.size());
+    }
+
+    @Override
+    public void bookSaved(Book book) {
+        if (book == null || book.getId() == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            BookEntry existing = books.get(book.getId());
+            if (existing != null && existing.matches(book)) {
+                return; // Only availability changed, nothing to re-rank
+            }
+            removeBook(book.getId());
+            addBook(book);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void bookDeleted(Long bookId) {
+        lock.writeLock().lock();
+        try {
+            removeBook(bookId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Top suggestions whose title or author has a word starting with the prefix
+     */
+    public List<SuggestionDTO> suggest(String prefix, int limit) {
+        String key = normalize(prefix);
+        if (key.isEmpty()) {
+            return List.of();
+        }
+        int size = Math.max(1, Math.min(limit, TOP_K));
+
+        lock.readLock().lock();
+        try {
+            String walkKey = key.length() > maxKeyLength ? key.substring(0, maxKeyLength) : key;
+            Node node = root;
+            for (int i = 0; i < walkKey.length() && node != null; i++) {
+                node = node.child(walkKey.charAt(i));
+            }
+            if (node == null) {
+                return List.of();
+            }
+
+            List<Suggestion> ranked;
+            if (walkKey.length() == key.length()) {
+                ranked = Arrays.asList(node.top);
+            } else {
+                // Prefix is longer than the stored keys: filter the subtree by the full prefix
+                Set<Suggestion> matches = Collections.newSetFromMap(new IdentityHashMap<>());
+                collect(node, matches);
+                ranked = new ArrayList<>();
+                for (Suggestion suggestion : matches) {
+                    if (suggestion.hasWordStartingWith(key)) {
+                        ranked.add(suggestion);
+                    }
+                }
+                ranked.sort(RANKING);
+            }
+
+            List<SuggestionDTO> results = new ArrayList<>(size);
+            for (Suggestion suggestion : ranked) {
+                if (results.size() >= size) {
+                    break;
+                }
+                results.add(new SuggestionDTO(suggestion.text, suggestion.type, suggestion.score));
+            }
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Re-rank with fresh borrow counts. Only suggestions whose count changed are touched.
+     */
+    @Scheduled(fixedDelayString = "${library.suggest.popularity-refresh-ms:900000}",
+            initialDelayString = "${library.suggest.popularity-refresh-ms:900000}")
+    public void refreshPopularity() {
+        Map<Long, Long> counts = loadBorrowCounts();
+        int changed = 0;
+        lock.writeLock().lock();
+        try {
+            Map<Long, Long> previous = borrowCounts;
+            borrowCounts = counts;
+            for (BookEntry entry : books.values()) {
+                long delta = counts.getOrDefault(entry.bookId, 0L) - previous.getOrDefault(entry.bookId, 0L);
+                if (delta != 0) {
+                    adjustScore(entry.title, delta);
+                    adjustScore(entry.author, delta);
+                    changed++;
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (changed > 0) {
+            // Cached suggest responses carry the old ranking
+            catalogVersion.bump();
+        }
+        log.debug("Suggest popularity refreshed, {} books re-ranked", changed);
+    }
+
+    private Map<Long, Long> loadBorrowCounts() {
+        Map<Long, Long> counts = new HashMap<>();
+        for (Object[] row : borrowRepository.countBorrowsByBook()) {
+            counts.put((Long) row[0], (Long) row[1]);
+        }
+        return counts;
+    }
+
+    private void addBook(Book book) {
+        long popularity = 1 + borrowCounts.getOrDefault(book.getId(), 0L);
+        Suggestion title = attach("TITLE", book.getTitle(), popularity);
+        Suggestion author = attach("AUTHOR", book.getAuthor(), popularity);
+        books.put(book.getId(), new BookEntry(book.getId(), book.getTitle(), book.getAuthor(), title, author));
+    }
+
+    private void removeBook(Long bookId) {
+        BookEntry entry = books.remove(bookId);
+        if (entry == null) {
+            return;
+        }
+        long popularity = 1 + borrowCounts.getOrDefault(bookId, 0L);
+        detach(entry.title, popularity);
+        detach(entry.author, popularity);
+    }
+
+    private Suggestion attach(String type, String text, long popularity) {
+        String key = normalize(text);
+        if (key.isEmpty()) {
+            return null;
+        }
+        String mapKey = type + ":" + key;
+        Suggestion suggestion = suggestions.get(mapKey);
+        if (suggestion != null) {
+            suggestion.books++;
+            adjustScore(suggestion, popularity);
+            return suggestion;
+        }
+
+        suggestion = new Suggestion(mapKey, text.trim(), key, type, popularity, keysFor(key));
+        suggestions.put(mapKey, suggestion);
+        for (String suggestionKey : suggestion.keys) {
+            List<Node> path = path(suggestionKey, true);
+            path.get(path.size() - 1).terminals.add(suggestion);
+            recompute(path);
+        }
+        return suggestion;
+    }
+
+    private void detach(Suggestion suggestion, long popularity) {
+        if (suggestion == null) {
+            return;
+        }
+        if (--suggestion.books > 0) {
+            adjustScore(suggestion, -popularity);
+            return;
+        }
+
+        suggestions.remove(suggestion.mapKey);
+        for (String suggestionKey : suggestion.keys) {
+            List<Node> path = path(suggestionKey, false);
+            if (path == null) {
+                continue;
+            }
+            path.get(path.size() - 1).terminals.remove(suggestion);
+            recompute(path);
+            prune(path, suggestionKey);
+        }
+    }
+
+    private void adjustScore(Suggestion suggestion, long delta) {
+        if (suggestion == null) {
+            return;
+        }
+        suggestion.score += delta;
+        for (String suggestionKey : suggestion.keys) {
+            List<Node> path = path(suggestionKey, false);
+            if (path != null) {
+                recompute(path);
+            }
+        }
+    }
+
+    /**
+     * Nodes from the root to the end of the key, optionally creating missing ones
+     */
+    private List<Node> path(String key, boolean create) {
+        List<Node> path = new ArrayList<>(key.length() + 1);
+        Node node = root;
+        path.add(node);
+        for (int i = 0; i < key.length(); i++) {
+            Node child = node.child(key.charAt(i));
+            if (child == null) {
+                if (!create) {
+                    return null;
+                }
+                child = node.addChild(key.charAt(i));
+            }
+            node = child;
+            path.add(node);
+        }
+        return path;
+    }
+
+    /**
+     * Rebuild the cached top entries bottom-up along a path. A node's best entries
+     * are always among its own terminals and its children's best entries.
+     */
+    private void recompute(List<Node> path) {
+        if (loading) {
+            return;
+        }
+        for (int i = path.size() - 1; i >= 0; i--) {
+            rank(path.get(i));
+        }
+    }
+
+    private void recomputeAll(Node node) {
+        for (Node child : node.children) {
+            recomputeAll(child);
+        }
+        rank(node);
+    }
+
+    private void rank(Node node) {
+        Set<Suggestion> candidates = Collections.newSetFromMap(new IdentityHashMap<>());
+        candidates.addAll(node.terminals);
+        for (Node child : node.children) {
+            candidates.addAll(Arrays.asList(child.top));
+        }
+        List<Suggestion> sorted = new ArrayList<>(candidates);
+        sorted.sort(RANKING);
+        node.top = sorted.subList(0, Math.min(TOP_K, sorted.size())).toArray(new Suggestion[0]);
+    }
+
+    private void prune(List<Node> path, String key) {
+        for (int i = path.size() - 1; i > 0; i--) {
+            Node node = path.get(i);
+            if (!node.terminals.isEmpty() || node.children.length > 0) {
+                return;
+            }
+            path.get(i - 1).removeChild(key.charAt(i - 1));
+        }
+    }
+
+    private void collect(Node node, Set<Suggestion> into) {
+        into.addAll(node.terminals);
+        for (Node child : node.children) {
+            collect(child, into);
+        }
+    }
+
+    /**
+     * One key per leading word, so "code" finds "Clean Code"
+     */
+    private List<String> keysFor(String normalized) {
+        List<String> keys = new ArrayList<>();
+        int start = 0;
+        while (start < normalized.length() && keys.size() < MAX_KEY_WORDS) {
+            String key = normalized.substring(start);
+            keys.add(key.length() > maxKeyLength ? key.substring(0, maxKeyLength) : key);
+            int space = normalized.indexOf(' ', start);
+            if (space < 0) {
+                break;
+            }
+            start = space + 1;
+        }
+        return keys;
+    }
+
+    static String normalize(String text) {
+        return String.join(" ", BookSearchIndex.tokenize(text));
+    }
+
+    private static final Comparator<Suggestion> RANKING = Comparator
+            .comparingLong((Suggestion s) -> s.score).reversed()
+            .thenComparing(s -> s.text);
+
+    private static final class Suggestion {
+        private final String mapKey;
+        private final String text;
+        private final String normalized;
+        private final String type;
+        private final List<String> keys;
+        private long score;
+        private int books = 1;
+
+        private Suggestion(String mapKey, String text, String normalized, String type, long score,
+                List<String> keys) {
+            this.mapKey = mapKey;
+            this.text = text;
+            this.normalized = normalized;
+            this.type = type;
+            this.score = score;
+            this.keys = keys;
+        }
+
+        private boolean hasWordStartingWith(String prefix) {
+            return normalized.startsWith(prefix) || normalized.contains(" " + prefix);
+        }
+    }
+
+    private record BookEntry(Long bookId, String titleText, String authorText, Suggestion title, Suggestion author) {
+        private boolean matches(Book book) {
+            return Objects.equals(titleText, book.getTitle()) && Objects.equals(authorText, book.getAuthor());
+        }
+    }
+
+    /**
+     * Trie node with children kept in a sorted char array to stay compact
+     */
+    private static final class Node {
+        private static final char[] NO_KEYS = new char[0];
+        private static final Node[] NO_CHILDREN = new Node[0];
+        private static final Suggestion[] NO_SUGGESTIONS = new Suggestion[0];
+
+        private char[] keys = NO_KEYS;
+        private Node[] children = NO_CHILDREN;
+        private Suggestion[] top = NO_SUGGESTIONS;
+        private final List<Suggestion> terminals = new ArrayList<>(1);
+
+        private Node child(char c) {
+            int index = Arrays.binarySearch(keys, c);
+            return index >= 0 ? children[index] : null;
+        }
+
+        private Node addChild(char c) {
+            int index = -(Arrays.binarySearch(keys, c) + 1);
+            char[] newKeys = new char[keys.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(keys, 0, newKeys, 0, index);
+            System.arraycopy(children, 0, newChildren, 0, index);
+            System.arraycopy(keys, index, newKeys, index + 1, keys.length - index);
+            System.arraycopy(children, index, newChildren, index + 1, children.length - index);
+            Node node = new Node();
+            newKeys[index] = c;
+            newChildren[index] = node;
+            keys = newKeys;
+            children = newChildren;
+            return node;
+        }
+
+        private void removeChild(char c) {
+            int index = Arrays.binarySearch(keys, c);
+            if (index < 0) {
+                return;
+            }
+            char[] newKeys = new char[keys.length - 1];
+            Node[] newChildren = new Node[children.length - 1];
+            System.arraycopy(keys, 0, newKeys, 0, index);
+            System.arraycopy(children, 0, newChildren, 0, index);
+            System.arraycopy(keys, index + 1, newKeys, index, keys.length - index - 1);
+            System.arraycopy(children, index + 1, newChildren, index, children.length - index - 1);
+            keys = newKeys;
+            children = newChildren;
+        }
+    }
+}
@@ -0,0 +1,251 @@
+package com.example.Library.Management.ITITIU22124.service;
+
+import com.example.Library.Management.ITITIU22124.model.Book;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Typo-tolerant lookup over the words of titles and authors.
+ * Each distinct word is stored once with its trigrams; a query word is matched
+ * against dictionary words by trigram (Jaccard) similarity, and books are scored
+ * by the best similarity reached for each query word.
+ */
+@Component
+@Slf4j
+public class BookTrigramIndex implements CatalogListener {
+
+    // Words shorter than this carry too few trigrams to compare, longer ones are cut
+    private static final int MIN_WORD_LENGTH = 2;
+    private static final int MAX_WORD_LENGTH = 32;
+
+    @Value("${library.search.fuzzy.min-similarity:0.3}")
+    private double minSimilarity;
+
+    @Value("${library.search.max-results:100}")
+    private int maxResults;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // word -> dictionary entry shared by every book containing it
+    private final Map<String, Term> terms = new HashMap<>();
+
+    // trigram -> words containing it
+    private final Map<String, Set<Term>> trigramTerms = new HashMap<>();
+
+    // book id -> words indexed for it, for removal
+    private final Map<Long, Set<String>> bookTerms = new HashMap<>();
+
+    private volatile boolean ready;
+
+    @Override
+    public void catalogLoaded(List<Book> books) {
+        lock.writeLock().lock();
+        try {
+            terms.clear();
+            trigramTerms.clear();
+            bookTerms.clear();
+            for (Book book : books) {
+                add(book);
+            }
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Trigram index built: {} words, {} trigrams", terms.size(), trigramTerms.size());
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    @Override
+    public void bookSaved(Book book) {
+        if (book == null || book.getId() == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            Set<String> words = wordsOf(book);
+            if (words.equals(bookTerms.get(book.getId()))) {
+                return; // Title and author unchanged
+            }
+            remove(book.getId());
+            add(book);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void bookDeleted(Long bookId) {
+        lock.writeLock().lock();
+        try {
+            remove(bookId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Ids of books whose title or author words resemble the query words, best match first
+     */
+    public List<Long> search(String query) {
+        List<String> queryWords = new ArrayList<>();
+        for (String token : BookSearchIndex.tokenize(query)) {
+            if (token.length() >= MIN_WORD_LENGTH) {
+                queryWords.add(clip(token));
+            }
+        }
+        if (queryWords.isEmpty()) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            Map<Long, Double> scores = new HashMap<>();
+            for (String word : queryWords) {
+                // Best similarity per book for this query word
+                Map<Long, Double> wordScores = new HashMap<>();
+                for (Map.Entry<Term, Double> match : similarTerms(word).entrySet()) {
+                    for (Long bookId : match.getKey().books) {
+                        wordScores.merge(bookId, match.getValue(), Math::max);
+                    }
+                }
+                wordScores.forEach((bookId, score) -> scores.merge(bookId, score, Double::sum));
+            }
+
+            List<Map.Entry<Long, Double>> ranked = new ArrayList<>(scores.entrySet());
+            ranked.sort(Map.Entry.<Long, Double>comparingByValue().reversed()
+                    .thenComparing(Map.Entry.comparingByKey()));
+
+            List<Long> results = new ArrayList<>(Math.min(ranked.size(), maxResults));
+            for (Map.Entry<Long, Double> entry : ranked) {
+                if (results.size() >= maxResults) {
+                    break;
+                }
+                results.add(entry.getKey());
+            }
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Map<Term, Double> similarTerms(String word) {
+        Set<String> queryTrigrams = trigrams(word);
+        Map<Term, Integer> shared = new HashMap<>();
+        for (String trigram : queryTrigrams) {
+            Set<Term> candidates = trigramTerms.get(trigram);
+            if (candidates != null) {
+                for (Term term : candidates) {
+                    shared.merge(term, 1, Integer::sum);
+                }
+            }
+        }
+
+        Map<Term, Double> matches = new HashMap<>();
+        for (Map.Entry<Term, Integer> entry : shared.entrySet()) {
+            int common = entry.getValue();
+            double similarity = (double) common / (queryTrigrams.size() + entry.getKey().trigramCount - common);
+            if (similarity >= minSimilarity) {
+                matches.put(entry.getKey(), similarity);
+            }
+        }
+        return matches;
+    }
+
+    private void add(Book book) {
+        Set<String> words = wordsOf(book);
+        for (String word : words) {
+            Term term = terms.get(word);
+            if (term == null) {
+                Set<String> wordTrigrams = trigrams(word);
+                term = new Term(wordTrigrams.size());
+                terms.put(word, term);
+                for (String trigram : wordTrigrams) {
+                    trigramTerms.computeIfAbsent(trigram, k -> new HashSet<>()).add(term);
+                }
+            }
+            term.books.add(book.getId());
+        }
+        bookTerms.put(book.getId(), words);
+    }
+
+    private void remove(Long bookId) {
+        Set<String> words = bookTerms.remove(bookId);
+        if (words == null) {
+            return;
+        }
+        for (String word : words) {
+            Term term = terms.get(word);
+            if (term == null) {
+                continue;
+            }
+            term.books.remove(bookId);
+            if (term.books.isEmpty()) {
+                // Last book using this word: drop it from the dictionary
+                terms.remove(word);
+                for (String trigram : trigrams(word)) {
+                    Set<Term> candidates = trigramTerms.get(trigram);
+                    if (candidates != null) {
+                        candidates.remove(term);
+                        if (candidates.isEmpty()) {
+                            trigramTerms.remove(trigram);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private static Set<String> wordsOf(Book book) {
+        Set<String> words = new LinkedHashSet<>();
+        for (String token : BookSearchIndex.tokenize(book.getTitle())) {
+            if (token.length() >= MIN_WORD_LENGTH) {
+                words.add(clip(token));
+            }
+        }
+        for (String token : BookSearchIndex.tokenize(book.getAuthor())) {
+            if (token.length() >= MIN_WORD_LENGTH) {
+                words.add(clip(token));
+            }
+        }
+        return words;
+    }
+
+    private static String clip(String word) {
+        return word.length() > MAX_WORD_LENGTH ? word.substring(0, MAX_WORD_LENGTH) : word;
+    }
+
+    /**
+     * Trigrams of a word padded like pg_trgm: two leading blanks and one trailing blank
+     */
+    static Set<String> trigrams(String word) {
+        String padded = "  " + word + " ";
+        Set<String> trigrams = new HashSet<>();
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            trigrams.add(padded.substring(i, i + 3));
+        }
+        return trigrams;
+    }
+
+    private static final class Term {
+        private final int trigramCount;
+        private final Set<Long> books = new HashSet<>(4);
+
+        private Term(int trigramCount) {
+            this.trigramCount = trigramCount;
+        }
+    }
+}
@@ -1,26 +1,62 @@
 
 package com.example.Library.Management.ITITIU22124.service;
 
+import com.example.Library.Management.ITITIU22124.config.ListingLimits;
+import com.example.Library.Management.ITITIU22124.dto.BatchItemResult;
+import com.example.Library.Management.ITITIU22124.dto.BorrowDTO;
+import com.example.Library.Management.ITITIU22124.event.BookBorrowed;
+import com.example.Library.Management.ITITIU22124.event.BookReturned;
 import com.example.Library.Management.ITITIU22124.exception.BadRequestException;
 import com.example.Library.Management.ITITIU22124.exception.NotFoundException;
+import com.example.Library.Management.ITITIU22124.model.Book;
 import com.example.Library.Management.ITITIU22124.model.BorrowRecord;
 import com.example.Library.Management.ITITIU22124.model.BorrowStatus;
 import com.example.Library.Management.ITITIU22124.model.Fine;
+import com.example.Library.Management.ITITIU22124.model.Reservation;
 import com.example.Library.Management.ITITIU22124.model.User;
 import com.example.Library.Management.ITITIU22124.repository.BookRepository;
 import com.example.Library.Management.ITITIU22124.repository.BorrowRepository;
 import com.example.Library.Management.ITITIU22124.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Lazy;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
 import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.ListIterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
 
 @Service
 public class BorrowService {
 
+    private static final String INSERT_BORROW_SQL = "INSERT INTO borrow_records "
+            + "(user_id, book_id, borrow_date, due_date, status) VALUES (?, ?, ?, ?, ?)";
+
+    // Closes a loan only if it is still open, so two returns racing on it cannot both win
+    private static final String CLOSE_LOAN_SQL = "UPDATE borrow_records SET return_date = ?, status = ? "
+            + "WHERE id = ? AND return_date IS NULL";
+
     @Autowired
     private BorrowRepository borrowRepository;
 
@@ -33,88 +69,349 @@ public class BorrowService {
     @Autowired
     private BookService bookService; // Use Service for encapsulation of copy logic
 
+    @Autowired
+    private ListingLimits listingLimits;
+
     @Autowired
     private ReservationService reservationService;
 
+    @Autowired
+    private PatronSummaryCache patronSummaries; // Loan and fine limits, checked in memory
+
     @Autowired
     @Lazy
     private FineService fineService;
 
     @Autowired
-    private NotificationService notificationService;
+    private ApplicationEventPublisher eventPublisher; // Emails queue before commit; cache and reservation handoff run after it
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${library.borrow.max-batch-size:50}")
+    private int maxBatchSize;
+
+    @Value("${library.borrow.max-return-batch-size:1000}")
+    private int maxReturnBatchSize;
 
     @Transactional
     public BorrowRecord borrowBook(Long userId, Long bookId) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new NotFoundException("User not found with id: " + userId));
 
-        if (borrowRepository.existsByUserIdAndBookIdAndReturnDateIsNull(userId, bookId)) {
-            throw new BadRequestException("User already has a copy of this book");
+        String refusal = patronSummaries.tryReserve(userId, bookId);
+        if (refusal != null) {
+            throw new BadRequestException(refusal);
         }
 
-        bookService.borrowCopy(bookId); // Will throw if no copies (except if we handle exceptions here)
+        Book book = bookService.borrowCopy(bookId); // Will throw if no copies (except if we handle exceptions here)
 
         BorrowRecord record = new BorrowRecord();
         record.setUser(user);
-        record.setBook(bookRepository.findById(bookId).get()); // Re-fetch to be safe or just use ID
+        record.setBook(book);
         record.setBorrowDate(LocalDate.now());
         record.setDueDate(LocalDate.now().plusWeeks(2)); // Default 2 weeks loan
         record.setStatus(BorrowStatus.BORROWED);
         BorrowRecord savedRecord = borrowRepository.save(record);
 
-        // Send borrow confirmation email (async, don't fail transaction on email error)
-        try {
-            notificationService.notifyBookBorrowed(savedRecord);
-        } catch (Exception e) {
-            System.err.println("Failed to send borrow notification: " + e.getMessage());
-        }
+        eventPublisher.publishEvent(new BookBorrowed(savedRecord.getId(), userId, bookId,
+                savedRecord.getBorrowDate(), savedRecord.getDueDate()));
 
         return savedRecord;
     }
 
+    /**
+     * Check out several books for one user in one transaction. Validation, the
+     * availability update and the inserts are one statement each, whatever the
+     * number of books; every book gets its own success or failure entry.
+     */
+    @Transactional
+    public List<BatchItemResult> borrowBooks(Long userId, List<Long> bookIds) {
+        if (bookIds == null || bookIds.isEmpty()) {
+            throw new BadRequestException("No books given");
+        }
+        if (bookIds.size() > maxBatchSize) {
+            throw new BadRequestException("At most " + maxBatchSize + " books can be checked out at once");
+        }
+        if (!userRepository.existsById(userId)) {
+            throw new NotFoundException("User not found with id: " + userId);
+        }
+
+        Set<Long> requested = new LinkedHashSet<>(bookIds);
+        Map<Long, Book> books = bookService.lockBooks(requested);
+
+        // Limits are applied in request order, so the first books fill the remaining loan slots
+        Map<Long, String> refused = new HashMap<>();
+        List<Book> candidates = new ArrayList<>();
+        for (Long bookId : requested) {
+            Book book = books.get(bookId);
+            if (book == null) {
+                continue;
+            }
+            String refusal = patronSummaries.tryReserve(userId, bookId);
+            if (refusal != null) {
+                refused.put(bookId, refusal);
+            } else {
+                candidates.add(book);
+            }
+        }
+        Set<Long> taken = bookService.takeCopies(candidates);
+        for (Book book : candidates) {
+            if (!taken.contains(book.getId())) {
+                patronSummaries.release(userId, book.getId());
+            }
+        }
+
+        LocalDate borrowDate = LocalDate.now();
+        LocalDate dueDate = borrowDate.plusWeeks(2); // Default 2 weeks loan
+        List<Book> borrowed = candidates.stream().filter(book -> taken.contains(book.getId())).toList();
+        List<Long> borrowIds = insertBorrowRecords(userId, borrowed, borrowDate, dueDate);
+
+        Map<Long, Long> borrowIdByBook = new HashMap<>();
+        for (int i = 0; i < borrowed.size(); i++) {
+            borrowIdByBook.put(borrowed.get(i).getId(), borrowIds.get(i));
+            eventPublisher.publishEvent(new BookBorrowed(borrowIds.get(i), userId, borrowed.get(i).getId(),
+                    borrowDate, dueDate));
+        }
+
+        Set<Long> seen = new HashSet<>();
+        List<BatchItemResult> results = new ArrayList<>(bookIds.size());
+        for (Long bookId : bookIds) {
+            if (!seen.add(bookId)) {
+                results.add(BatchItemResult.failed(bookId, "Duplicate book in request"));
+            } else if (!books.containsKey(bookId)) {
+                results.add(BatchItemResult.failed(bookId, "Book not found with id: " + bookId));
+            } else if (refused.containsKey(bookId)) {
+                results.add(BatchItemResult.failed(bookId, refused.get(bookId)));
+            } else if (!taken.contains(bookId)) {
+                results.add(BatchItemResult.failed(bookId, "No copies available for book with id: " + bookId));
+            } else {
+                results.add(BatchItemResult.ok(bookId, borrowIdByBook.get(bookId), "Due " + dueDate));
+            }
+        }
+        return results;
+    }
+
+    private List<Long> insertBorrowRecords(Long userId, List<Book> books, LocalDate borrowDate, LocalDate dueDate) {
+        if (books.isEmpty()) {
+            return List.of();
+        }
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(con -> con.prepareStatement(INSERT_BORROW_SQL, new String[] { "id" }),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        ps.setLong(1, userId);
+                        ps.setLong(2, books.get(i).getId());
+                        ps.setDate(3, Date.valueOf(borrowDate));
+                        ps.setDate(4, Date.valueOf(dueDate));
+                        ps.setString(5, BorrowStatus.BORROWED.name());
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return books.size();
+                    }
+                }, keyHolder);
+
+        List<Long> ids = new ArrayList<>(books.size());
+        for (Map<String, Object> keys : keyHolder.getKeyList()) {
+            ids.add(((Number) keys.values().iterator().next()).longValue());
+        }
+        return ids;
+    }
+
     @Transactional
     public BorrowRecord returnBook(Long borrowId) {
         BorrowRecord record = borrowRepository.findById(borrowId)
                 .orElseThrow(() -> new NotFoundException("Borrow record not found with id: " + borrowId));
 
-        if (record.getReturnDate() != null) {
+        LocalDate returnDate = LocalDate.now();
+        if (record.getReturnDate() != null || closeLoans(List.of(borrowId), returnDate).isEmpty()) {
             throw new BadRequestException("Book already returned");
         }
-
-        LocalDate returnDate = LocalDate.now();
         record.setReturnDate(returnDate);
         record.setStatus(BorrowStatus.RETURNED);
 
         // Auto-calculate and create fine if overdue
-        boolean hadFine = false;
-        String fineAmount = null;
+        BigDecimal fineAmount = null;
         if (returnDate.isAfter(record.getDueDate())) {
             Fine fine = fineService.calculateAndCreateFine(record, returnDate);
             if (fine != null) {
-                hadFine = true;
-                fineAmount = fine.getAmount().toString();
-                System.out.println(
-                        "Fine created: $" + fine.getAmount() + " for " + fine.getDaysOverdue() + " days overdue");
+                fineAmount = fine.getAmount();
             }
         }
 
         bookService.returnCopy(record.getBook().getId());
 
-        // Check for reservations
-        reservationService.handleReturn(record.getBook().getId());
-
         BorrowRecord savedRecord = borrowRepository.save(record);
 
-        // Send return confirmation email (async, don't fail transaction on email error)
-        try {
-            notificationService.notifyBookReturned(savedRecord, hadFine, fineAmount);
-        } catch (Exception e) {
-            System.err.println("Failed to send return notification: " + e.getMessage());
-        }
+        // Waiting reservations get the copy after commit, see ReservationService.onBookReturned
+        eventPublisher.publishEvent(new BookReturned(savedRecord.getId(), record.getUser().getId(),
+                record.getBook().getId(), returnDate, fineAmount, false));
 
         return savedRecord;
     }
 
+    /**
+     * Process a pile of returns in one transaction: fines are computed in one pass and
+     * batch-inserted, loans are closed with one update, returned copies go to waiting
+     * reservations in one sweep and the rest back on the shelf with one batched update.
+     * Unlike returnBook the handoff stays in the transaction, since it is one query for
+     * the whole batch and the handed-over copies never reach the shelf.
+     * Loans are closed first with a conditional update each; one that a concurrent return
+     * closed first is dropped from the batch before any fine, copy or reservation is touched.
+     */
+    @Transactional
+    public List<BatchItemResult> returnBooks(List<Long> borrowIds, List<String> isbns) {
+        List<Long> ids = borrowIds == null ? List.of() : borrowIds;
+        List<String> codes = isbns == null ? List.of() : isbns;
+        if (ids.isEmpty() && codes.isEmpty()) {
+            throw new BadRequestException("No borrow ids or ISBNs given");
+        }
+        if (ids.size() + codes.size() > maxReturnBatchSize) {
+            throw new BadRequestException("At most " + maxReturnBatchSize + " returns can be processed at once");
+        }
+
+        Map<Long, BorrowRecord> recordsById = new HashMap<>();
+        for (BorrowRecord record : borrowRepository.findAllByIdWithUserAndBook(new HashSet<>(ids))) {
+            recordsById.put(record.getId(), record);
+        }
+        Map<String, Deque<BorrowRecord>> openLoansByIsbn = new HashMap<>();
+        if (!codes.isEmpty()) {
+            for (BorrowRecord record : borrowRepository.findOpenLoansByIsbn(new HashSet<>(codes))) {
+                openLoansByIsbn.computeIfAbsent(record.getBook().getIsbn(), k -> new ArrayDeque<>()).add(record);
+            }
+        }
+
+        // Resolve every entry to one open loan; a loan named twice is only returned once
+        Map<Long, BorrowRecord> toReturn = new LinkedHashMap<>();
+        List<ReturnItem> items = new ArrayList<>(ids.size() + codes.size());
+        for (Long borrowId : ids) {
+            BorrowRecord record = recordsById.get(borrowId);
+            if (record == null) {
+                items.add(new ReturnItem(borrowId, null, "Borrow record not found with id: " + borrowId));
+            } else if (record.getReturnDate() != null) {
+                items.add(new ReturnItem(borrowId, null, "Book already returned"));
+            } else if (toReturn.putIfAbsent(borrowId, record) != null) {
+                items.add(new ReturnItem(borrowId, null, "Duplicate entry in request"));
+            } else {
+                items.add(new ReturnItem(borrowId, record, null));
+            }
+        }
+        for (String isbn : codes) {
+            BorrowRecord record = nextOpenLoan(openLoansByIsbn.get(isbn), toReturn);
+            if (record == null) {
+                items.add(new ReturnItem(isbn, null, "No open loan for ISBN: " + isbn));
+            } else {
+                toReturn.put(record.getId(), record);
+                items.add(new ReturnItem(isbn, record, null));
+            }
+        }
+
+        LocalDate returnDate = LocalDate.now();
+        Set<Long> closed = new HashSet<>();
+        Set<Long> pending = new HashSet<>(toReturn.keySet());
+        while (!pending.isEmpty()) {
+            closed.addAll(closeLoans(pending, returnDate));
+            pending.clear();
+            // Entries whose loan was closed by a concurrent return fail; an ISBN moves on to its next open loan
+            for (ListIterator<ReturnItem> it = items.listIterator(); it.hasNext();) {
+                ReturnItem item = it.next();
+                if (item.record() == null || closed.contains(item.record().getId())) {
+                    continue;
+                }
+                toReturn.remove(item.record().getId());
+                if (item.item() instanceof String isbn) {
+                    BorrowRecord next = nextOpenLoan(openLoansByIsbn.get(isbn), toReturn);
+                    if (next == null) {
+                        it.set(new ReturnItem(isbn, null, "No open loan for ISBN: " + isbn));
+                    } else {
+                        toReturn.put(next.getId(), next);
+                        pending.add(next.getId());
+                        it.set(new ReturnItem(isbn, next, null));
+                    }
+                } else {
+                    it.set(new ReturnItem(item.item(), null, "Book already returned"));
+                }
+            }
+        }
+
+        Map<Long, BigDecimal> fines = Map.of();
+        if (!toReturn.isEmpty()) {
+            List<BorrowRecord> records = new ArrayList<>(toReturn.values());
+            fines = fineService.createFines(records, returnDate);
+
+            Map<Long, Integer> copiesByBook = new HashMap<>();
+            Map<Long, Book> books = new HashMap<>();
+            for (BorrowRecord record : records) {
+                copiesByBook.merge(record.getBook().getId(), 1, Integer::sum);
+                books.put(record.getBook().getId(), record.getBook());
+            }
+            // Copies handed to a reservation stay held; only the rest go back on the shelf
+            for (Reservation reservation : reservationService.handleReturns(copiesByBook)) {
+                copiesByBook.computeIfPresent(reservation.getBook().getId(),
+                        (bookId, copies) -> copies > 1 ? copies - 1 : null);
+            }
+            bookService.returnCopies(books.values(), copiesByBook);
+        }
+
+        List<BatchItemResult> results = new ArrayList<>(items.size());
+        for (ReturnItem item : items) {
+            if (item.record() == null) {
+                results.add(BatchItemResult.failed(item.item(), item.error()));
+                continue;
+            }
+            BigDecimal fine = fines.get(item.record().getId());
+            results.add(BatchItemResult.ok(item.item(), item.record().getId(),
+                    fine == null ? "Returned" : "Returned, fine $" + fine));
+        }
+
+        for (BorrowRecord record : toReturn.values()) {
+            eventPublisher.publishEvent(new BookReturned(record.getId(), record.getUser().getId(),
+                    record.getBook().getId(), returnDate, fines.get(record.getId()), true));
+        }
+        return results;
+    }
+
+    // Oldest open loan of an ISBN not already being returned by this batch
+    private static BorrowRecord nextOpenLoan(Deque<BorrowRecord> openLoans, Map<Long, BorrowRecord> toReturn) {
+        if (openLoans == null) {
+            return null;
+        }
+        while (!openLoans.isEmpty() && toReturn.containsKey(openLoans.peekFirst().getId())) {
+            openLoans.pollFirst();
+        }
+        return openLoans.pollFirst();
+    }
+
+    /**
+     * Close the given loans, in id order so concurrent batches lock them in the same order;
+     * returns the ids this call closed, leaving out loans that were already returned
+     */
+    private Set<Long> closeLoans(Collection<Long> borrowIds, LocalDate returnDate) {
+        List<Long> ids = new ArrayList<>(new TreeSet<>(borrowIds));
+        int[][] counts = jdbcTemplate.batchUpdate(CLOSE_LOAN_SQL, ids, ids.size(), (ps, id) -> {
+            ps.setDate(1, Date.valueOf(returnDate));
+            ps.setString(2, BorrowStatus.RETURNED.name());
+            ps.setLong(3, id);
+        });
+        Set<Long> closed = new HashSet<>();
+        int i = 0;
+        for (int[] batch : counts) {
+            for (int count : batch) {
+                if (count > 0) {
+                    closed.add(ids.get(i));
+                }
+                i++;
+            }
+        }
+        return closed;
+    }
+
+    private record ReturnItem(Object item, BorrowRecord record, String error) {
+    }
+
     @Transactional
     public BorrowRecord extendBorrow(Long borrowId) {
         BorrowRecord record = borrowRepository.findById(borrowId)
@@ -133,15 +430,20 @@ public class BorrowService {
         return borrowRepository.save(record);
     }
 
-    public List<BorrowRecord> getBorrowedBooksByUser(Long userId) {
-        return borrowRepository.findByUserId(userId);
+    public BorrowDTO getBorrow(Long borrowId) {
+        return borrowRepository.findDTOById(borrowId)
+                .orElseThrow(() -> new NotFoundException("Borrow record not found with id: " + borrowId));
+    }
+
+    public List<BorrowDTO> getBorrowedBooksByUser(Long userId) {
+        return borrowRepository.findDTOsByUserId(userId);
     }
 
-    public List<BorrowRecord> getOverdueBooks() {
-        return borrowRepository.findByDueDateBeforeAndReturnDateIsNull(LocalDate.now());
+    public List<BorrowDTO> getOverdueBooks() {
+        return borrowRepository.findOverdueDTOs(LocalDate.now(), listingLimits.firstPage());
     }
 
-    public List<BorrowRecord> getAllBorrows() {
-        return borrowRepository.findAll();
+    public List<BorrowDTO> getAllBorrows() {
+        return borrowRepository.findAllDTOs(listingLimits.firstPage());
     }
 }
@@ -0,0 +1,37 @@
+package com.example.Library.Management.ITITIU22124.service;
+
+import com.example.Library.Management.ITITIU22124.model.Book;
+import com.example.Library.Management.ITITIU22124.repository.BookRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Reads the books table once at startup and hands it to every CatalogListener,
+ * so the in-memory indexes share a single full scan.
+ */
+@Component
+@Slf4j
+public class CatalogIndexLoader {
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private List<CatalogListener> catalogListeners;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reload() {
+        long start = System.currentTimeMillis();
+        List<Book> books = bookRepository.findAll();
+        for (CatalogListener listener : catalogListeners) {
+            listener.catalogLoaded(books);
+        }
+        log.info("Loaded {} books into {} catalog indexes in {} ms",
+                books.size(), catalogListeners.size(), System.currentTimeMillis() - start);
+    }
+}
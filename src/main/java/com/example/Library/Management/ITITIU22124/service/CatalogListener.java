@@ -0,0 +1,36 @@
+package com.example.Library.Management.ITITIU22124.service;
+
+import com.example.Library.Management.ITITIU22124.model.Book;
+
+import java.util.List;
+
+/**
+ * In-memory view of the catalog that BookService keeps current.
+ * Implementations are loaded once at startup by CatalogIndexLoader and then
+ * receive every committed book change.
+ */
+public interface CatalogListener {
+
+    /**
+     * Replace the whole view with the given books
+     */
+    void catalogLoaded(List<Book> books);
+
+    /**
+     * A book was added or one of its fields changed
+     */
+    void bookSaved(Book book);
+
+    /**
+     * A book was removed from the catalog
+     */
+    void bookDeleted(Long bookId);
+
+    /**
+     * Ledger mode: a checkout or return moved the book's available copies. Only the id is
+     * passed; these callbacks run in commit order, not in the order the counter moved, so
+     * views that keep the count read InventoryLedger.available when they apply it.
+     */
+    default void copiesChanged(Long bookId) {
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.Library.Management.ITITIU22124.service;
+
+import com.example.Library.Management.ITITIU22124.model.Book;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counter bumped on every committed catalog change. Together with the startup
+ * epoch it identifies one state of the catalog and is used to build ETags.
+ */
+@Component
+public class CatalogVersion implements CatalogListener {
+
+    private final long epoch = System.currentTimeMillis();
+
+    private final AtomicLong version = new AtomicLong();
+
+    public long current() {
+        return version.get();
+    }
+
+    public long getEpoch() {
+        return epoch;
+    }
+
+    /**
+     * Mark data derived from the catalog (e.g. popularity rankings) as changed
+     */
+    public void bump() {
+        version.incrementAndGet();
+    }
+
+    @Override
+    public void catalogLoaded(List<Book> books) {
+        bump();
+    }
+
+    @Override
+    public void bookSaved(Book book) {
+        bump();
+    }
+
+    @Override
+    public void bookDeleted(Long bookId) {
+        bump();
+    }
+
+    @Override
+    public void copiesChanged(Long bookId) {
+        bump();
+    }
+}
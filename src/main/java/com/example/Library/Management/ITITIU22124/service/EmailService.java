@@ -1,5 +1,8 @@
 package com.example.Library.Management.ITITIU22124.service;
 
+import com.example.Library.Management.ITITIU22124.model.OutboxMessage;
+import com.example.Library.Management.ITITIU22124.model.OutboxStatus;
+import com.example.Library.Management.ITITIU22124.repository.OutboxRepository;
 import jakarta.mail.MessagingException;
 import jakarta.mail.internet.MimeMessage;
 import lombok.RequiredArgsConstructor;
@@ -7,22 +10,34 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.thymeleaf.TemplateEngine;
 import org.thymeleaf.context.Context;
+import tools.jackson.core.type.TypeReference;
+import tools.jackson.databind.ObjectMapper;
 
+import java.io.UnsupportedEncodingException;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.Map;
 
+/**
+ * Notification emails. The send* helpers only write an outbox row, in the caller's
+ * transaction if there is one; OutboxDispatcher renders and sends it after commit.
+ */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class EmailService {
 
+    private static final TypeReference<Map<String, Object>> VARIABLES_TYPE = new TypeReference<>() {
+    };
+
     private final JavaMailSender mailSender;
     private final TemplateEngine templateEngine;
+    private final OutboxRepository outboxRepository;
+    private final ObjectMapper objectMapper;
 
     @Value("${library.email.enabled:true}")
     private boolean emailEnabled;
@@ -34,37 +49,53 @@ public class EmailService {
     private String fromAddress;
 
     /**
-     * Send an HTML email using a Thymeleaf template
+     * Queue an HTML email for delivery after the current transaction commits
      */
-    @Async
-    public void sendHtmlEmail(String to, String subject, String templateName, Map<String, Object> variables) {
+    public void enqueue(String to, String subject, String templateName, Map<String, Object> variables) {
         if (!emailEnabled) {
             log.debug("Email notifications disabled. Would have sent '{}' to {}", subject, to);
             return;
         }
 
-        try {
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
-
-            // Process template
-            Context context = new Context();
-            context.setVariables(variables);
-            String htmlContent = templateEngine.process(templateName, context);
-
-            helper.setFrom(fromAddress, fromName);
-            helper.setTo(to);
-            helper.setSubject(subject);
-            helper.setText(htmlContent, true);
+        OutboxMessage message = new OutboxMessage();
+        message.setRecipient(to);
+        message.setSubject(subject.length() > 255 ? subject.substring(0, 252) + "..." : subject);
+        message.setTemplate(templateName);
+        message.setPayload(objectMapper.writeValueAsString(variables));
+        message.setStatus(OutboxStatus.PENDING);
+        message.setNextAttemptAt(LocalDateTime.now());
+        message.setCreatedAt(LocalDateTime.now());
+        outboxRepository.save(message);
+    }
 
-            mailSender.send(message);
-            log.info("Email sent successfully to {} with subject: {}", to, subject);
+    /**
+     * Render and send a queued email; throws when the mail server does not accept it
+     */
+    public void deliver(OutboxMessage message) throws MessagingException, UnsupportedEncodingException {
+        sendHtmlEmail(message.getRecipient(), message.getSubject(), message.getTemplate(),
+                objectMapper.readValue(message.getPayload(), VARIABLES_TYPE));
+    }
 
-        } catch (MessagingException e) {
-            log.error("Failed to send email to {}: {}", to, e.getMessage());
-        } catch (Exception e) {
-            log.error("Unexpected error sending email to {}: {}", to, e.getMessage());
-        }
+    /**
+     * Send an HTML email using a Thymeleaf template, synchronously
+     */
+    private void sendHtmlEmail(String to, String subject, String templateName, Map<String, Object> variables)
+            throws MessagingException, UnsupportedEncodingException {
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
+
+        // Process template
+        Context context = new Context();
+        context.setVariables(variables);
+        String htmlContent = templateEngine.process(templateName, context);
+
+        helper.setFrom(fromAddress, fromName);
+        helper.setTo(to);
+        helper.setSubject(subject);
+        helper.setText(htmlContent, true);
+
+        mailSender.send(message);
+        log.info("Email sent successfully to {} with subject: {}", to, subject);
     }
 
     /**
@@ -80,7 +111,7 @@ public class EmailService {
                 "daysUntilDue", daysUntilDue);
 
         String subject = "📚 Reminder: \"" + bookTitle + "\" is due in " + daysUntilDue + " day(s)";
-        sendHtmlEmail(toEmail, subject, "email/due-reminder", variables);
+        enqueue(toEmail, subject, "email/due-reminder", variables);
     }
 
     /**
@@ -96,7 +127,7 @@ public class EmailService {
                 "daysOverdue", daysOverdue);
 
         String subject = "⚠️ OVERDUE: \"" + bookTitle + "\" is " + daysOverdue + " day(s) overdue";
-        sendHtmlEmail(toEmail, subject, "email/overdue-alert", variables);
+        enqueue(toEmail, subject, "email/overdue-alert", variables);
     }
 
     /**
@@ -111,7 +142,7 @@ public class EmailService {
                 "expiryDate", expiryDate.format(DateTimeFormatter.ofPattern("MMMM d, yyyy")));
 
         String subject = "🎉 Good news! \"" + bookTitle + "\" is ready for pickup";
-        sendHtmlEmail(toEmail, subject, "email/reservation-ready", variables);
+        enqueue(toEmail, subject, "email/reservation-ready", variables);
     }
 
     /**
@@ -127,7 +158,7 @@ public class EmailService {
                 "dueDate", dueDate.format(DateTimeFormatter.ofPattern("MMMM d, yyyy")));
 
         String subject = "📖 Book borrowed: \"" + bookTitle + "\"";
-        sendHtmlEmail(toEmail, subject, "email/borrow-confirmation", variables);
+        enqueue(toEmail, subject, "email/borrow-confirmation", variables);
     }
 
     /**
@@ -145,6 +176,6 @@ public class EmailService {
         String subject = hadFine
                 ? "📕 Book returned with fine: \"" + bookTitle + "\""
                 : "📕 Book returned: \"" + bookTitle + "\"";
-        sendHtmlEmail(toEmail, subject, "email/return-confirmation", variables);
+        enqueue(toEmail, subject, "email/return-confirmation", variables);
     }
 }
@@ -0,0 +1,246 @@
+package com.example.Library.Management.ITITIU22124.service;
+
+import com.example.Library.Management.ITITIU22124.exception.ConflictException;
+import com.example.Library.Management.ITITIU22124.repository.BorrowRepository;
+import com.example.Library.Management.ITITIU22124.service.FineService.OpenLoan;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Nightly accrual of running fines on loans that are still out, so balances grow
+ * before the book comes back. Open overdue loans are read in keyset chunks by id;
+ * each wave of chunks is upserted in parallel, one transaction per chunk, and the
+ * last id of a finished wave is checkpointed in job_checkpoints. A run that dies
+ * resumes after that id, and a wave that is repeated just upserts the same amounts.
+ * A lease on the checkpoint row keeps two instances from running the job at once.
+ * Manual runs are started on the job's own thread, so the admin request returns at once.
+ */
+@Service
+@Slf4j
+public class FineAccrualJob {
+
+    static final String JOB_NAME = "fine-accrual";
+
+    @Autowired
+    private BorrowRepository borrowRepository;
+
+    @Autowired
+    private FineService fineService;
+
+    @Autowired
+    private PatronSummaryCache patronSummaries;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${library.fine.accrual.enabled:true}")
+    private boolean enabled;
+
+    @Value("${library.fine.accrual.chunk-size:5000}")
+    private int chunkSize;
+
+    @Value("${library.fine.accrual.parallelism:4}")
+    private int parallelism;
+
+    @Value("${library.fine.accrual.lease-ms:600000}")
+    private long leaseMs;
+
+    private final String instanceId = UUID.randomUUID().toString();
+
+    // Manual runs; the nightly run uses its scheduler thread
+    private final ExecutorService runner = Executors.newSingleThreadExecutor(r -> new Thread(r, "fine-accrual"));
+
+    @Scheduled(cron = "${library.fine.accrual.cron:0 15 1 * * ?}")
+    public void runNightly() {
+        if (!enabled) {
+            return;
+        }
+        if (!claim()) {
+            log.info("Fine accrual skipped: already running");
+            return;
+        }
+        accrue(LocalDate.now());
+    }
+
+    /**
+     * Start today's accrual in the background, resuming today's run if it was interrupted.
+     * Throws ConflictException when a run already holds the lease.
+     */
+    public void start() {
+        if (!claim()) {
+            throw new ConflictException("Fine accrual is already running");
+        }
+        LocalDate today = LocalDate.now();
+        try {
+            runner.execute(() -> {
+                try {
+                    accrue(today);
+                } catch (RuntimeException e) {
+                    log.error("Fine accrual for {} failed", today, e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            release();
+            throw e;
+        }
+    }
+
+    /**
+     * Progress of the latest run, from the checkpoint row
+     */
+    public Map<String, Object> status() {
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList("SELECT run_date, processed, started_at, "
+                + "completed_at, locked_until FROM job_checkpoints WHERE job_name = ?", JOB_NAME);
+        return rows.isEmpty() ? Map.of() : rows.get(0);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        runner.shutdownNow();
+    }
+
+    /**
+     * Accrue fines as of the given day under a lease the caller has claimed; releases it
+     * when done. Returns the number of loans processed by this call.
+     */
+    private long accrue(LocalDate today) {
+        long start = System.currentTimeMillis();
+        long processedBefore = 0;
+        long processed = 0;
+        boolean completed = false;
+        ExecutorService workers = Executors.newFixedThreadPool(parallelism);
+        try {
+            Map<String, Object> checkpoint = jdbcTemplate.queryForMap(
+                    "SELECT run_date, last_id, processed, completed_at FROM job_checkpoints WHERE job_name = ?",
+                    JOB_NAME);
+            long lastId = 0;
+            if (today.equals(((Date) checkpoint.get("run_date")).toLocalDate())) {
+                if (checkpoint.get("completed_at") != null) {
+                    completed = true;
+                    log.info("Fine accrual for {} already completed", today);
+                    return 0;
+                }
+                lastId = ((Number) checkpoint.get("last_id")).longValue();
+                processedBefore = ((Number) checkpoint.get("processed")).longValue();
+                log.info("Fine accrual for {} resuming after borrow record {}", today, lastId);
+            } else {
+                jdbcTemplate.update("UPDATE job_checkpoints SET run_date = ?, last_id = 0, processed = 0, "
+                        + "started_at = ?, completed_at = NULL WHERE job_name = ?",
+                        Date.valueOf(today), Timestamp.valueOf(LocalDateTime.now()), JOB_NAME);
+            }
+
+            while (true) {
+                // Read a wave of chunks, then upsert them side by side
+                List<List<OpenLoan>> wave = new ArrayList<>(parallelism);
+                long waveLastId = lastId;
+                while (wave.size() < parallelism) {
+                    List<OpenLoan> chunk = readChunk(waveLastId, today);
+                    if (chunk.isEmpty()) {
+                        break;
+                    }
+                    wave.add(chunk);
+                    waveLastId = chunk.get(chunk.size() - 1).borrowRecordId();
+                    if (chunk.size() < chunkSize) {
+                        break;
+                    }
+                }
+                if (wave.isEmpty()) {
+                    break;
+                }
+
+                List<Future<Integer>> results = new ArrayList<>(wave.size());
+                for (List<OpenLoan> chunk : wave) {
+                    results.add(workers.submit(() -> fineService.accrueFines(chunk, today)));
+                }
+                Set<Long> userIds = new HashSet<>();
+                for (int i = 0; i < wave.size(); i++) {
+                    results.get(i).get();
+                    processed += wave.get(i).size();
+                    wave.get(i).forEach(loan -> userIds.add(loan.userId()));
+                }
+                // Balances changed behind the events the patron summaries listen to
+                patronSummaries.invalidate(userIds);
+
+                lastId = waveLastId;
+                if (!checkpoint(lastId, processedBefore + processed)) {
+                    log.warn("Fine accrual lost its lease after borrow record {}; stopping", lastId);
+                    return processed;
+                }
+            }
+
+            jdbcTemplate.update("UPDATE job_checkpoints SET completed_at = ? WHERE job_name = ?",
+                    Timestamp.valueOf(LocalDateTime.now()), JOB_NAME);
+            completed = true;
+            log.info("Fine accrual for {} finished: {} open overdue loans in {} ms",
+                    today, processedBefore + processed, System.currentTimeMillis() - start);
+            return processed;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Fine accrual interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Fine accrual failed; it will resume from the last checkpoint",
+                    e.getCause());
+        } finally {
+            workers.shutdownNow();
+            release();
+            if (!completed) {
+                log.info("Fine accrual for {} stopped after {} loans", today, processedBefore + processed);
+            }
+        }
+    }
+
+    private List<OpenLoan> readChunk(long afterId, LocalDate today) {
+        List<OpenLoan> chunk = new ArrayList<>(chunkSize);
+        for (Object[] row : borrowRepository.findOverdueLoanChunk(afterId, today, PageRequest.ofSize(chunkSize))) {
+            chunk.add(new OpenLoan((Long) row[0], (Long) row[1], (LocalDate) row[2]));
+        }
+        return chunk;
+    }
+
+    // Take the lease on the checkpoint row, creating the row on the first run
+    private boolean claim() {
+        LocalDateTime now = LocalDateTime.now();
+        jdbcTemplate.update("INSERT IGNORE INTO job_checkpoints (job_name, run_date, last_id, processed) "
+                + "VALUES (?, ?, 0, 0)", JOB_NAME, Date.valueOf(LocalDate.now().minusDays(1)));
+        return jdbcTemplate.update("UPDATE job_checkpoints SET locked_by = ?, locked_until = ? "
+                + "WHERE job_name = ? AND (locked_until IS NULL OR locked_until < ?)",
+                instanceId, Timestamp.valueOf(now.plus(Duration.ofMillis(leaseMs))), JOB_NAME,
+                Timestamp.valueOf(now)) == 1;
+    }
+
+    // Record progress and extend the lease; false if another instance has taken it over
+    private boolean checkpoint(long lastId, long processed) {
+        LocalDateTime leaseUntil = LocalDateTime.now().plus(Duration.ofMillis(leaseMs));
+        return jdbcTemplate.update("UPDATE job_checkpoints SET last_id = ?, processed = ?, locked_until = ? "
+                + "WHERE job_name = ? AND locked_by = ?",
+                lastId, processed, Timestamp.valueOf(leaseUntil), JOB_NAME, instanceId) == 1;
+    }
+
+    private void release() {
+        jdbcTemplate.update("UPDATE job_checkpoints SET locked_by = NULL, locked_until = NULL "
+                + "WHERE job_name = ? AND locked_by = ?", JOB_NAME, instanceId);
+    }
+}
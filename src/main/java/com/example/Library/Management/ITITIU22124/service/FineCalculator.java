@@ -0,0 +1,95 @@
+package com.example.Library.Management.ITITIU22124.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Fine arithmetic on whole cents and epoch days, so working out a fine allocates
+ * nothing; amounts become BigDecimal only where they leave the calculator. The
+ * configured rate and cap must be whole cents, which makes the result exactly
+ * rate times days capped at the maximum, with no rounding step.
+ */
+@Component
+public class FineCalculator {
+
+    private final BigDecimal dailyRate;
+    private final BigDecimal maxAmount;
+    private final long dailyRateCents;
+    private final long maxAmountCents;
+    private final int gracePeriodDays;
+
+    public FineCalculator(@Value("${library.fine.daily-rate:0.50}") BigDecimal dailyRate,
+            @Value("${library.fine.max-amount:25.00}") BigDecimal maxAmount,
+            @Value("${library.fine.grace-period:0}") int gracePeriodDays) {
+        if (gracePeriodDays < 0) {
+            throw new IllegalStateException("library.fine.grace-period must not be negative");
+        }
+        this.dailyRateCents = toCents(dailyRate, "library.fine.daily-rate");
+        this.maxAmountCents = toCents(maxAmount, "library.fine.max-amount");
+        this.dailyRate = toAmount(dailyRateCents);
+        this.maxAmount = toAmount(maxAmountCents);
+        this.gracePeriodDays = gracePeriodDays;
+    }
+
+    /**
+     * Days past the due date and the grace period; zero or less when not overdue
+     */
+    public long daysOverdue(long dueEpochDay, long returnEpochDay) {
+        return returnEpochDay - dueEpochDay - gracePeriodDays;
+    }
+
+    public long daysOverdue(LocalDate dueDate, LocalDate returnDate) {
+        return daysOverdue(dueDate.toEpochDay(), returnDate.toEpochDay());
+    }
+
+    /**
+     * Daily rate times days overdue, capped at the maximum fine
+     */
+    public long fineCents(long daysOverdue) {
+        if (daysOverdue <= 0) {
+            return 0;
+        }
+        // Compared by division so a long overdue period cannot overflow the product
+        if (isCapped(daysOverdue)) {
+            return maxAmountCents;
+        }
+        return dailyRateCents * daysOverdue;
+    }
+
+    /**
+     * Whether rate times days goes past the cap
+     */
+    public boolean isCapped(long daysOverdue) {
+        return dailyRateCents > 0 && daysOverdue > maxAmountCents / dailyRateCents;
+    }
+
+    public BigDecimal fineAmount(long daysOverdue) {
+        return toAmount(fineCents(daysOverdue));
+    }
+
+    public BigDecimal getDailyRate() {
+        return dailyRate;
+    }
+
+    public BigDecimal getMaxAmount() {
+        return maxAmount;
+    }
+
+    public int getGracePeriodDays() {
+        return gracePeriodDays;
+    }
+
+    public static BigDecimal toAmount(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+
+    private static long toCents(BigDecimal amount, String property) {
+        if (amount.signum() < 0 || amount.stripTrailingZeros().scale() > 2) {
+            throw new IllegalStateException(property + " must be a non-negative amount in whole cents: " + amount);
+        }
+        return amount.movePointRight(2).longValueExact();
+    }
+}
@@ -0,0 +1,201 @@
+package com.example.Library.Management.ITITIU22124.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Append-only record of every change to what a user owes, plus a per-user balance
+ * row updated in the same transaction. Balance reads are a primary-key lookup
+ * instead of a SUM over the user's fines. Entries are signed: assessments and
+ * upward adjustments add to the balance, payments and waivers subtract.
+ */
+@Component
+public class FineLedger {
+
+    public enum EntryType { ASSESSMENT, PAYMENT, WAIVER, ADJUSTMENT }
+
+    private static final String INSERT_ENTRY_SQL = "INSERT INTO fine_ledger "
+            + "(user_id, fine_id, entry_type, amount, created_at) VALUES (?, ?, ?, ?, ?)";
+
+    private static final String UPSERT_BALANCE_SQL = "INSERT INTO user_fine_balances "
+            + "(user_id, balance, unpaid_count, updated_at) VALUES (?, ?, ?, ?) "
+            + "ON DUPLICATE KEY UPDATE balance = balance + VALUES(balance), "
+            + "unpaid_count = unpaid_count + VALUES(unpaid_count), updated_at = VALUES(updated_at)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Append one entry and apply it to the user's balance. Must run inside the
+     * transaction that changes the fine itself.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(Entry entry) {
+        recordAll(List.of(entry));
+    }
+
+    /**
+     * Append entries with one JDBC batch, then apply one balance change per user
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordAll(List<Entry> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>(entries.size());
+        // Sorted by user id so concurrent batches lock balance rows in the same order
+        Map<Long, BalanceChange> changes = new TreeMap<>();
+        for (Entry entry : entries) {
+            rows.add(new Object[] { entry.userId(), entry.fineId(), entry.type().name(), entry.amount(), now });
+            BalanceChange change = changes.computeIfAbsent(entry.userId(), k -> new BalanceChange());
+            change.amount = change.amount.add(entry.amount());
+            change.unpaidCount += entry.unpaidCountDelta();
+        }
+        jdbcTemplate.batchUpdate(INSERT_ENTRY_SQL, rows);
+        applyBalances(changes, now);
+    }
+
+    /**
+     * Bring the ledger in step with the fines of these borrow records once the caller has
+     * written them: an assessment for each fine not yet in the ledger, and an adjustment for
+     * each whose amount moved since it was last recorded. The entries are taken from the
+     * locked rows rather than from what the caller read before writing, so a return and an
+     * accrual run touching the same fine count each change once. Returns what was recorded.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public List<Recorded> recordFines(Collection<Long> borrowRecordIds) {
+        if (borrowRecordIds.isEmpty()) {
+            return List.of();
+        }
+        String placeholders = String.join(",", Collections.nCopies(borrowRecordIds.size(), "?"));
+        List<Recorded> recorded = jdbcTemplate.query("SELECT id, borrow_record_id, user_id, amount, "
+                + "recorded_amount, days_overdue FROM fines WHERE borrow_record_id IN (" + placeholders + ") "
+                + "AND (recorded_amount IS NULL OR recorded_amount <> amount) ORDER BY id FOR UPDATE",
+                (rs, rowNum) -> {
+                    BigDecimal amount = rs.getBigDecimal(4);
+                    BigDecimal previous = rs.getBigDecimal(5);
+                    return new Recorded(rs.getLong(1), rs.getLong(2), rs.getLong(3),
+                            previous == null ? amount : amount.subtract(previous), rs.getInt(6), previous == null);
+                }, borrowRecordIds.toArray());
+        if (recorded.isEmpty()) {
+            return recorded;
+        }
+
+        List<Entry> entries = new ArrayList<>(recorded.size());
+        List<Object[]> fineIds = new ArrayList<>(recorded.size());
+        for (Recorded fine : recorded) {
+            entries.add(fine.assessed()
+                    ? Entry.assessment(fine.userId(), fine.fineId(), fine.increase())
+                    : Entry.adjustment(fine.userId(), fine.fineId(), fine.increase()));
+            fineIds.add(new Object[] { fine.fineId() });
+        }
+        recordAll(entries);
+        jdbcTemplate.batchUpdate("UPDATE fines SET recorded_amount = amount WHERE id = ?", fineIds);
+        return recorded;
+    }
+
+    /**
+     * Settle every fine matching a condition on the fines table (which must limit it to
+     * unpaid fines): one entry per fine through INSERT ... SELECT, and one balance change
+     * per user. The matching fines are locked first, so an UPDATE with the same condition
+     * in the caller's transaction sees exactly these rows. Returns the amount settled per user.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Map<Long, BigDecimal> settleWhere(EntryType type, String condition, List<Object> params) {
+        Map<Long, BalanceChange> changes = new TreeMap<>();
+        Map<Long, BigDecimal> settled = new TreeMap<>();
+        jdbcTemplate.query("SELECT user_id, COUNT(*), SUM(amount - amount_paid) FROM fines WHERE " + condition
+                + " GROUP BY user_id FOR UPDATE", rs -> {
+                    BalanceChange change = new BalanceChange();
+                    change.unpaidCount = -rs.getInt(2);
+                    change.amount = rs.getBigDecimal(3).negate();
+                    changes.put(rs.getLong(1), change);
+                    settled.put(rs.getLong(1), rs.getBigDecimal(3));
+                }, params.toArray());
+        if (changes.isEmpty()) {
+            return settled;
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object> insertParams = new ArrayList<>(params.size() + 2);
+        insertParams.add(type.name());
+        insertParams.add(now);
+        insertParams.addAll(params);
+        jdbcTemplate.update("INSERT INTO fine_ledger (user_id, fine_id, entry_type, amount, created_at) "
+                + "SELECT user_id, id, ?, amount_paid - amount, ? FROM fines WHERE " + condition,
+                insertParams.toArray());
+        applyBalances(changes, now);
+        return settled;
+    }
+
+    private void applyBalances(Map<Long, BalanceChange> changes, Timestamp now) {
+        List<Object[]> balances = new ArrayList<>(changes.size());
+        for (Map.Entry<Long, BalanceChange> change : changes.entrySet()) {
+            balances.add(new Object[] { change.getKey(), change.getValue().amount, change.getValue().unpaidCount,
+                    now });
+        }
+        jdbcTemplate.batchUpdate(UPSERT_BALANCE_SQL, balances);
+    }
+
+    /**
+     * Outstanding amount and number of unpaid fines; zero for users who were never fined
+     */
+    public Balance balance(Long userId) {
+        List<Balance> rows = jdbcTemplate.query(
+                "SELECT balance, unpaid_count FROM user_fine_balances WHERE user_id = ?",
+                (rs, rowNum) -> new Balance(rs.getBigDecimal(1), rs.getLong(2)), userId);
+        return rows.isEmpty() ? new Balance(BigDecimal.ZERO, 0) : rows.get(0);
+    }
+
+    /**
+     * One ledger line. unpaidCountDelta is +1 when a fine is assessed and -1 when it
+     * is settled (fully paid or waived), 0 otherwise.
+     */
+    public record Entry(Long userId, Long fineId, EntryType type, BigDecimal amount, int unpaidCountDelta) {
+
+        public static Entry assessment(Long userId, Long fineId, BigDecimal amount) {
+            return new Entry(userId, fineId, EntryType.ASSESSMENT, amount, 1);
+        }
+
+        public static Entry adjustment(Long userId, Long fineId, BigDecimal amount) {
+            return new Entry(userId, fineId, EntryType.ADJUSTMENT, amount, 0);
+        }
+
+        public static Entry payment(Long userId, Long fineId, BigDecimal amount, boolean settles) {
+            return new Entry(userId, fineId, EntryType.PAYMENT, amount.negate(), settles ? -1 : 0);
+        }
+
+        public static Entry waiver(Long userId, Long fineId, BigDecimal amount) {
+            return new Entry(userId, fineId, EntryType.WAIVER, amount.negate(), -1);
+        }
+    }
+
+    public record Balance(BigDecimal amount, long unpaidCount) {
+    }
+
+    /**
+     * A fine change written to the ledger: the whole amount when assessed, else the difference
+     */
+    public record Recorded(Long fineId, Long borrowRecordId, Long userId, BigDecimal increase, int daysOverdue,
+            boolean assessed) {
+    }
+
+    private static final class BalanceChange {
+        private BigDecimal amount = BigDecimal.ZERO;
+        private int unpaidCount;
+    }
+}
@@ -1,65 +1,92 @@
 package com.example.Library.Management.ITITIU22124.service;
 
+import com.example.Library.Management.ITITIU22124.config.ListingLimits;
+import com.example.Library.Management.ITITIU22124.dto.BulkFineResult;
+import com.example.Library.Management.ITITIU22124.dto.FineDTO;
+import com.example.Library.Management.ITITIU22124.dto.FineWaiverRequest;
+import com.example.Library.Management.ITITIU22124.event.FineAssessed;
+import com.example.Library.Management.ITITIU22124.event.FineSettled;
 import com.example.Library.Management.ITITIU22124.exception.BadRequestException;
 import com.example.Library.Management.ITITIU22124.exception.NotFoundException;
 import com.example.Library.Management.ITITIU22124.model.*;
 import com.example.Library.Management.ITITIU22124.repository.FineRepository;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
 public class FineService {
 
+    // Insert a fine, or bring a running one (unpaid, book not yet returned) up to date. MySQL applies
+    // the assignments left to right, so return_date must stay last for the conditions to hold.
+    private static final String UPSERT_FINE_SQL = "INSERT INTO fines (user_id, borrow_record_id, amount, "
+            + "days_overdue, daily_rate, status, created_at, due_date, return_date) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?) "
+            + "ON DUPLICATE KEY UPDATE "
+            + "amount = IF(status = 'UNPAID' AND return_date IS NULL, VALUES(amount), amount), "
+            + "days_overdue = IF(status = 'UNPAID' AND return_date IS NULL, VALUES(days_overdue), days_overdue), "
+            + "daily_rate = IF(status = 'UNPAID' AND return_date IS NULL, VALUES(daily_rate), daily_rate), "
+            + "return_date = IF(status = 'UNPAID' AND return_date IS NULL, VALUES(return_date), return_date)";
+
     @Autowired
     private FineRepository fineRepository;
 
-    // Configurable fine rate (default: $0.50 per day)
-    @Value("${library.fine.daily-rate:0.50}")
-    private BigDecimal dailyFineRate;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private AuditLogService auditLogService;
 
-    // Maximum fine cap (default: $25.00)
-    @Value("${library.fine.max-amount:25.00}")
-    private BigDecimal maxFineAmount;
+    @Autowired
+    private FineLedger fineLedger;
 
-    // Grace period in days before fines start (default: 0)
-    @Value("${library.fine.grace-period:0}")
-    private int gracePeriodDays;
+    @Autowired
+    private AdminStatsService adminStatsService; // Aggregate snapshot behind getStatistics
+
+    @Autowired
+    private FineCalculator fineCalculator; // Rate, cap and grace period (library.fine.*)
+
+    @Autowired
+    private ListingLimits listingLimits;
 
     /**
-     * Calculate and create a fine for an overdue book return
+     * Calculate and create a fine for an overdue book return. A fine that accrued
+     * while the book was out is settled at its final amount instead.
      */
     @Transactional
     public Fine calculateAndCreateFine(BorrowRecord borrowRecord, LocalDate returnDate) {
-        // Check if fine already exists for this borrow record
-        if (fineRepository.existsByBorrowRecordId(borrowRecord.getId())) {
-            return fineRepository.findByBorrowRecordId(borrowRecord.getId()).orElse(null);
+        Optional<Fine> existing = fineRepository.findByBorrowRecordIdForUpdate(borrowRecord.getId());
+        if (existing.isPresent()) {
+            return settleAccruedFine(existing.get(), borrowRecord.getDueDate(), returnDate);
         }
 
         LocalDate dueDate = borrowRecord.getDueDate();
 
         // Calculate days overdue (accounting for grace period)
-        long daysOverdue = ChronoUnit.DAYS.between(dueDate, returnDate) - gracePeriodDays;
+        long daysOverdue = fineCalculator.daysOverdue(dueDate, returnDate);
 
         if (daysOverdue <= 0) {
             return null; // Not overdue or within grace period
         }
 
-        // Calculate fine amount
-        BigDecimal fineAmount = dailyFineRate.multiply(BigDecimal.valueOf(daysOverdue));
-
-        // Apply maximum cap
-        if (fineAmount.compareTo(maxFineAmount) > 0) {
-            fineAmount = maxFineAmount;
-        }
+        BigDecimal fineAmount = fineCalculator.fineAmount(daysOverdue);
 
         // Create fine record
         Fine fine = new Fine();
@@ -67,48 +94,156 @@ public class FineService {
         fine.setBorrowRecord(borrowRecord);
         fine.setAmount(fineAmount);
         fine.setDaysOverdue((int) daysOverdue);
-        fine.setDailyRate(dailyFineRate);
+        fine.setDailyRate(fineCalculator.getDailyRate());
         fine.setDueDate(dueDate);
         fine.setReturnDate(returnDate);
         fine.setStatus(FineStatus.UNPAID);
 
-        return fineRepository.save(fine);
+        Fine savedFine = fineRepository.saveAndFlush(fine);
+        publishAssessed(fineLedger.recordFines(List.of(borrowRecord.getId())));
+        return savedFine;
+    }
+
+    private Fine settleAccruedFine(Fine fine, LocalDate dueDate, LocalDate returnDate) {
+        if (fine.getStatus() != FineStatus.UNPAID || fine.getReturnDate() != null) {
+            return fine;
+        }
+        long daysOverdue = Math.max(fineCalculator.daysOverdue(dueDate, returnDate), 0);
+        fine.setAmount(fineCalculator.fineAmount(daysOverdue));
+        fine.setDaysOverdue((int) daysOverdue);
+        fine.setDailyRate(fineCalculator.getDailyRate());
+        fine.setReturnDate(returnDate);
+        fineRepository.flush();
+        publishAssessed(fineLedger.recordFines(List.of(fine.getBorrowRecord().getId())));
+        return fine;
+    }
+
+    /**
+     * Create the fines for a batch of returns: two queries for existing fines and one
+     * JDBC batch upsert. Fines accrued while the books were out are settled at their
+     * final amount; the ledger records whatever the upsert changed. Returns the fine
+     * amount per borrow record id that was fined.
+     */
+    @Transactional
+    public Map<Long, BigDecimal> createFines(List<BorrowRecord> borrowRecords, LocalDate returnDate) {
+        Map<Long, BigDecimal> amounts = new HashMap<>();
+        if (borrowRecords.isEmpty()) {
+            return amounts;
+        }
+        List<Long> borrowRecordIds = borrowRecords.stream().map(BorrowRecord::getId).toList();
+        Set<Long> alreadyFined = new HashSet<>(fineRepository.findFinedBorrowRecordIds(borrowRecordIds));
+        Map<Long, Accrued> accrued = findAccrued(borrowRecordIds);
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>();
+        for (BorrowRecord record : borrowRecords) {
+            long daysOverdue = fineCalculator.daysOverdue(record.getDueDate(), returnDate);
+            if (daysOverdue <= 0 || (alreadyFined.contains(record.getId()) && !accrued.containsKey(record.getId()))) {
+                continue;
+            }
+            BigDecimal amount = fineCalculator.fineAmount(daysOverdue);
+            amounts.put(record.getId(), amount);
+            rows.add(new Object[] { record.getUser().getId(), record.getId(), amount, (int) daysOverdue,
+                    fineCalculator.getDailyRate(), FineStatus.UNPAID.name(), now,
+                    Date.valueOf(record.getDueDate()), Date.valueOf(returnDate) });
+        }
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPSERT_FINE_SQL, rows);
+            publishAssessed(fineLedger.recordFines(amounts.keySet()));
+        }
+        return amounts;
+    }
+
+    /**
+     * Bring the running fines of a chunk of open loans up to date as of the given day,
+     * in one JDBC batch upsert. Fines already paid, waived or unchanged since the last
+     * run are not written; the ledger records whatever the upsert changed. Returns the
+     * number of fines written.
+     */
+    @Transactional
+    public int accrueFines(List<OpenLoan> loans, LocalDate asOf) {
+        List<Long> borrowRecordIds = loans.stream().map(OpenLoan::borrowRecordId).toList();
+        Set<Long> alreadyFined = new HashSet<>(fineRepository.findFinedBorrowRecordIds(borrowRecordIds));
+        Map<Long, Accrued> accrued = findAccrued(borrowRecordIds);
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>(loans.size());
+        List<Long> written = new ArrayList<>(loans.size());
+        long asOfDay = asOf.toEpochDay();
+        for (OpenLoan loan : loans) {
+            long daysOverdue = fineCalculator.daysOverdue(loan.dueDate().toEpochDay(), asOfDay);
+            Accrued running = accrued.get(loan.borrowRecordId());
+            if (daysOverdue <= 0 || (alreadyFined.contains(loan.borrowRecordId()) && running == null)) {
+                continue;
+            }
+            long cents = fineCalculator.fineCents(daysOverdue);
+            if (running != null && cents == running.amountCents()) {
+                continue; // Capped, or already accrued today
+            }
+            written.add(loan.borrowRecordId());
+            rows.add(new Object[] { loan.userId(), loan.borrowRecordId(), FineCalculator.toAmount(cents),
+                    (int) daysOverdue, fineCalculator.getDailyRate(), FineStatus.UNPAID.name(), now,
+                    Date.valueOf(loan.dueDate()), null });
+        }
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPSERT_FINE_SQL, rows);
+            // No FineAssessed events: the accrual job invalidates the patron summaries per wave
+            fineLedger.recordFines(written);
+        }
+        return rows.size();
+    }
+
+    private Map<Long, Accrued> findAccrued(List<Long> borrowRecordIds) {
+        Map<Long, Accrued> accrued = new HashMap<>();
+        for (Object[] row : fineRepository.findAccruedAmounts(borrowRecordIds)) {
+            accrued.put((Long) row[0], new Accrued((Long) row[1],
+                    ((BigDecimal) row[2]).movePointRight(2).longValueExact()));
+        }
+        return accrued;
+    }
+
+    private void publishAssessed(List<FineLedger.Recorded> recorded) {
+        for (FineLedger.Recorded fine : recorded) {
+            eventPublisher.publishEvent(new FineAssessed(fine.borrowRecordId(), fine.userId(), fine.increase(),
+                    fine.daysOverdue()));
+        }
     }
 
     /**
      * Get all fines for a user
      */
-    public List<Fine> getFinesByUser(Long userId) {
-        return fineRepository.findByUserId(userId);
+    public List<FineDTO> getFinesByUser(Long userId) {
+        return fineRepository.findDTOsByUserId(userId);
     }
 
     /**
      * Get unpaid fines for a user
      */
-    public List<Fine> getUnpaidFinesByUser(Long userId) {
-        return fineRepository.findByUserIdAndStatus(userId, FineStatus.UNPAID);
+    public List<FineDTO> getUnpaidFinesByUser(Long userId) {
+        return fineRepository.findDTOsByUserIdAndStatus(userId, FineStatus.UNPAID);
     }
 
     /**
      * Get total unpaid fine amount for a user
      */
     public BigDecimal getTotalUnpaidAmount(Long userId) {
-        return fineRepository.getTotalUnpaidFinesByUserId(userId);
+        return fineLedger.balance(userId).amount();
     }
 
     /**
      * Get count of unpaid fines for a user
      */
     public long getUnpaidFinesCount(Long userId) {
-        return fineRepository.countUnpaidFinesByUserId(userId);
+        return fineLedger.balance(userId).unpaidCount();
     }
 
     /**
-     * Pay a fine
+     * Pay a fine, in full or in part. Without an amount the outstanding rest is paid;
+     * the fine is marked paid once nothing is left.
      */
     @Transactional
-    public Fine payFine(Long fineId) {
-        Fine fine = fineRepository.findById(fineId)
+    public Fine payFine(Long fineId, BigDecimal amount) {
+        Fine fine = fineRepository.findByIdForUpdate(fineId)
                 .orElseThrow(() -> new NotFoundException("Fine not found with id: " + fineId));
 
         if (fine.getStatus() == FineStatus.PAID) {
@@ -119,62 +254,175 @@ public class FineService {
             throw new BadRequestException("Fine has been waived");
         }
 
-        fine.setStatus(FineStatus.PAID);
-        fine.setPaidAt(LocalDateTime.now());
-        return fineRepository.save(fine);
+        BigDecimal outstanding = fine.getAmount().subtract(fine.getAmountPaid());
+        BigDecimal payment = amount == null ? outstanding : amount;
+        if (payment.signum() <= 0 || payment.scale() > 2) {
+            throw new BadRequestException("Payment must be a positive amount with at most two decimals");
+        }
+        if (payment.compareTo(outstanding) > 0) {
+            throw new BadRequestException("Payment exceeds the outstanding amount of " + outstanding);
+        }
+
+        boolean settles = payment.compareTo(outstanding) == 0;
+        if (settles && fine.getReturnDate() == null) {
+            // Accrual only updates unpaid fines; settling now would stop the fine growing
+            throw new BadRequestException("Fine is still accruing while the book is out; "
+                    + "it can be paid in part now and settled once the book is returned");
+        }
+        fine.setAmountPaid(fine.getAmountPaid().add(payment));
+        if (settles) {
+            fine.setStatus(FineStatus.PAID);
+            fine.setPaidAt(LocalDateTime.now());
+        }
+        Fine savedFine = fineRepository.save(fine);
+        fineLedger.record(FineLedger.Entry.payment(fine.getUser().getId(), fine.getId(), payment, settles));
+        eventPublisher.publishEvent(new FineSettled(fine.getUser().getId(), payment));
+        return savedFine;
     }
 
     /**
-     * Pay all unpaid fines for a user
+     * Pay all unpaid fines for a user with one set-based UPDATE; returns what was settled.
+     * Fines still accruing on books that are out are left for after the return.
      */
     @Transactional
-    public List<Fine> payAllFines(Long userId) {
-        List<Fine> unpaidFines = fineRepository.findByUserIdAndStatus(userId, FineStatus.UNPAID);
-        LocalDateTime now = LocalDateTime.now();
+    public BulkFineResult payAllFines(Long userId, String performedBy) {
+        BulkFineResult result = settleAll(FineLedger.EntryType.PAYMENT,
+                "UPDATE fines SET amount_paid = amount, status = 'PAID', paid_at = ? WHERE ",
+                List.of(Timestamp.valueOf(LocalDateTime.now())),
+                "user_id = ? AND status = 'UNPAID' AND return_date IS NOT NULL", List.of(userId));
+        if (result.getFineCount() > 0) {
+            auditLogService.logAction("PAY_ALL_FINES", performedBy, "User " + userId + ": "
+                    + result.getFineCount() + " fines, " + result.getTotalAmount());
+        }
+        return result;
+    }
 
-        for (Fine fine : unpaidFines) {
-            fine.setStatus(FineStatus.PAID);
-            fine.setPaidAt(now);
+    /**
+     * Waive every unpaid fine matching the criteria (Admin only): by user, by the day
+     * the fine was assessed and below an outstanding amount. Whatever was already paid
+     * on those fines stays paid, and fines still accruing are skipped. One audit record
+     * covers the whole operation.
+     */
+    @Transactional
+    public BulkFineResult waiveFines(FineWaiverRequest criteria, String performedBy) {
+        StringBuilder condition = new StringBuilder("status = 'UNPAID' AND return_date IS NOT NULL");
+        List<Object> params = new ArrayList<>();
+        if (criteria.getUserId() != null) {
+            condition.append(" AND user_id = ?");
+            params.add(criteria.getUserId());
+        }
+        if (criteria.getFrom() != null) {
+            condition.append(" AND created_at >= ?");
+            params.add(Timestamp.valueOf(criteria.getFrom().atStartOfDay()));
+        }
+        if (criteria.getTo() != null) {
+            // Start of the following day, so the whole of the last day is included
+            condition.append(" AND created_at < ?");
+            params.add(Timestamp.valueOf(criteria.getTo().plusDays(1).atStartOfDay()));
+        }
+        if (criteria.getBelow() != null) {
+            if (criteria.getBelow().signum() <= 0) {
+                throw new BadRequestException("'below' must be a positive amount");
+            }
+            condition.append(" AND amount - amount_paid < ?");
+            params.add(criteria.getBelow());
+        }
+        if (params.isEmpty()) {
+            throw new BadRequestException("Give at least one of userId, from, to or below");
+        }
+        if (criteria.getFrom() != null && criteria.getTo() != null && criteria.getFrom().isAfter(criteria.getTo())) {
+            throw new BadRequestException("'from' must not be after 'to'");
         }
 
-        return fineRepository.saveAll(unpaidFines);
+        BulkFineResult result = settleAll(FineLedger.EntryType.WAIVER, "UPDATE fines SET status = 'WAIVED' WHERE ",
+                List.of(), condition.toString(), params);
+        auditLogService.logAction("WAIVE_FINES", performedBy, "Waived " + result.getFineCount() + " fines of "
+                + result.getUserCount() + " users, " + result.getTotalAmount() + " (" + describe(criteria) + ")");
+        return result;
+    }
+
+    // Ledger entries and balances first (this locks the rows), then the fines themselves
+    private BulkFineResult settleAll(FineLedger.EntryType type, String update, List<Object> updateParams,
+            String condition, List<Object> conditionParams) {
+        Map<Long, BigDecimal> settled = fineLedger.settleWhere(type, condition, conditionParams);
+        if (settled.isEmpty()) {
+            return new BulkFineResult(0, 0, BigDecimal.ZERO);
+        }
+        List<Object> params = new ArrayList<>(updateParams);
+        params.addAll(conditionParams);
+        int fines = jdbcTemplate.update(update + condition, params.toArray());
+
+        BigDecimal total = BigDecimal.ZERO;
+        for (Map.Entry<Long, BigDecimal> entry : settled.entrySet()) {
+            total = total.add(entry.getValue());
+            eventPublisher.publishEvent(new FineSettled(entry.getKey(), entry.getValue()));
+        }
+        return new BulkFineResult(fines, settled.size(), total);
+    }
+
+    private static String describe(FineWaiverRequest criteria) {
+        List<String> parts = new ArrayList<>();
+        if (criteria.getUserId() != null) {
+            parts.add("user " + criteria.getUserId());
+        }
+        if (criteria.getFrom() != null) {
+            parts.add("from " + criteria.getFrom());
+        }
+        if (criteria.getTo() != null) {
+            parts.add("to " + criteria.getTo());
+        }
+        if (criteria.getBelow() != null) {
+            parts.add("below " + criteria.getBelow());
+        }
+        return String.join(", ", parts);
     }
 
     /**
-     * Waive a fine (Admin only)
+     * Waive a fine (Admin only). Whatever was already paid stays paid; only the rest is waived.
      */
     @Transactional
     public Fine waiveFine(Long fineId) {
-        Fine fine = fineRepository.findById(fineId)
+        Fine fine = fineRepository.findByIdForUpdate(fineId)
                 .orElseThrow(() -> new NotFoundException("Fine not found with id: " + fineId));
 
         if (fine.getStatus() == FineStatus.PAID) {
             throw new BadRequestException("Cannot waive a paid fine");
         }
 
+        if (fine.getStatus() == FineStatus.UNPAID && fine.getReturnDate() == null) {
+            throw new BadRequestException("Fine is still accruing while the book is out; waive it after the return");
+        }
+
+        boolean wasUnpaid = fine.getStatus() == FineStatus.UNPAID;
         fine.setStatus(FineStatus.WAIVED);
-        return fineRepository.save(fine);
+        Fine savedFine = fineRepository.save(fine);
+        if (wasUnpaid) {
+            BigDecimal outstanding = fine.getAmount().subtract(fine.getAmountPaid());
+            fineLedger.record(FineLedger.Entry.waiver(fine.getUser().getId(), fine.getId(), outstanding));
+            eventPublisher.publishEvent(new FineSettled(fine.getUser().getId(), outstanding));
+        }
+        return savedFine;
     }
 
     /**
      * Get all fines (Admin)
      */
-    public List<Fine> getAllFines() {
-        return fineRepository.findAll();
+    public List<FineDTO> getAllFines() {
+        return fineRepository.findAllDTOs(listingLimits.firstPage());
     }
 
     /**
      * Get all unpaid fines (Admin)
      */
-    public List<Fine> getAllUnpaidFines() {
-        return fineRepository.findByStatus(FineStatus.UNPAID);
+    public List<FineDTO> getAllUnpaidFines() {
+        return fineRepository.findDTOsByStatus(FineStatus.UNPAID, listingLimits.firstPage());
     }
 
     /**
      * Get fine by ID
      */
-    public Fine getFineById(Long id) {
-        return fineRepository.findById(id)
+    public FineDTO getFineById(Long id) {
+        return fineRepository.findDTOById(id)
                 .orElseThrow(() -> new NotFoundException("Fine not found with id: " + id));
     }
 
@@ -183,13 +431,17 @@ public class FineService {
      */
     public FineStatistics getStatistics() {
         FineStatistics stats = new FineStatistics();
-        stats.setTotalUnpaidAmount(fineRepository.getTotalUnpaidFines());
-        stats.setTotalCollectedAmount(fineRepository.getTotalCollectedFines());
-        stats.setTotalUnpaidCount(fineRepository.findByStatus(FineStatus.UNPAID).size());
-        stats.setTotalPaidCount(fineRepository.findByStatus(FineStatus.PAID).size());
-        stats.setDailyRate(dailyFineRate);
-        stats.setMaxAmount(maxFineAmount);
-        stats.setGracePeriodDays(gracePeriodDays);
+        Map<FineStatus, AdminStatsService.FineTotals> totals = adminStatsService.getFineTotals();
+        AdminStatsService.FineTotals unpaid = totals.get(FineStatus.UNPAID);
+        stats.setTotalUnpaidAmount(unpaid.amount().subtract(unpaid.amountPaid()));
+        // Partial payments on unpaid and later waived fines count as collected too
+        stats.setTotalCollectedAmount(totals.values().stream()
+                .map(AdminStatsService.FineTotals::amountPaid).reduce(BigDecimal.ZERO, BigDecimal::add));
+        stats.setTotalUnpaidCount(Math.toIntExact(totals.get(FineStatus.UNPAID).count()));
+        stats.setTotalPaidCount(Math.toIntExact(totals.get(FineStatus.PAID).count()));
+        stats.setDailyRate(fineCalculator.getDailyRate());
+        stats.setMaxAmount(fineCalculator.getMaxAmount());
+        stats.setGracePeriodDays(fineCalculator.getGracePeriodDays());
         return stats;
     }
 
@@ -197,13 +449,13 @@ public class FineService {
      * Preview fine calculation without creating
      */
     public FinePreview previewFine(LocalDate dueDate, LocalDate returnDate) {
-        long daysOverdue = ChronoUnit.DAYS.between(dueDate, returnDate) - gracePeriodDays;
+        long daysOverdue = fineCalculator.daysOverdue(dueDate, returnDate);
 
         FinePreview preview = new FinePreview();
         preview.setDueDate(dueDate);
         preview.setReturnDate(returnDate);
-        preview.setDailyRate(dailyFineRate);
-        preview.setGracePeriodDays(gracePeriodDays);
+        preview.setDailyRate(fineCalculator.getDailyRate());
+        preview.setGracePeriodDays(fineCalculator.getGracePeriodDays());
 
         if (daysOverdue <= 0) {
             preview.setDaysOverdue(0);
@@ -211,12 +463,8 @@ public class FineService {
             preview.setOverdue(false);
         } else {
             preview.setDaysOverdue((int) daysOverdue);
-            BigDecimal amount = dailyFineRate.multiply(BigDecimal.valueOf(daysOverdue));
-            if (amount.compareTo(maxFineAmount) > 0) {
-                amount = maxFineAmount;
-                preview.setCapped(true);
-            }
-            preview.setAmount(amount);
+            preview.setAmount(fineCalculator.fineAmount(daysOverdue));
+            preview.setCapped(fineCalculator.isCapped(daysOverdue));
             preview.setOverdue(true);
         }
 
@@ -224,6 +472,12 @@ public class FineService {
     }
 
     // Inner classes for statistics and preview
+    public record OpenLoan(Long borrowRecordId, Long userId, LocalDate dueDate) {
+    }
+
+    private record Accrued(Long fineId, long amountCents) {
+    }
+
     public static class FineStatistics {
         private BigDecimal totalUnpaidAmount;
         private BigDecimal totalCollectedAmount;
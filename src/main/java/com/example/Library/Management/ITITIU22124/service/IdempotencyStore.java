@@ -0,0 +1,128 @@
+package com.example.Library.Management.ITITIU22124.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Responses of requests sent with an Idempotency-Key. Recent ones are held in a
+ * bounded in-memory cache, all of them in the idempotency_keys table until they
+ * expire. Requests still executing are tracked so a concurrent duplicate waits
+ * for the first one instead of running again.
+ */
+@Component
+@Slf4j
+public class IdempotencyStore {
+
+    private static final String INSERT_SQL = "INSERT IGNORE INTO idempotency_keys "
+            + "(scope_hash, request_hash, status_code, content_type, body, created_at, expires_at) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String SELECT_SQL = "SELECT request_hash, status_code, content_type, body "
+            + "FROM idempotency_keys WHERE scope_hash = ? AND expires_at > ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final Duration ttl;
+
+    private final Cache<String, StoredResponse> recent;
+
+    private final ConcurrentMap<String, CompletableFuture<StoredResponse>> inFlight = new ConcurrentHashMap<>();
+
+    public IdempotencyStore(JdbcTemplate jdbcTemplate,
+            @Value("${library.idempotency.ttl-hours:24}") long ttlHours,
+            @Value("${library.idempotency.max-entries:10000}") long maxEntries) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.ttl = Duration.ofHours(ttlHours);
+        this.recent = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    /**
+     * Stored response for this scope, from memory or the database
+     */
+    public Optional<StoredResponse> find(String scopeHash) {
+        StoredResponse cached = recent.getIfPresent(scopeHash);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        List<StoredResponse> rows = jdbcTemplate.query(SELECT_SQL,
+                (rs, rowNum) -> new StoredResponse(rs.getString("request_hash"), rs.getInt("status_code"),
+                        rs.getString("content_type"), rs.getBytes("body")),
+                scopeHash, Timestamp.valueOf(LocalDateTime.now()));
+        if (rows.isEmpty()) {
+            return Optional.empty();
+        }
+        recent.put(scopeHash, rows.get(0));
+        return Optional.of(rows.get(0));
+    }
+
+    /**
+     * Register this request as executing. Returns null if the caller now owns the key,
+     * or the pending result of the request that already does.
+     */
+    public CompletableFuture<StoredResponse> claim(String scopeHash) {
+        return inFlight.putIfAbsent(scopeHash, new CompletableFuture<>());
+    }
+
+    /**
+     * Record the outcome of an owned request and release waiting duplicates. The response
+     * is visible to find before the claim is released, so a request that claims the key
+     * afterwards and looks again will replay it instead of running twice.
+     */
+    public void complete(String scopeHash, StoredResponse response, boolean persist) {
+        if (persist) {
+            recent.put(scopeHash, response);
+            LocalDateTime now = LocalDateTime.now();
+            try {
+                jdbcTemplate.update(INSERT_SQL, scopeHash, response.requestHash(), response.status(),
+                        response.contentType(), response.body(), Timestamp.valueOf(now),
+                        Timestamp.valueOf(now.plus(ttl)));
+            } catch (RuntimeException e) {
+                // The in-memory copy still covers retries to this instance
+                log.warn("Could not persist idempotent response: {}", e.getMessage());
+            }
+        }
+        CompletableFuture<StoredResponse> pending = inFlight.remove(scopeHash);
+        if (pending != null) {
+            pending.complete(response);
+        }
+    }
+
+    /**
+     * Release waiting duplicates of an owned request that threw
+     */
+    public void fail(String scopeHash, Throwable error) {
+        CompletableFuture<StoredResponse> pending = inFlight.remove(scopeHash);
+        if (pending != null) {
+            pending.completeExceptionally(error);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${library.idempotency.purge-interval-ms:3600000}")
+    public void purgeExpired() {
+        int deleted = jdbcTemplate.update("DELETE FROM idempotency_keys WHERE expires_at <= ?",
+                Timestamp.valueOf(LocalDateTime.now()));
+        if (deleted > 0) {
+            log.info("Purged {} expired idempotency keys", deleted);
+        }
+    }
+
+    public record StoredResponse(String requestHash, int status, String contentType, byte[] body) {
+    }
+}
@@ -0,0 +1,326 @@
+package com.example.Library.Management.ITITIU22124.service;
+
+import com.example.Library.Management.ITITIU22124.model.Book;
+import com.example.Library.Management.ITITIU22124.repository.BorrowRepository;
+import com.example.Library.Management.ITITIU22124.repository.ReservationRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Optional authoritative copy counter (library.inventory.mode=ledger).
+ * Each book has its own atomic counter, so checkouts of different titles never
+ * contend and checkouts of the same title are a CAS instead of a row lock.
+ * Changed counters are written back to books.copies_available in JDBC batches;
+ * on startup the counters are built from open loans and READY reservations. After
+ * that a counter is only ever changed in place, so no take or return is lost.
+ */
+@Component
+@Slf4j
+public class InventoryLedger implements CatalogListener {
+
+    private static final String FLUSH_SQL = "UPDATE books SET copies_available = ? WHERE id = ?";
+
+    @Autowired
+    private BorrowRepository borrowRepository;
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final boolean enabled;
+
+    private final Map<Long, Counter> counters = new ConcurrentHashMap<>();
+
+    // Books whose counter changed since the last flush
+    private final Set<Long> dirty = ConcurrentHashMap.newKeySet();
+
+    // Set by the startup load; later catalog reloads only add and retire books
+    private boolean loaded;
+
+    public InventoryLedger(@Value("${library.inventory.mode:database}") String mode) {
+        this.enabled = "ledger".equalsIgnoreCase(mode);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Take one copy if any is left. Returns the new count, or -1 when none was available.
+     * The copy is given back automatically if the surrounding transaction rolls back.
+     */
+    public int tryTake(Long bookId) {
+        Counter counter = counters.get(bookId);
+        if (counter == null) {
+            return -1;
+        }
+        int available = counter.take();
+        if (available >= 0) {
+            dirty.add(bookId);
+            onRollback(() -> give(bookId));
+        }
+        return available;
+    }
+
+    /**
+     * Put one copy back, never above copiesTotal. Returns the new count, or -1 when already full.
+     */
+    public int give(Long bookId) {
+        Counter counter = counters.get(bookId);
+        if (counter == null) {
+            return -1;
+        }
+        int available = counter.give();
+        if (available >= 0) {
+            dirty.add(bookId);
+        }
+        return available;
+    }
+
+    /**
+     * Return a copy; undone with a take if the surrounding transaction rolls back.
+     * If the copy has been checked out again by then, the count stays at 0.
+     */
+    public int giveBack(Long bookId) {
+        int available = give(bookId);
+        if (available >= 0) {
+            onRollback(() -> {
+                Counter counter = counters.get(bookId);
+                if (counter != null && counter.take() >= 0) {
+                    dirty.add(bookId);
+                }
+            });
+        }
+        return available;
+    }
+
+    /**
+     * Current count, or null when the book is not tracked
+     */
+    public Integer available(Long bookId) {
+        Counter counter = counters.get(bookId);
+        return counter == null ? null : counter.available();
+    }
+
+    /**
+     * The first load builds the counters from open loans and READY reservations. Later
+     * reloads (e.g. after a CSV import) run alongside live checkouts, whose loans may not
+     * be committed yet, so they only start counters for new books and take over changed
+     * totals; deleted books already left through bookDeleted.
+     */
+    @Override
+    public synchronized void catalogLoaded(List<Book> books) {
+        if (!enabled) {
+            return;
+        }
+        if (loaded) {
+            int added = 0;
+            for (Book book : books) {
+                if (!counters.containsKey(book.getId())) {
+                    added++;
+                }
+                bookSaved(book);
+            }
+            log.info("Inventory ledger reloaded: {} books, {} new", books.size(), added);
+            return;
+        }
+
+        flush();
+        Map<Long, Long> held = new HashMap<>();
+        for (Object[] row : borrowRepository.countOpenLoansByBook()) {
+            held.merge((Long) row[0], (Long) row[1], Long::sum);
+        }
+        for (Object[] row : reservationRepository.countReadyReservationsByBook()) {
+            held.merge((Long) row[0], (Long) row[1], Long::sum);
+        }
+
+        int corrected = 0;
+        for (Book book : books) {
+            int total = book.getCopiesTotal() == null ? 0 : book.getCopiesTotal();
+            int available = (int) Math.max(0, Math.min(total, total - held.getOrDefault(book.getId(), 0L)));
+            counters.put(book.getId(), new Counter(total, available));
+            if (book.getCopiesAvailable() == null || book.getCopiesAvailable() != available) {
+                dirty.add(book.getId());
+                corrected++;
+            }
+        }
+        loaded = true;
+        log.info("Inventory ledger built for {} books, {} stored counts corrected", books.size(), corrected);
+    }
+
+    @Override
+    public void bookSaved(Book book) {
+        if (!enabled || book == null || book.getId() == null) {
+            return;
+        }
+        int total = book.getCopiesTotal() == null ? 0 : book.getCopiesTotal();
+        // The ledger owns copiesAvailable; from a saved book only a new title or a changed total is taken over
+        Counter counter = counters.computeIfAbsent(book.getId(), id -> new Counter(total,
+                book.getCopiesAvailable() == null ? total : book.getCopiesAvailable()));
+        if (counter.setTotal(total)) {
+            dirty.add(book.getId());
+        }
+    }
+
+    /**
+     * Replace a book's count with an admin correction, clamped to 0..copiesTotal.
+     * Applied to the live counter, so it lands between concurrent takes and returns
+     * rather than overwriting them.
+     */
+    public void setAvailable(Long bookId, int total, int available) {
+        if (!enabled) {
+            return;
+        }
+        counters.computeIfAbsent(bookId, id -> new Counter(total, available)).set(total, available);
+        dirty.add(bookId);
+    }
+
+    @Override
+    public void bookDeleted(Long bookId) {
+        counters.remove(bookId);
+        dirty.remove(bookId);
+    }
+
+    /**
+     * Write changed counters back to the books table in one batch
+     */
+    @Scheduled(fixedDelayString = "${library.inventory.flush-interval-ms:1000}")
+    public synchronized void flush() {
+        if (!enabled || dirty.isEmpty()) {
+            return;
+        }
+        List<Long> bookIds = new ArrayList<>(dirty.size());
+        Iterator<Long> iterator = dirty.iterator();
+        while (iterator.hasNext()) {
+            bookIds.add(iterator.next());
+            iterator.remove();
+        }
+        List<Object[]> args = new ArrayList<>(bookIds.size());
+        for (Long bookId : bookIds) {
+            Counter counter = counters.get(bookId);
+            if (counter != null) {
+                // Value read now, so a change made after draining is written at the latest next time
+                args.add(new Object[] { counter.available(), bookId });
+            }
+        }
+        try {
+            jdbcTemplate.batchUpdate(FLUSH_SQL, args);
+        } catch (RuntimeException e) {
+            dirty.addAll(bookIds);
+            log.warn("Inventory flush of {} books failed, will retry: {}", bookIds.size(), e.getMessage());
+            return;
+        }
+        log.debug("Inventory flushed {} books", args.size());
+    }
+
+    @PreDestroy
+    void flushOnShutdown() {
+        flush();
+    }
+
+    private static void onRollback(Runnable compensation) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK) {
+                    compensation.run();
+                }
+            }
+        });
+    }
+
+    /**
+     * Copies owned and copies on the shelf, packed into one long so that takes, returns,
+     * a changed total and admin corrections are all compare-and-set on the same value
+     */
+    private static final class Counter {
+        private final AtomicLong state;
+
+        private Counter(int total, int available) {
+            this.state = new AtomicLong(pack(total, available));
+        }
+
+        private int available() {
+            return available(state.get());
+        }
+
+        // New count, or -1 when no copy is left
+        private int take() {
+            long current;
+            int available;
+            do {
+                current = state.get();
+                available = available(current);
+                if (available <= 0) {
+                    return -1;
+                }
+            } while (!state.compareAndSet(current, pack(total(current), available - 1)));
+            return available - 1;
+        }
+
+        // New count, or -1 when every copy is already on the shelf
+        private int give() {
+            long current;
+            int available;
+            do {
+                current = state.get();
+                available = available(current);
+                if (available >= total(current)) {
+                    return -1;
+                }
+            } while (!state.compareAndSet(current, pack(total(current), available + 1)));
+            return available + 1;
+        }
+
+        // Copies added or removed go on or come off the shelf; false if the total was unchanged
+        private boolean setTotal(int total) {
+            long current;
+            do {
+                current = state.get();
+                if (total(current) == total) {
+                    return false;
+                }
+            } while (!state.compareAndSet(current,
+                    pack(total, available(current) + total - total(current))));
+            return true;
+        }
+
+        private void set(int total, int available) {
+            state.set(pack(total, available));
+        }
+
+        private static long pack(int total, int available) {
+            int clamped = Math.max(0, Math.min(available, total));
+            return ((long) total << 32) | clamped;
+        }
+
+        private static int total(long state) {
+            return (int) (state >>> 32);
+        }
+
+        private static int available(long state) {
+            return (int) state;
+        }
+    }
+}
@@ -1,5 +1,8 @@
 package com.example.Library.Management.ITITIU22124.service;
 
+import com.example.Library.Management.ITITIU22124.event.BookBorrowed;
+import com.example.Library.Management.ITITIU22124.event.BookReturned;
+import com.example.Library.Management.ITITIU22124.event.ReservationReady;
 import com.example.Library.Management.ITITIU22124.model.BorrowRecord;
 import com.example.Library.Management.ITITIU22124.model.Reservation;
 import com.example.Library.Management.ITITIU22124.model.User;
@@ -10,6 +13,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
 
 import java.time.LocalDate;
 import java.time.temporal.ChronoUnit;
@@ -56,14 +61,8 @@ public class NotificationService {
         LocalDate today = LocalDate.now();
         LocalDate reminderDate = today.plusDays(dueReminderDays);
 
-        // Find all books due on the reminder date
-        List<BorrowRecord> recordsDueSoon = borrowRepository.findAll().stream()
-                .filter(record -> record.getReturnDate() == null)
-                .filter(record -> {
-                    long daysUntilDue = ChronoUnit.DAYS.between(today, record.getDueDate());
-                    return daysUntilDue > 0 && daysUntilDue <= dueReminderDays;
-                })
-                .toList();
+        // Open loans due within the reminder window, with user and book fetched in the same query
+        List<BorrowRecord> recordsDueSoon = borrowRepository.findOpenLoansDueBetween(today, reminderDate);
 
         log.info("Found {} books due within {} days", recordsDueSoon.size(), dueReminderDays);
 
@@ -80,11 +79,11 @@ public class NotificationService {
                         record.getDueDate(),
                         daysUntilDue);
 
-                log.debug("Sent due date reminder to {} for book '{}'",
+                log.debug("Queued due date reminder to {} for book '{}'",
                         user.getEmail(), record.getBook().getTitle());
 
             } catch (Exception e) {
-                log.error("Failed to send due date reminder for record {}: {}",
+                log.error("Failed to queue due date reminder for record {}: {}",
                         record.getId(), e.getMessage());
             }
         }
@@ -106,8 +105,7 @@ public class NotificationService {
         LocalDate today = LocalDate.now();
 
         // Find all overdue books
-        List<BorrowRecord> overdueRecords = borrowRepository
-                .findByDueDateBeforeAndReturnDateIsNull(today);
+        List<BorrowRecord> overdueRecords = borrowRepository.findOverdueWithUserAndBook(today);
 
         log.info("Found {} overdue books", overdueRecords.size());
 
@@ -124,19 +122,43 @@ public class NotificationService {
                         record.getDueDate(),
                         daysOverdue);
 
-                log.debug("Sent overdue alert to {} for book '{}' ({} days overdue)",
+                log.debug("Queued overdue alert to {} for book '{}' ({} days overdue)",
                         user.getEmail(), record.getBook().getTitle(), daysOverdue);
 
             } catch (Exception e) {
-                log.error("Failed to send overdue alert for record {}: {}",
+                log.error("Failed to queue overdue alert for record {}: {}",
                         record.getId(), e.getMessage());
             }
         }
     }
 
+    /**
+     * Circulation events queue their email in the publishing transaction, just before it
+     * commits, so the outbox row exists exactly when the loan or reservation change does.
+     * Only the SMTP send is asynchronous: OutboxDispatcher delivers the row after commit.
+     * A failure to queue rolls the change back rather than losing the email. A reservation
+     * promoted by the after-commit handoff (ReservationService.onBookReturned) is queued
+     * in that handoff's own transaction.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onBookBorrowed(BookBorrowed event) {
+        borrowRepository.findAllByIdWithUserAndBook(List.of(event.borrowId())).forEach(this::notifyBookBorrowed);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onBookReturned(BookReturned event) {
+        borrowRepository.findAllByIdWithUserAndBook(List.of(event.borrowId()))
+                .forEach(record -> notifyBookReturned(record, event.fineAmount() != null,
+                        event.fineAmount() == null ? null : event.fineAmount().toString()));
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onReservationReady(ReservationReady event) {
+        reservationRepository.findWithUserAndBook(event.reservationId()).ifPresent(this::notifyReservationReady);
+    }
+
     /**
      * Send notification when a reservation becomes ready
-     * Called from ReservationService when a book becomes available
      */
     public void notifyReservationReady(Reservation reservation) {
         if (!reservationReadyEnabled) {
@@ -144,75 +166,55 @@ public class NotificationService {
             return;
         }
 
-        try {
-            User user = reservation.getUser();
-            // Give user 3 days to pick up the book
-            LocalDate expiryDate = LocalDate.now().plusDays(3);
-
-            emailService.sendReservationReady(
-                    user.getEmail(),
-                    user.getName(),
-                    reservation.getBook().getTitle(),
-                    reservation.getBook().getAuthor(),
-                    expiryDate);
+        User user = reservation.getUser();
+        // Give user 3 days to pick up the book
+        LocalDate expiryDate = LocalDate.now().plusDays(3);
 
-            log.info("Sent reservation ready notification to {} for book '{}'",
-                    user.getEmail(), reservation.getBook().getTitle());
+        emailService.sendReservationReady(
+                user.getEmail(),
+                user.getName(),
+                reservation.getBook().getTitle(),
+                reservation.getBook().getAuthor(),
+                expiryDate);
 
-        } catch (Exception e) {
-            log.error("Failed to send reservation ready notification for reservation {}: {}",
-                    reservation.getId(), e.getMessage());
-        }
+        log.info("Queued reservation ready notification to {} for book '{}'",
+                user.getEmail(), reservation.getBook().getTitle());
     }
 
     /**
      * Send notification when a book is borrowed
-     * Called from BorrowService
      */
     public void notifyBookBorrowed(BorrowRecord borrowRecord) {
-        try {
-            User user = borrowRecord.getUser();
-
-            emailService.sendBorrowConfirmation(
-                    user.getEmail(),
-                    user.getName(),
-                    borrowRecord.getBook().getTitle(),
-                    borrowRecord.getBook().getAuthor(),
-                    borrowRecord.getBorrowDate(),
-                    borrowRecord.getDueDate());
-
-            log.info("Sent borrow confirmation to {} for book '{}'",
-                    user.getEmail(), borrowRecord.getBook().getTitle());
-
-        } catch (Exception e) {
-            log.error("Failed to send borrow confirmation for record {}: {}",
-                    borrowRecord.getId(), e.getMessage());
-        }
+        User user = borrowRecord.getUser();
+
+        emailService.sendBorrowConfirmation(
+                user.getEmail(),
+                user.getName(),
+                borrowRecord.getBook().getTitle(),
+                borrowRecord.getBook().getAuthor(),
+                borrowRecord.getBorrowDate(),
+                borrowRecord.getDueDate());
+
+        log.info("Queued borrow confirmation to {} for book '{}'",
+                user.getEmail(), borrowRecord.getBook().getTitle());
     }
 
     /**
      * Send notification when a book is returned
-     * Called from BorrowService
      */
     public void notifyBookReturned(BorrowRecord borrowRecord, boolean hadFine, String fineAmount) {
-        try {
-            User user = borrowRecord.getUser();
-
-            emailService.sendReturnConfirmation(
-                    user.getEmail(),
-                    user.getName(),
-                    borrowRecord.getBook().getTitle(),
-                    borrowRecord.getBook().getAuthor(),
-                    hadFine,
-                    fineAmount);
-
-            log.info("Sent return confirmation to {} for book '{}'",
-                    user.getEmail(), borrowRecord.getBook().getTitle());
-
-        } catch (Exception e) {
-            log.error("Failed to send return confirmation for record {}: {}",
-                    borrowRecord.getId(), e.getMessage());
-        }
+        User user = borrowRecord.getUser();
+
+        emailService.sendReturnConfirmation(
+                user.getEmail(),
+                user.getName(),
+                borrowRecord.getBook().getTitle(),
+                borrowRecord.getBook().getAuthor(),
+                hadFine,
+                fineAmount);
+
+        log.info("Queued return confirmation to {} for book '{}'",
+                user.getEmail(), borrowRecord.getBook().getTitle());
     }
 
     /**
@@ -225,13 +227,8 @@ public class NotificationService {
 
         LocalDate today = LocalDate.now();
 
-        List<BorrowRecord> recordsDueSoon = borrowRepository.findAll().stream()
-                .filter(record -> record.getReturnDate() == null)
-                .filter(record -> {
-                    long daysUntilDue = ChronoUnit.DAYS.between(today, record.getDueDate());
-                    return daysUntilDue > 0 && daysUntilDue <= dueReminderDays;
-                })
-                .toList();
+        List<BorrowRecord> recordsDueSoon = borrowRepository.findOpenLoansDueBetween(today,
+                today.plusDays(dueReminderDays));
 
         for (BorrowRecord record : recordsDueSoon) {
             User user = record.getUser();
@@ -258,8 +255,7 @@ public class NotificationService {
         }
 
         LocalDate today = LocalDate.now();
-        List<BorrowRecord> overdueRecords = borrowRepository
-                .findByDueDateBeforeAndReturnDateIsNull(today);
+        List<BorrowRecord> overdueRecords = borrowRepository.findOverdueWithUserAndBook(today);
 
         for (BorrowRecord record : overdueRecords) {
             User user = record.getUser();
@@ -0,0 +1,151 @@
+package com.example.Library.Management.ITITIU22124.service;
+
+import com.example.Library.Management.ITITIU22124.exception.NotFoundException;
+import com.example.Library.Management.ITITIU22124.model.OutboxMessage;
+import com.example.Library.Management.ITITIU22124.repository.OutboxRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Delivers queued emails outside any request transaction. Due rows are claimed in a
+ * short transaction by pushing their next attempt past a lease, sent without holding
+ * locks, then marked SENT, rescheduled with exponential backoff, or marked DEAD once
+ * max-attempts is reached. A dispatcher that dies mid-batch leaves its rows to be
+ * picked up again when the lease runs out.
+ */
+@Component
+@Slf4j
+public class OutboxDispatcher {
+
+    @Autowired
+    private OutboxRepository outboxRepository;
+
+    @Autowired
+    private EmailService emailService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${library.email.enabled:true}")
+    private boolean emailEnabled;
+
+    @Value("${library.outbox.batch-size:50}")
+    private int batchSize;
+
+    @Value("${library.outbox.max-attempts:8}")
+    private int maxAttempts;
+
+    @Value("${library.outbox.initial-backoff-ms:30000}")
+    private long initialBackoffMs;
+
+    @Value("${library.outbox.max-backoff-ms:3600000}")
+    private long maxBackoffMs;
+
+    @Value("${library.outbox.lease-ms:300000}")
+    private long leaseMs;
+
+    @Value("${library.outbox.retention-days:7}")
+    private int retentionDays;
+
+    @Scheduled(fixedDelayString = "${library.outbox.poll-interval-ms:1000}")
+    public void dispatch() {
+        if (!emailEnabled) {
+            return;
+        }
+        List<OutboxMessage> batch;
+        do {
+            batch = claimDue();
+            for (OutboxMessage message : batch) {
+                deliver(message);
+            }
+        } while (batch.size() == batchSize);
+    }
+
+    /**
+     * Drop delivered messages older than the retention period; dead ones are kept for inspection
+     */
+    @Scheduled(cron = "0 30 3 * * ?")
+    public void purgeSent() {
+        int deleted = transactionTemplate.execute(
+                status -> outboxRepository.deleteSentBefore(LocalDateTime.now().minusDays(retentionDays)));
+        log.info("Purged {} sent outbox messages", deleted);
+    }
+
+    /**
+     * Queued email counts by status
+     */
+    public Map<String, Long> countByStatus() {
+        Map<String, Long> counts = new TreeMap<>();
+        for (Object[] row : outboxRepository.countByStatus()) {
+            counts.put(row[0].toString(), (Long) row[1]);
+        }
+        return counts;
+    }
+
+    /**
+     * Put a dead-lettered email back in the queue
+     */
+    public void requeue(Long id) {
+        int updated = transactionTemplate.execute(status -> outboxRepository.requeueDead(id, LocalDateTime.now()));
+        if (updated == 0) {
+            throw new NotFoundException("No dead outbox message with id: " + id);
+        }
+    }
+
+    private List<OutboxMessage> claimDue() {
+        return transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<OutboxMessage> due = outboxRepository.findDueForUpdate(now, PageRequest.ofSize(batchSize));
+            LocalDateTime leaseUntil = now.plus(Duration.ofMillis(leaseMs));
+            for (OutboxMessage message : due) {
+                message.setNextAttemptAt(leaseUntil); // Flushed on commit
+            }
+            return due;
+        });
+    }
+
+    private void deliver(OutboxMessage message) {
+        try {
+            emailService.deliver(message);
+            transactionTemplate.executeWithoutResult(
+                    status -> outboxRepository.markSent(message.getId(), LocalDateTime.now()));
+        } catch (Exception e) {
+            int attempt = message.getAttempts() + 1;
+            String error = truncate(e.getClass().getSimpleName() + ": " + e.getMessage());
+            if (attempt >= maxAttempts) {
+                transactionTemplate.executeWithoutResult(status -> outboxRepository.markDead(message.getId(), error));
+                log.error("Giving up on email {} to {} after {} attempts: {}",
+                        message.getId(), message.getRecipient(), attempt, error);
+            } else {
+                LocalDateTime retryAt = LocalDateTime.now().plus(Duration.ofMillis(backoffMs(attempt)));
+                transactionTemplate.executeWithoutResult(
+                        status -> outboxRepository.markRetry(message.getId(), retryAt, error));
+                log.warn("Email {} to {} failed (attempt {}), retrying at {}: {}",
+                        message.getId(), message.getRecipient(), attempt, retryAt, error);
+            }
+        }
+    }
+
+    // initial * 2^(attempt-1), capped, with up to 20% jitter so failed batches do not retry in lockstep
+    private long backoffMs(int attempt) {
+        long delay = initialBackoffMs << Math.min(attempt - 1, 20);
+        delay = Math.min(delay, maxBackoffMs);
+        return delay + ThreadLocalRandom.current().nextLong(delay / 5 + 1);
+    }
+
+    private static String truncate(String error) {
+        return error.length() > 1000 ? error.substring(0, 1000) : error;
+    }
+}
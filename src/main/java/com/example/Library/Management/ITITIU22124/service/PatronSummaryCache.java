@@ -0,0 +1,174 @@
+package com.example.Library.Management.ITITIU22124.service;
+
+import com.example.Library.Management.ITITIU22124.config.EventExecutorConfig;
+import com.example.Library.Management.ITITIU22124.event.BookReturned;
+import com.example.Library.Management.ITITIU22124.event.EventMetrics;
+import com.example.Library.Management.ITITIU22124.event.FineAssessed;
+import com.example.Library.Management.ITITIU22124.event.FineSettled;
+import com.example.Library.Management.ITITIU22124.repository.BorrowRepository;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-user summary of books currently on loan and the unpaid fine balance, so the
+ * borrowing limits are checked without count queries on every checkout. A summary
+ * is loaded from the database on first use, then kept current by the checkout
+ * itself (tryReserve) and dropped after committed return and fine events. Checkouts whose
+ * transaction is still open are also kept outside the cache, so a summary evicted and
+ * reloaded meanwhile still counts them. Entries expire after ttl-seconds, which also
+ * bounds drift from changes made by other instances.
+ */
+@Component
+public class PatronSummaryCache {
+
+    private static final String LISTENER = "patronSummaries";
+
+    private final BorrowRepository borrowRepository;
+
+    private final FineLedger fineLedger;
+
+    private final EventMetrics eventMetrics;
+
+    private final LoadingCache<Long, Summary> summaries;
+
+    // Books reserved by checkouts that have not committed or rolled back yet, per user
+    private final Map<Long, Set<Long>> pending = new ConcurrentHashMap<>();
+
+    @Value("${library.borrow.max-active-loans:5}")
+    private int maxActiveLoans;
+
+    @Value("${library.borrow.max-unpaid-fines:10.00}")
+    private BigDecimal maxUnpaidFines;
+
+    public PatronSummaryCache(BorrowRepository borrowRepository, FineLedger fineLedger, EventMetrics eventMetrics,
+            @Value("${library.patron-cache.max-size:100000}") long maxSize,
+            @Value("${library.patron-cache.ttl-seconds:600}") long ttlSeconds) {
+        this.borrowRepository = borrowRepository;
+        this.fineLedger = fineLedger;
+        this.eventMetrics = eventMetrics;
+        this.summaries = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .build(this::load);
+    }
+
+    /**
+     * Check the borrowing limits and, if they allow it, count the book as on loan.
+     * Returns null on success or the reason the checkout is refused. The book is
+     * released again if the surrounding transaction rolls back.
+     */
+    public String tryReserve(Long userId, Long bookId) {
+        Summary summary = summaries.get(userId);
+        synchronized (summary) {
+            if (summary.activeBookIds.contains(bookId)) {
+                return "User already has a copy of this book";
+            }
+            if (summary.activeBookIds.size() >= maxActiveLoans) {
+                return "Loan limit reached: " + maxActiveLoans + " books already on loan";
+            }
+            if (summary.unpaidBalance.compareTo(maxUnpaidFines) > 0) {
+                return "Unpaid fines of $" + summary.unpaidBalance + " exceed the $" + maxUnpaidFines
+                        + " limit; please pay them first";
+            }
+            summary.activeBookIds.add(bookId);
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            pending.compute(userId, (id, bookIds) -> {
+                Set<Long> updated = bookIds == null ? ConcurrentHashMap.newKeySet() : bookIds;
+                updated.add(bookId);
+                return updated;
+            });
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_ROLLED_BACK) {
+                        release(userId, bookId);
+                    } else {
+                        unpend(userId, bookId);
+                    }
+                }
+            });
+        }
+        return null;
+    }
+
+    /**
+     * Undo a reservation whose checkout did not go through
+     */
+    public void release(Long userId, Long bookId) {
+        unpend(userId, bookId);
+        Summary summary = summaries.getIfPresent(userId);
+        if (summary != null) {
+            synchronized (summary) {
+                summary.activeBookIds.remove(bookId);
+            }
+        }
+    }
+
+    /**
+     * Drop cached summaries after a bulk change written without events, e.g. fine accrual
+     */
+    public void invalidate(Collection<Long> userIds) {
+        summaries.invalidateAll(userIds);
+    }
+
+    // Committed changes, applied on the event executor. The user's summary is dropped rather
+    // than edited: a listener may run after the summary was reloaded with the change already in
+    // it, or after a later checkout of the same book, and the next load reads both correctly.
+
+    @Async(EventExecutorConfig.EVENT_EXECUTOR)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookReturned(BookReturned event) {
+        eventMetrics.handle(event, LISTENER, () -> summaries.invalidate(event.userId()));
+    }
+
+    @Async(EventExecutorConfig.EVENT_EXECUTOR)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onFineAssessed(FineAssessed event) {
+        eventMetrics.handle(event, LISTENER, () -> summaries.invalidate(event.userId()));
+    }
+
+    @Async(EventExecutorConfig.EVENT_EXECUTOR)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onFineSettled(FineSettled event) {
+        eventMetrics.handle(event, LISTENER, () -> summaries.invalidate(event.userId()));
+    }
+
+    private void unpend(Long userId, Long bookId) {
+        pending.computeIfPresent(userId, (id, bookIds) -> {
+            bookIds.remove(bookId);
+            return bookIds.isEmpty() ? null : bookIds;
+        });
+    }
+
+    private Summary load(Long userId) {
+        Summary summary = new Summary();
+        // Pending checkouts first: one that commits meanwhile is then seen by the query instead
+        Set<Long> inFlight = pending.get(userId);
+        if (inFlight != null) {
+            summary.activeBookIds.addAll(inFlight);
+        }
+        summary.activeBookIds.addAll(borrowRepository.findOpenLoanBookIds(userId));
+        summary.unpaidBalance = fineLedger.balance(userId).amount();
+        return summary;
+    }
+
+    private static final class Summary {
+        private final Set<Long> activeBookIds = new HashSet<>();
+        private BigDecimal unpaidBalance = BigDecimal.ZERO;
+    }
+}
@@ -1,19 +1,31 @@
 
 package com.example.Library.Management.ITITIU22124.service;
 
+import com.example.Library.Management.ITITIU22124.config.EventExecutorConfig;
+import com.example.Library.Management.ITITIU22124.config.ListingLimits;
+import com.example.Library.Management.ITITIU22124.dto.ReservationDTO;
+import com.example.Library.Management.ITITIU22124.event.BookReturned;
+import com.example.Library.Management.ITITIU22124.event.EventMetrics;
+import com.example.Library.Management.ITITIU22124.event.ReservationReady;
 import com.example.Library.Management.ITITIU22124.exception.NotFoundException;
 import com.example.Library.Management.ITITIU22124.model.Book;
 import com.example.Library.Management.ITITIU22124.model.Reservation;
 import com.example.Library.Management.ITITIU22124.model.ReservationStatus;
 import com.example.Library.Management.ITITIU22124.model.User;
-import com.example.Library.Management.ITITIU22124.repository.BookRepository;
 import com.example.Library.Management.ITITIU22124.repository.ReservationRepository;
 import com.example.Library.Management.ITITIU22124.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.context.annotation.Lazy;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @Service
 public class ReservationService {
@@ -22,19 +34,24 @@ public class ReservationService {
     private ReservationRepository reservationRepository;
 
     @Autowired
-    private BookRepository bookRepository;
+    private UserRepository userRepository;
 
     @Autowired
-    private UserRepository userRepository;
+    private BookService bookService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private EventMetrics eventMetrics;
 
     @Autowired
-    @Lazy
-    private NotificationService notificationService;
+    private ListingLimits listingLimits;
 
     public Reservation createReservation(Long userId, Long bookId) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new NotFoundException("User not found with id: " + userId));
-        Book book = bookRepository.findById(bookId)
+        Book book = bookService.getBookById(bookId)
                 .orElseThrow(() -> new NotFoundException("Book not found with id: " + bookId));
 
         if (book.getCopiesAvailable() > 0) {
@@ -53,31 +70,68 @@ public class ReservationService {
         return reservationRepository.save(reservation);
     }
 
+    /**
+     * Offer a copy returned by a single return to the next waiting reservation, after the
+     * return has committed and in a transaction of its own, so the READY update and its
+     * outbox email commit together without holding up the return.
+     */
+    @Async(EventExecutorConfig.EVENT_EXECUTOR)
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void onBookReturned(BookReturned event) {
+        if (!event.reservationsChecked()) {
+            eventMetrics.handle(event, "reservationHandoff", () -> handleReturn(event.bookId()));
+        }
+    }
+
     public void handleReturn(Long bookId) {
         List<Reservation> pendingReservations = reservationRepository
                 .findByBookIdAndStatusOrderByReservationDateAsc(bookId, ReservationStatus.PENDING);
-        if (!pendingReservations.isEmpty()) {
+        // Only promote the next reservation if a copy could actually be set aside for it
+        if (!pendingReservations.isEmpty() && bookService.holdCopy(bookId)) {
             Reservation nextReservation = pendingReservations.get(0);
             nextReservation.setStatus(ReservationStatus.READY);
             reservationRepository.save(nextReservation);
+            publishReady(nextReservation);
+        }
+    }
 
-            Book book = nextReservation.getBook();
-            if (book.getCopiesAvailable() > 0) {
-                book.setCopiesAvailable(book.getCopiesAvailable() - 1);
-                bookRepository.save(book);
-            }
-
-            // Send email notification that reservation is ready (don't fail if email fails)
-            try {
-                notificationService.notifyReservationReady(nextReservation);
-            } catch (Exception e) {
-                System.err.println("Failed to send reservation ready notification: " + e.getMessage());
+    /**
+     * Bulk form of handleReturn for returned copies (book id -> copies): the oldest
+     * pending reservations are promoted with one query and one update. Each returned
+     * reservation keeps one of the returned copies.
+     */
+    @Transactional
+    public List<Reservation> handleReturns(Map<Long, Integer> copiesByBook) {
+        if (copiesByBook.isEmpty()) {
+            return List.of();
+        }
+        List<Reservation> pending = reservationRepository
+                .findByBookIdInAndStatusOrderByReservationDateAsc(copiesByBook.keySet(), ReservationStatus.PENDING);
+        Map<Long, Integer> remaining = new HashMap<>(copiesByBook);
+        List<Reservation> promoted = new ArrayList<>();
+        for (Reservation reservation : pending) {
+            Long bookId = reservation.getBook().getId();
+            int copies = remaining.getOrDefault(bookId, 0);
+            if (copies > 0) {
+                promoted.add(reservation);
+                remaining.put(bookId, copies - 1);
             }
         }
+        if (!promoted.isEmpty()) {
+            reservationRepository.markReady(promoted.stream().map(Reservation::getId).toList());
+            promoted.forEach(this::publishReady);
+        }
+        return promoted;
+    }
+
+    public ReservationDTO getReservation(Long reservationId) {
+        return reservationRepository.findDTOById(reservationId)
+                .orElseThrow(() -> new NotFoundException("Reservation not found with id: " + reservationId));
     }
 
-    public List<Reservation> getReservationsByUser(Long userId) {
-        return reservationRepository.findByUserId(userId);
+    public List<ReservationDTO> getReservationsByUser(Long userId) {
+        return reservationRepository.findDTOsByUserId(userId);
     }
 
     public void cancelReservation(Long id) {
@@ -87,24 +141,24 @@ public class ReservationService {
         reservationRepository.save(reservation);
     }
 
+    @Transactional
     public Reservation markReady(Long id) {
         Reservation reservation = reservationRepository.findById(id)
                 .orElseThrow(() -> new NotFoundException("Reservation not found with id: " + id));
 
         reservation.setStatus(ReservationStatus.READY);
         Reservation savedReservation = reservationRepository.save(reservation);
-
-        // Send email notification that reservation is ready (don't fail if email fails)
-        try {
-            notificationService.notifyReservationReady(savedReservation);
-        } catch (Exception e) {
-            System.err.println("Failed to send reservation ready notification: " + e.getMessage());
-        }
+        publishReady(savedReservation);
 
         return savedReservation;
     }
 
-    public List<Reservation> getAllReservations() {
-        return reservationRepository.findAll();
+    private void publishReady(Reservation reservation) {
+        eventPublisher.publishEvent(new ReservationReady(reservation.getId(), reservation.getUser().getId(),
+                reservation.getBook().getId()));
+    }
+
+    public List<ReservationDTO> getAllReservations() {
+        return reservationRepository.findAllDTOs(listingLimits.firstPage());
     }
 }
@@ -0,0 +1,80 @@
+-- ========================================
+-- Baseline: the schema as the entities defined it before migrations owned it.
+-- Databases created earlier by ddl-auto=update are baselined at this version
+-- (spring.flyway.baseline-on-migrate) and skip this script.
+-- ========================================
+
+CREATE TABLE users (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    name VARCHAR(150) NOT NULL,
+    email VARCHAR(150) NOT NULL,
+    password VARCHAR(255) NOT NULL,
+    role ENUM('USER', 'ADMIN') NOT NULL,
+    created_at DATETIME(6),
+    PRIMARY KEY (id),
+    CONSTRAINT uk_users_email UNIQUE (email)
+) ENGINE = InnoDB;
+
+CREATE TABLE books (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    title VARCHAR(255) NOT NULL,
+    author VARCHAR(255) NOT NULL,
+    isbn VARCHAR(50) NOT NULL,
+    category VARCHAR(100),
+    published_year INT,
+    copies_total INT NOT NULL,
+    copies_available INT NOT NULL,
+    created_at DATETIME(6),
+    PRIMARY KEY (id),
+    CONSTRAINT uk_books_isbn UNIQUE (isbn)
+) ENGINE = InnoDB;
+
+CREATE TABLE borrow_records (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    user_id BIGINT NOT NULL,
+    book_id BIGINT NOT NULL,
+    borrow_date DATE NOT NULL,
+    due_date DATE NOT NULL,
+    return_date DATE,
+    status ENUM('BORROWED', 'RETURNED') NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_borrow_user FOREIGN KEY (user_id) REFERENCES users (id) ON DELETE CASCADE,
+    CONSTRAINT fk_borrow_book FOREIGN KEY (book_id) REFERENCES books (id) ON DELETE CASCADE
+) ENGINE = InnoDB;
+
+CREATE TABLE reservations (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    user_id BIGINT NOT NULL,
+    book_id BIGINT NOT NULL,
+    reservation_date DATETIME(6),
+    status ENUM('PENDING', 'READY', 'CANCELLED') NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_res_user FOREIGN KEY (user_id) REFERENCES users (id) ON DELETE CASCADE,
+    CONSTRAINT fk_res_book FOREIGN KEY (book_id) REFERENCES books (id) ON DELETE CASCADE
+) ENGINE = InnoDB;
+
+CREATE TABLE fines (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    user_id BIGINT NOT NULL,
+    borrow_record_id BIGINT NOT NULL,
+    amount DECIMAL(10, 2) NOT NULL,
+    days_overdue INT NOT NULL,
+    daily_rate DECIMAL(10, 2) NOT NULL,
+    status ENUM('UNPAID', 'PAID', 'WAIVED') NOT NULL,
+    created_at DATETIME(6),
+    paid_at DATETIME(6),
+    due_date DATE,
+    return_date DATE,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_fine_user FOREIGN KEY (user_id) REFERENCES users (id) ON DELETE CASCADE,
+    CONSTRAINT fk_fine_borrow FOREIGN KEY (borrow_record_id) REFERENCES borrow_records (id) ON DELETE CASCADE
+) ENGINE = InnoDB;
+
+CREATE TABLE audit_logs (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    action VARCHAR(255) NOT NULL,
+    performed_by VARCHAR(255) NOT NULL,
+    details VARCHAR(255) NOT NULL,
+    `timestamp` DATETIME(6),
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
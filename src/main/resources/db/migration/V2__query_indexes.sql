@@ -0,0 +1,49 @@
+-- ========================================
+-- Secondary indexes for the repository queries.
+-- InnoDB appends the primary key to every secondary index, so (x) also
+-- serves "WHERE x = ? ORDER BY id" keyset pages. Keep SchemaIndexCheck in
+-- sync when changing these.
+-- ========================================
+
+-- borrow_records
+-- countByUserIdAndReturnDateIsNull, countByUserIdAndDueDateBeforeAndReturnDateIsNull,
+-- existsByUserIdAndBookIdAndReturnDateIsNull
+CREATE INDEX idx_borrow_user_open ON borrow_records (user_id, return_date, due_date);
+-- findByUserId, countByUserId, findDTOsByUserId, admin listing by user
+CREATE INDEX idx_borrow_user ON borrow_records (user_id);
+-- findByBookId, admin listing by book
+CREATE INDEX idx_borrow_book ON borrow_records (book_id);
+-- findByDueDateBeforeAndReturnDateIsNull, findOverdueDTOs, findOpenLoansDueBetween, countOpenLoansByBook
+CREATE INDEX idx_borrow_open_due ON borrow_records (return_date, due_date);
+-- findByStatus, admin listing by status
+CREATE INDEX idx_borrow_status ON borrow_records (status);
+-- admin listing by borrow date range
+CREATE INDEX idx_borrow_borrow_date ON borrow_records (borrow_date);
+
+-- reservations
+-- findByBookIdAndStatusOrderByReservationDateAsc and the queue position subquery
+CREATE INDEX idx_res_book_status_date ON reservations (book_id, status, reservation_date);
+-- findByUserIdAndStatus, countByUserIdAndStatusIn
+CREATE INDEX idx_res_user_status ON reservations (user_id, status);
+-- findByUserId, findDTOsByUserId, admin listing by user
+CREATE INDEX idx_res_user ON reservations (user_id);
+-- admin listing by status
+CREATE INDEX idx_res_status ON reservations (status);
+-- admin listing by reservation date range
+CREATE INDEX idx_res_date ON reservations (reservation_date);
+
+-- fines
+-- findByUserIdAndStatus, getTotalUnpaidFinesByUserId, countUnpaidFinesByUserId
+CREATE INDEX idx_fine_user_status ON fines (user_id, status, amount);
+-- findByUserId, findDTOsByUserId, admin listing by user
+CREATE INDEX idx_fine_user ON fines (user_id);
+-- findByStatus, findDTOsByStatus, getTotalUnpaidFines, getTotalCollectedFines
+CREATE INDEX idx_fine_status ON fines (status);
+-- existsByBorrowRecordId, findByBorrowRecordId, findFinedBorrowRecordIds
+CREATE INDEX idx_fine_borrow_record ON fines (borrow_record_id);
+-- admin listing by creation date range
+CREATE INDEX idx_fine_created_at ON fines (created_at);
+
+-- books
+-- findByCategory
+CREATE INDEX idx_book_category ON books (category);
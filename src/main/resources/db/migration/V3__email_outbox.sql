@@ -0,0 +1,21 @@
+-- ========================================
+-- Transactional outbox for notification emails
+-- ========================================
+
+CREATE TABLE email_outbox (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    recipient VARCHAR(150) NOT NULL,
+    subject VARCHAR(255) NOT NULL,
+    template VARCHAR(100) NOT NULL,
+    payload VARCHAR(4000) NOT NULL,
+    status ENUM('PENDING', 'SENT', 'DEAD') NOT NULL,
+    attempts INT NOT NULL,
+    next_attempt_at DATETIME(6) NOT NULL,
+    last_error VARCHAR(1000),
+    created_at DATETIME(6) NOT NULL,
+    sent_at DATETIME(6),
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+-- The dispatcher polls "status = 'PENDING' AND next_attempt_at <= now ORDER BY id"
+CREATE INDEX idx_outbox_status_next ON email_outbox (status, next_attempt_at);
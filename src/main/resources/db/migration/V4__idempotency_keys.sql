@@ -0,0 +1,17 @@
+-- ========================================
+-- Stored responses for Idempotency-Key replays
+-- ========================================
+
+CREATE TABLE idempotency_keys (
+    -- SHA-256 of user, method, path and the client's key
+    scope_hash CHAR(64) NOT NULL,
+    request_hash CHAR(64) NOT NULL,
+    status_code INT NOT NULL,
+    content_type VARCHAR(100),
+    body MEDIUMBLOB NOT NULL,
+    created_at DATETIME(6) NOT NULL,
+    expires_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (scope_hash)
+) ENGINE = InnoDB;
+
+CREATE INDEX idx_idempotency_expires ON idempotency_keys (expires_at);
@@ -0,0 +1,20 @@
+-- ========================================
+-- Nightly fine accrual on loans that are still out
+-- ========================================
+
+-- One fine per borrow record, so accrual and returns can upsert it
+CREATE UNIQUE INDEX uk_fine_borrow_record ON fines (borrow_record_id);
+DROP INDEX idx_fine_borrow_record ON fines;
+
+-- Progress of resumable batch jobs: the last id a job finished, and who is running it
+CREATE TABLE job_checkpoints (
+    job_name VARCHAR(64) NOT NULL,
+    run_date DATE NOT NULL,
+    last_id BIGINT NOT NULL,
+    processed BIGINT NOT NULL,
+    started_at DATETIME(6),
+    completed_at DATETIME(6),
+    locked_by VARCHAR(100),
+    locked_until DATETIME(6),
+    PRIMARY KEY (job_name)
+) ENGINE = InnoDB;
@@ -0,0 +1,48 @@
+-- ========================================
+-- Append-only fine ledger and materialized per-user balances
+-- ========================================
+
+-- Part of a fine already paid; a fine is PAID once this reaches its amount
+ALTER TABLE fines ADD COLUMN amount_paid DECIMAL(10, 2) NOT NULL DEFAULT 0 AFTER amount;
+UPDATE fines SET amount_paid = amount WHERE status = 'PAID';
+
+-- Every change to what a user owes; positive entries add to the balance, payments and waivers subtract
+CREATE TABLE fine_ledger (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    user_id BIGINT NOT NULL,
+    fine_id BIGINT NOT NULL,
+    entry_type ENUM('ASSESSMENT', 'PAYMENT', 'WAIVER', 'ADJUSTMENT') NOT NULL,
+    amount DECIMAL(12, 2) NOT NULL,
+    created_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_ledger_user FOREIGN KEY (user_id) REFERENCES users (id) ON DELETE CASCADE,
+    CONSTRAINT fk_ledger_fine FOREIGN KEY (fine_id) REFERENCES fines (id) ON DELETE CASCADE
+) ENGINE = InnoDB;
+
+-- A user's entries in order
+CREATE INDEX idx_ledger_user ON fine_ledger (user_id, id);
+-- A fine's entries
+CREATE INDEX idx_ledger_fine ON fine_ledger (fine_id);
+
+-- Outstanding amount and number of unpaid fines per user, kept in step with the ledger
+CREATE TABLE user_fine_balances (
+    user_id BIGINT NOT NULL,
+    balance DECIMAL(12, 2) NOT NULL,
+    unpaid_count INT NOT NULL,
+    updated_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (user_id),
+    CONSTRAINT fk_balance_user FOREIGN KEY (user_id) REFERENCES users (id) ON DELETE CASCADE
+) ENGINE = InnoDB;
+
+-- Open the ledger with the fines recorded so far
+INSERT INTO fine_ledger (user_id, fine_id, entry_type, amount, created_at)
+SELECT user_id, id, 'ASSESSMENT', amount, COALESCE(created_at, NOW(6)) FROM fines;
+
+INSERT INTO fine_ledger (user_id, fine_id, entry_type, amount, created_at)
+SELECT user_id, id, 'PAYMENT', -amount, COALESCE(paid_at, created_at, NOW(6)) FROM fines WHERE status = 'PAID';
+
+INSERT INTO fine_ledger (user_id, fine_id, entry_type, amount, created_at)
+SELECT user_id, id, 'WAIVER', -amount, COALESCE(created_at, NOW(6)) FROM fines WHERE status = 'WAIVED';
+
+INSERT INTO user_fine_balances (user_id, balance, unpaid_count, updated_at)
+SELECT user_id, SUM(amount - amount_paid), COUNT(*), NOW(6) FROM fines WHERE status = 'UNPAID' GROUP BY user_id;
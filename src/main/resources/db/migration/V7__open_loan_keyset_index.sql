@@ -0,0 +1,7 @@
+-- ========================================
+-- Keyset scan over open loans for fine accrual
+-- ========================================
+
+-- findOverdueLoanChunk: open loans after an id, in id order. Reads only the open loans,
+-- already sorted, instead of walking the primary key over every returned loan
+CREATE INDEX idx_borrow_open_id ON borrow_records (return_date, id);
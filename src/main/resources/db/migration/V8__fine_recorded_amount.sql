@@ -0,0 +1,8 @@
+-- ========================================
+-- Amount of each fine already written to the ledger
+-- ========================================
+
+-- NULL until the fine's assessment is in the ledger; when it differs from amount, the
+-- difference is still to be recorded as an adjustment
+ALTER TABLE fines ADD COLUMN recorded_amount DECIMAL(10, 2) NULL AFTER amount_paid;
+UPDATE fines SET recorded_amount = amount;
@@ -0,0 +1,207 @@
+package com.example.Library.Management.ITITIU22124.config;
+
+import com.example.Library.Management.ITITIU22124.model.ReservationStatus;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.LongUnaryOperator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Before/after timings of the hot repository lookups on a synthetic dataset: the
+ * queries run against the schema Hibernate would build (primary keys and foreign
+ * key indexes only), then again after the statements of V2__query_indexes.sql.
+ * Runs on the test profile's H2 by default; pass a MySQL spring.datasource.url to
+ * time it on InnoDB instead.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class QueryIndexTimingTest {
+
+    private static final int USERS = 5_000;
+    private static final int BOOKS = 10_000;
+    private static final int LOANS = 100_000;
+    private static final int RESERVATIONS = 30_000;
+    private static final int FINES = 20_000;
+    private static final int LOOKUPS = 500;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void queryIndexesSpeedUpTheHotLookups() throws IOException {
+        Random random = new Random(42);
+        long[] userIds = seedUsers();
+        long[] bookIds = seedBooks();
+        long[] loanIds = seedLoans(random, userIds, bookIds);
+        seedReservations(random, userIds, bookIds);
+        seedFines(random, loanIds);
+
+        LocalDate today = LocalDate.now();
+        List<Lookup> lookups = List.of(
+                new Lookup("open loans of a user (user_id, return_date)", pick(random, userIds),
+                        userId -> jdbcTemplate.queryForObject("SELECT COUNT(*) FROM borrow_records "
+                                + "WHERE user_id = ? AND return_date IS NULL", Long.class, userId)),
+                new Lookup("overdue loans (return_date, due_date)", random.longs(LOOKUPS / 10, 0, 30).toArray(),
+                        days -> jdbcTemplate.queryForList("SELECT id FROM borrow_records "
+                                + "WHERE return_date IS NULL AND due_date < ? ORDER BY due_date",
+                                Long.class, Date.valueOf(today.minusDays(days))).size()),
+                new Lookup("reservation queue (book_id, status, reservation_date)", pick(random, bookIds),
+                        bookId -> jdbcTemplate.queryForList("SELECT id FROM reservations "
+                                + "WHERE book_id = ? AND status = 'PENDING' ORDER BY reservation_date",
+                                Long.class, bookId).size()),
+                new Lookup("unpaid fines of a user (user_id, status)", pick(random, userIds),
+                        userId -> jdbcTemplate.queryForObject("SELECT COUNT(*) FROM fines "
+                                + "WHERE user_id = ? AND status = 'UNPAID'", Long.class, userId)));
+
+        Map<String, Timing> before = timeAll(lookups);
+        for (String statement : migrationStatements("db/migration/V2__query_indexes.sql")) {
+            jdbcTemplate.execute(statement);
+        }
+        Map<String, Timing> after = timeAll(lookups);
+
+        System.out.printf("Synthetic dataset: %d users, %d books, %d loans, %d reservations, %d fines%n",
+                USERS, BOOKS, LOANS, RESERVATIONS, FINES);
+        System.out.printf("%-56s %14s %14s%n", "query", "before (us/op)", "after (us/op)");
+        before.forEach((name, timing) -> System.out.printf("%-56s %14.1f %14.1f%n",
+                name, timing.microsPerCall(), after.get(name).microsPerCall()));
+
+        // The indexes must not change what the queries return
+        before.forEach((name, timing) -> assertThat(after.get(name).checksum()).isEqualTo(timing.checksum()));
+    }
+
+    private static Map<String, Timing> timeAll(List<Lookup> lookups) {
+        Map<String, Timing> timings = new LinkedHashMap<>();
+        for (Lookup lookup : lookups) {
+            // One untimed pass to warm the JIT and the statement cache
+            for (long arg : lookup.args()) {
+                lookup.query().applyAsLong(arg);
+            }
+            long checksum = 0;
+            long start = System.nanoTime();
+            for (long arg : lookup.args()) {
+                checksum += lookup.query().applyAsLong(arg);
+            }
+            timings.put(lookup.name(),
+                    new Timing((System.nanoTime() - start) / 1000.0 / lookup.args().length, checksum));
+        }
+        return timings;
+    }
+
+    private long[] seedUsers() {
+        List<Object[]> rows = new ArrayList<>(USERS);
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        for (int i = 0; i < USERS; i++) {
+            rows.add(new Object[] { "Reader " + i, "synthetic-" + i + "@example.com", "{noop}secret", "USER", now });
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO users (name, email, password, role, created_at) VALUES (?, ?, ?, ?, ?)",
+                rows);
+        return ids("SELECT id FROM users WHERE email LIKE 'synthetic-%' ORDER BY id");
+    }
+
+    private long[] seedBooks() {
+        List<Object[]> rows = new ArrayList<>(BOOKS);
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        for (int i = 0; i < BOOKS; i++) {
+            rows.add(new Object[] { "Title " + i, "Author " + (i % 2_000), "synthetic-" + i, "Category " + (i % 40),
+                    1950 + i % 75, 3, 3, now });
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO books (title, author, isbn, category, published_year, copies_total, "
+                + "copies_available, created_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?)", rows);
+        return ids("SELECT id FROM books WHERE isbn LIKE 'synthetic-%' ORDER BY id");
+    }
+
+    // About one loan in twenty is still out; up to a third of those are overdue
+    private long[] seedLoans(Random random, long[] userIds, long[] bookIds) {
+        List<Object[]> rows = new ArrayList<>(LOANS);
+        LocalDate today = LocalDate.now();
+        for (int i = 0; i < LOANS; i++) {
+            LocalDate borrowed = today.minusDays(random.nextInt(730));
+            LocalDate due = borrowed.plusDays(14);
+            boolean open = random.nextInt(20) == 0;
+            LocalDate returned = open ? null : borrowed.plusDays(random.nextInt(30));
+            rows.add(new Object[] { userIds[random.nextInt(userIds.length)], bookIds[random.nextInt(bookIds.length)],
+                    Date.valueOf(borrowed), Date.valueOf(open && random.nextInt(3) > 0 ? today.plusDays(7) : due),
+                    returned == null ? null : Date.valueOf(returned), open ? "BORROWED" : "RETURNED" });
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO borrow_records (user_id, book_id, borrow_date, due_date, return_date, "
+                + "status) VALUES (?, ?, ?, ?, ?, ?)", rows);
+        return ids("SELECT id FROM borrow_records ORDER BY id");
+    }
+
+    private void seedReservations(Random random, long[] userIds, long[] bookIds) {
+        List<Object[]> rows = new ArrayList<>(RESERVATIONS);
+        LocalDateTime now = LocalDateTime.now();
+        ReservationStatus[] statuses = ReservationStatus.values();
+        for (int i = 0; i < RESERVATIONS; i++) {
+            rows.add(new Object[] { userIds[random.nextInt(userIds.length)], bookIds[random.nextInt(bookIds.length)],
+                    Timestamp.valueOf(now.minusMinutes(random.nextInt(500_000))), statuses[random.nextInt(statuses.length)].name() });
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO reservations (user_id, book_id, reservation_date, status) "
+                + "VALUES (?, ?, ?, ?)", rows);
+    }
+
+    private void seedFines(Random random, long[] loanIds) {
+        List<Object[]> rows = new ArrayList<>(FINES);
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        // Distinct loans, each fined once, charged to the loan's borrower
+        for (int i = 0; i < FINES; i++) {
+            long loanId = loanIds[i * (loanIds.length / FINES)];
+            rows.add(new Object[] { loanId, random.nextInt(3) == 0 ? "PAID" : "UNPAID", now, loanId });
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO fines (user_id, borrow_record_id, amount, amount_paid, days_overdue, "
+                + "daily_rate, status, created_at) SELECT user_id, ?, 2.50, 0, 5, 0.50, ?, ? FROM borrow_records "
+                + "WHERE id = ?", rows);
+    }
+
+    private long[] ids(String sql) {
+        return jdbcTemplate.queryForList(sql, Long.class).stream().mapToLong(Long::longValue).toArray();
+    }
+
+    private static long[] pick(Random random, long[] ids) {
+        long[] picked = new long[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) {
+            picked[i] = ids[random.nextInt(ids.length)];
+        }
+        return picked;
+    }
+
+    // Statements of a migration script, comments dropped
+    private static List<String> migrationStatements(String path) throws IOException {
+        StringBuilder sql = new StringBuilder();
+        for (String line : new ClassPathResource(path).getContentAsString(StandardCharsets.UTF_8).split("\n")) {
+            if (!line.strip().startsWith("--")) {
+                sql.append(line).append('\n');
+            }
+        }
+        List<String> statements = new ArrayList<>();
+        for (String statement : sql.toString().split(";")) {
+            if (!statement.isBlank()) {
+                statements.add(statement.strip());
+            }
+        }
+        return statements;
+    }
+
+    private record Lookup(String name, long[] args, LongUnaryOperator query) {
+    }
+
+    private record Timing(double microsPerCall, long checksum) {
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.Library.Management.ITITIU22124.service;
+
+import com.example.Library.Management.ITITIU22124.exception.BadRequestException;
+import com.example.Library.Management.ITITIU22124.model.Book;
+import com.example.Library.Management.ITITIU22124.repository.BookRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongPredicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Many threads check out copies of one hot book at once. The conditional UPDATE in
+ * borrowCopy must hand out exactly the copies that exist; the old read, decrement in
+ * Java and save pattern is run alongside for comparison.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class BookServiceConcurrencyTest {
+
+    private static final int THREADS = 16;
+    private static final int COPIES = 2000;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void concurrentCheckoutsNeverOversell() throws Exception {
+        Book book = newBook();
+
+        Result result = runUntilRefused(bookId -> {
+            try {
+                bookService.borrowCopy(bookId);
+                return true;
+            } catch (BadRequestException e) {
+                return false;
+            }
+        }, book.getId());
+
+        assertThat(result.checkouts()).isEqualTo(COPIES);
+        assertThat(available(book.getId())).isZero();
+        System.out.printf("Conditional UPDATE: %d checkouts, %.0f checkouts/sec%n",
+                result.checkouts(), result.perSecond());
+    }
+
+    @Test
+    void returnsNeverExceedCopiesOwned() throws Exception {
+        Book book = newBook();
+
+        // Every copy is on the shelf, so each of these returns must be ignored
+        Result result = runUntilRefused(bookId -> {
+            bookService.returnCopy(bookId);
+            return false;
+        }, book.getId());
+
+        assertThat(result.checkouts()).isZero();
+        assertThat(available(book.getId())).isEqualTo(COPIES);
+    }
+
+    @Test
+    void readModifyWriteBaselineForComparison() throws Exception {
+        Book book = newBook();
+
+        // The pattern borrowCopy replaced: read the count, decrement in Java, save
+        Result result = runUntilRefused(bookId -> Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+            Book current = bookRepository.findById(bookId).orElseThrow();
+            if (current.getCopiesAvailable() <= 0) {
+                return false;
+            }
+            current.setCopiesAvailable(current.getCopiesAvailable() - 1);
+            bookRepository.save(current);
+            return true;
+        })), book.getId());
+
+        System.out.printf("Read-modify-write: %d checkouts for %d copies (%d oversold), %.0f checkouts/sec%n",
+                result.checkouts(), COPIES, result.checkouts() - COPIES, result.perSecond());
+        assertThat(available(book.getId())).isGreaterThanOrEqualTo(0);
+    }
+
+    private Result runUntilRefused(LongPredicate attempt, long bookId) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch startGate = new CountDownLatch(1);
+        try {
+            List<Future<Long>> workers = new ArrayList<>(THREADS);
+            for (int i = 0; i < THREADS; i++) {
+                workers.add(pool.submit(() -> {
+                    startGate.await();
+                    long taken = 0;
+                    // Keep going until an attempt is refused, e.g. the shelf is empty
+                    while (attempt.test(bookId)) {
+                        taken++;
+                    }
+                    return taken;
+                }));
+            }
+            long start = System.nanoTime();
+            startGate.countDown();
+            long checkouts = 0;
+            for (Future<Long> worker : workers) {
+                checkouts += worker.get(2, TimeUnit.MINUTES);
+            }
+            long elapsedNanos = System.nanoTime() - start;
+            return new Result(checkouts, checkouts * 1e9 / elapsedNanos);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private Book newBook() {
+        Book book = new Book();
+        book.setTitle("Hot title");
+        book.setAuthor("Popular author");
+        book.setIsbn(UUID.randomUUID().toString());
+        book.setCopiesTotal(COPIES);
+        book.setCopiesAvailable(COPIES);
+        return bookService.addBook(book);
+    }
+
+    private int available(long bookId) {
+        return jdbcTemplate.queryForObject("SELECT copies_available FROM books WHERE id = ?", Integer.class, bookId);
+    }
+
+    private record Result(long checkouts, double perSecond) {
+    }
+}
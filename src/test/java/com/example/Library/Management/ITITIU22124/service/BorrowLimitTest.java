@@ -0,0 +1,159 @@
+package com.example.Library.Management.ITITIU22124.service;
+
+import com.example.Library.Management.ITITIU22124.exception.BadRequestException;
+import com.example.Library.Management.ITITIU22124.model.Book;
+import com.example.Library.Management.ITITIU22124.model.User;
+import com.example.Library.Management.ITITIU22124.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * Borrowing limits checked against the in-memory patron summary
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = { "library.borrow.max-active-loans=2", "library.borrow.max-unpaid-fines=10.00" })
+class BorrowLimitTest {
+
+    @Autowired
+    private BorrowService borrowService;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PatronSummaryCache patronSummaries;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void refusesASecondCopyOfTheSameBook() {
+        Long userId = newUser();
+        Long bookId = newBook();
+        borrowService.borrowBook(userId, bookId);
+
+        assertThatThrownBy(() -> borrowService.borrowBook(userId, bookId))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessageContaining("already has a copy");
+        assertThat(available(bookId)).isEqualTo(2);
+    }
+
+    @Test
+    void refusesADuplicateWhileTheFirstCheckoutIsUncommitted() {
+        Long userId = newUser();
+        Long bookId = newBook();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            borrowService.borrowBook(userId, bookId);
+            // The summary is evicted before this checkout commits
+            patronSummaries.invalidate(List.of(userId));
+
+            assertThatThrownBy(() -> CompletableFuture.runAsync(() -> borrowService.borrowBook(userId, bookId)).join())
+                    .hasCauseInstanceOf(BadRequestException.class)
+                    .hasMessageContaining("already has a copy");
+        });
+        assertThat(available(bookId)).isEqualTo(2);
+    }
+
+    @Test
+    void rolledBackCheckoutDoesNotCountAfterAReload() {
+        Long userId = newUser();
+        Long bookId = newBook();
+
+        assertThatThrownBy(() -> transactionTemplate.executeWithoutResult(status -> {
+            borrowService.borrowBook(userId, bookId);
+            patronSummaries.invalidate(List.of(userId));
+            throw new IllegalStateException("Checkout failed");
+        })).isInstanceOf(IllegalStateException.class);
+
+        patronSummaries.invalidate(List.of(userId));
+        borrowService.borrowBook(userId, bookId);
+        assertThat(available(bookId)).isEqualTo(2);
+    }
+
+    @Test
+    void refusesCheckoutAtTheLoanLimit() {
+        Long userId = newUser();
+        borrowService.borrowBook(userId, newBook());
+        borrowService.borrowBook(userId, newBook());
+        Long thirdBook = newBook();
+
+        assertThatThrownBy(() -> borrowService.borrowBook(userId, thirdBook))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessageContaining("Loan limit reached");
+        assertThat(available(thirdBook)).isEqualTo(3);
+    }
+
+    @Test
+    void returningABookFreesItsSlot() {
+        Long userId = newUser();
+        Long firstLoan = borrowService.borrowBook(userId, newBook()).getId();
+        borrowService.borrowBook(userId, newBook());
+
+        borrowService.returnBook(firstLoan);
+
+        // The summary is refreshed after commit on the event executor
+        Long bookId = newBook();
+        await().atMost(Duration.ofSeconds(5)).ignoreException(BadRequestException.class)
+                .untilAsserted(() -> borrowService.borrowBook(userId, bookId));
+        assertThat(available(bookId)).isEqualTo(2);
+    }
+
+    @Test
+    void refusesCheckoutAboveTheUnpaidFineLimit() {
+        Long userId = newUser();
+        jdbcTemplate.update("INSERT INTO user_fine_balances (user_id, balance, unpaid_count, updated_at) "
+                + "VALUES (?, 12.50, 1, ?)", userId, Timestamp.valueOf(LocalDateTime.now()));
+        Long bookId = newBook();
+
+        assertThatThrownBy(() -> borrowService.borrowBook(userId, bookId))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessageContaining("Unpaid fines");
+        assertThat(available(bookId)).isEqualTo(3);
+    }
+
+    private Long newUser() {
+        String key = UUID.randomUUID().toString();
+        return userRepository.save(User.builder()
+                .name("Reader " + key)
+                .email(key + "@example.com")
+                .password("{noop}secret")
+                .build()).getId();
+    }
+
+    private Long newBook() {
+        Book book = new Book();
+        book.setTitle("Title");
+        book.setAuthor("Author");
+        book.setIsbn(UUID.randomUUID().toString());
+        book.setCopiesTotal(3);
+        return bookService.addBook(book).getId();
+    }
+
+    private int available(Long bookId) {
+        return jdbcTemplate.queryForObject("SELECT copies_available FROM books WHERE id = ?", Integer.class, bookId);
+    }
+}
@@ -0,0 +1,165 @@
+package com.example.Library.Management.ITITIU22124.service;
+
+import com.example.Library.Management.ITITIU22124.dto.BatchItemResult;
+import com.example.Library.Management.ITITIU22124.model.Book;
+import com.example.Library.Management.ITITIU22124.model.User;
+import com.example.Library.Management.ITITIU22124.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Return bins racing on the same loans: each loan is returned once, and only the
+ * returns that closed a loan put a copy back on the shelf.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class ConcurrentReturnTest {
+
+    private static final int THREADS = 8;
+    private static final int LOANS = 20;
+
+    @Autowired
+    private BorrowService borrowService;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void sameBorrowIdsReturnedOnce() throws Exception {
+        Long bookId = newBook();
+        List<Long> borrowIds = openLoans(bookId);
+
+        List<BatchItemResult> results = race(() -> {
+            List<Long> shuffled = new ArrayList<>(borrowIds);
+            Collections.shuffle(shuffled);
+            return borrowService.returnBooks(shuffled, null);
+        });
+
+        assertThat(results.stream().filter(BatchItemResult::isSuccess)).hasSize(LOANS);
+        assertThat(results.stream().filter(result -> !result.isSuccess()))
+                .allMatch(result -> result.getMessage().equals("Book already returned"));
+        assertThat(available(bookId)).isEqualTo(LOANS);
+    }
+
+    @Test
+    void isbnEntriesMoveOnToAnotherOpenLoan() throws Exception {
+        Long bookId = newBook();
+        openLoans(bookId);
+        String isbn = jdbcTemplate.queryForObject("SELECT isbn FROM books WHERE id = ?", String.class, bookId);
+
+        // 24 copies dropped in the bins for 20 open loans
+        List<BatchItemResult> results = race(() -> borrowService.returnBooks(null, Collections.nCopies(3, isbn)));
+
+        assertThat(results.stream().filter(BatchItemResult::isSuccess)).hasSize(LOANS);
+        assertThat(results.stream().filter(BatchItemResult::isSuccess).map(BatchItemResult::getBorrowId))
+                .doesNotHaveDuplicates();
+        assertThat(available(bookId)).isEqualTo(LOANS);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM borrow_records WHERE book_id = ? "
+                + "AND return_date IS NULL", Integer.class, bookId)).isZero();
+    }
+
+    @Test
+    void singleReturnLosesToABinReturn() throws Exception {
+        Long bookId = newBook();
+        List<Long> borrowIds = openLoans(bookId);
+
+        List<BatchItemResult> results = race(() -> {
+            List<BatchItemResult> returned = new ArrayList<>();
+            for (Long borrowId : borrowIds) {
+                try {
+                    borrowService.returnBook(borrowId);
+                    returned.add(BatchItemResult.ok(borrowId, borrowId, "Returned"));
+                } catch (RuntimeException e) {
+                    returned.add(BatchItemResult.failed(borrowId, e.getMessage()));
+                }
+            }
+            returned.addAll(borrowService.returnBooks(borrowIds, null));
+            return returned;
+        });
+
+        assertThat(results.stream().filter(BatchItemResult::isSuccess)).hasSize(LOANS);
+        assertThat(available(bookId)).isEqualTo(LOANS);
+    }
+
+    private List<BatchItemResult> race(Callable<List<BatchItemResult>> returns) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch startGate = new CountDownLatch(1);
+        try {
+            List<Future<List<BatchItemResult>>> workers = new ArrayList<>(THREADS);
+            for (int i = 0; i < THREADS; i++) {
+                workers.add(pool.submit(() -> {
+                    startGate.await();
+                    return returns.call();
+                }));
+            }
+            startGate.countDown();
+            List<BatchItemResult> results = new ArrayList<>();
+            for (Future<List<BatchItemResult>> worker : workers) {
+                results.addAll(worker.get(2, TimeUnit.MINUTES));
+            }
+            return results;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    // LOANS copies of one book out with as many readers, none of them overdue
+    private List<Long> openLoans(Long bookId) {
+        List<Long> borrowIds = new ArrayList<>(LOANS);
+        LocalDate today = LocalDate.now();
+        for (int i = 0; i < LOANS; i++) {
+            jdbcTemplate.update("INSERT INTO borrow_records (user_id, book_id, borrow_date, due_date, status) "
+                    + "VALUES (?, ?, ?, ?, 'BORROWED')", newUser(), bookId, Date.valueOf(today),
+                    Date.valueOf(today.plusWeeks(2)));
+            borrowIds.add(jdbcTemplate.queryForObject("SELECT MAX(id) FROM borrow_records", Long.class));
+        }
+        return borrowIds;
+    }
+
+    private Long newUser() {
+        String key = UUID.randomUUID().toString();
+        return userRepository.save(User.builder()
+                .name("Reader " + key)
+                .email(key + "@example.com")
+                .password("{noop}secret")
+                .build()).getId();
+    }
+
+    private Long newBook() {
+        Book book = new Book();
+        book.setTitle("Title");
+        book.setAuthor("Author");
+        book.setIsbn(UUID.randomUUID().toString());
+        book.setCopiesTotal(LOANS);
+        book.setCopiesAvailable(0);
+        return bookService.addBook(book).getId();
+    }
+
+    private int available(Long bookId) {
+        return jdbcTemplate.queryForObject("SELECT copies_available FROM books WHERE id = ?", Integer.class, bookId);
+    }
+}
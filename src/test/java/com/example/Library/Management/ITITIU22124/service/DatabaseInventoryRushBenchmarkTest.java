@@ -0,0 +1,15 @@
+package com.example.Library.Management.ITITIU22124.service;
+
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * Rush against the conditional UPDATE on books.copies_available
+ */
+@TestPropertySource(properties = "library.inventory.mode=database")
+class DatabaseInventoryRushBenchmarkTest extends InventoryRushBenchmark {
+
+    @Override
+    protected String mode() {
+        return "database";
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.Library.Management.ITITIU22124.service;
+
+import com.example.Library.Management.ITITIU22124.exception.ConflictException;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * A manual accrual request must not start a second run while another one holds the lease.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class FineAccrualJobTest {
+
+    @Autowired
+    private FineAccrualJob fineAccrualJob;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void startIsRefusedWhileAnotherRunHoldsTheLease() {
+        jdbcTemplate.update("INSERT INTO job_checkpoints (job_name, run_date, last_id, processed, locked_by, "
+                + "locked_until) VALUES (?, ?, 0, 0, 'other-instance', ?)",
+                FineAccrualJob.JOB_NAME, Date.valueOf(LocalDate.now()),
+                Timestamp.valueOf(LocalDateTime.now().plusMinutes(10)));
+
+        assertThatThrownBy(() -> fineAccrualJob.start())
+                .isInstanceOf(ConflictException.class)
+                .hasMessageContaining("already running");
+        assertThat(jdbcTemplate.queryForObject("SELECT locked_by FROM job_checkpoints WHERE job_name = ?",
+                String.class, FineAccrualJob.JOB_NAME)).isEqualTo("other-instance");
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.Library.Management.ITITIU22124.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fines worked out per loan by FineCalculator against the BigDecimal arithmetic it
+ * replaced, over loans up to 90 days overdue so both capped and uncapped fines occur.
+ * Run with main (after test-compile) to get throughput together with the GC profiler's
+ * allocation rate; gc.alloc.rate.norm is the bytes allocated per fine.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FineCalculatorBenchmark {
+
+    private static final int LOANS = 1024;
+    private static final BigDecimal DAILY_RATE = new BigDecimal("0.50");
+    private static final BigDecimal MAX_AMOUNT = new BigDecimal("25.00");
+    private static final int GRACE_PERIOD_DAYS = 0;
+
+    private final FineCalculator calculator = new FineCalculator(DAILY_RATE, MAX_AMOUNT, GRACE_PERIOD_DAYS);
+    private final LocalDate[] dueDates = new LocalDate[LOANS];
+    private final long[] dueEpochDays = new long[LOANS];
+    private final LocalDate today = LocalDate.of(2026, 10, 18);
+    private final long todayEpochDay = today.toEpochDay();
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        for (int i = 0; i < LOANS; i++) {
+            dueDates[i] = today.minusDays(random.nextInt(90));
+            dueEpochDays[i] = dueDates[i].toEpochDay();
+        }
+    }
+
+    /**
+     * The arithmetic before FineCalculator: days between dates, then multiply and compare BigDecimals
+     */
+    @Benchmark
+    @OperationsPerInvocation(LOANS)
+    public void bigDecimal(Blackhole blackhole) {
+        for (LocalDate dueDate : dueDates) {
+            long daysOverdue = ChronoUnit.DAYS.between(dueDate, today) - GRACE_PERIOD_DAYS;
+            BigDecimal amount = DAILY_RATE.multiply(BigDecimal.valueOf(daysOverdue));
+            blackhole.consume(amount.compareTo(MAX_AMOUNT) > 0 ? MAX_AMOUNT : amount);
+        }
+    }
+
+    /**
+     * Accrual's path: epoch days in, cents out, compared with the running fine in cents
+     */
+    @Benchmark
+    @OperationsPerInvocation(LOANS)
+    public void cents(Blackhole blackhole) {
+        for (long dueEpochDay : dueEpochDays) {
+            blackhole.consume(calculator.fineCents(calculator.daysOverdue(dueEpochDay, todayEpochDay)));
+        }
+    }
+
+    /**
+     * A return's path: the same, converted to the BigDecimal stored on the fine
+     */
+    @Benchmark
+    @OperationsPerInvocation(LOANS)
+    public void centsToAmount(Blackhole blackhole) {
+        for (LocalDate dueDate : dueDates) {
+            blackhole.consume(calculator.fineAmount(calculator.daysOverdue(dueDate, today)));
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(FineCalculatorBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.Library.Management.ITITIU22124.service;
+
+import com.example.Library.Management.ITITIU22124.model.Book;
+import com.example.Library.Management.ITITIU22124.model.BorrowRecord;
+import com.example.Library.Management.ITITIU22124.model.Fine;
+import com.example.Library.Management.ITITIU22124.model.User;
+import com.example.Library.Management.ITITIU22124.repository.BookRepository;
+import com.example.Library.Management.ITITIU22124.repository.BorrowRepository;
+import com.example.Library.Management.ITITIU22124.repository.FineRepository;
+import com.example.Library.Management.ITITIU22124.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Ledger entries are taken from the fine rows as written, so each change to a fine
+ * reaches the user's balance exactly once, whoever wrote it.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class FineLedgerRecordTest {
+
+    @Autowired
+    private FineService fineService;
+
+    @Autowired
+    private FineLedger fineLedger;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private BorrowRepository borrowRepository;
+
+    @Autowired
+    private FineRepository fineRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void newFineOnReturnIsAssessedOnce() {
+        BorrowRecord loan = newLoan();
+
+        Fine fine = fineService.calculateAndCreateFine(loan, LocalDate.now());
+        record(loan);
+
+        assertThat(fine.getAmount()).isEqualByComparingTo("3.00");
+        assertBalance(loan, "3.00", 1);
+        assertThat(entries(fine)).containsExactly("ASSESSMENT 3.00");
+    }
+
+    @Test
+    void returnCountsAccrualItDidNotSee() {
+        BorrowRecord loan = newLoan();
+        Fine fine = runningFine(loan, "2.00");
+        record(loan);
+        // An accrual run moved the fine on after the return last looked at it
+        jdbcTemplate.update("UPDATE fines SET amount = 2.50 WHERE id = ?", fine.getId());
+        record(loan);
+
+        fineService.calculateAndCreateFine(loan, LocalDate.now());
+
+        assertBalance(loan, "3.00", 1);
+        assertThat(entries(fine)).containsExactly("ASSESSMENT 2.00", "ADJUSTMENT 0.50", "ADJUSTMENT 0.50");
+    }
+
+    @Test
+    void recordingUnchangedFinesAddsNothing() {
+        BorrowRecord loan = newLoan();
+        Fine fine = runningFine(loan, "2.00");
+
+        assertThat(record(loan)).hasSize(1);
+        assertThat(record(loan)).isEmpty();
+
+        assertBalance(loan, "2.00", 1);
+        assertThat(entries(fine)).containsExactly("ASSESSMENT 2.00");
+    }
+
+    private List<FineLedger.Recorded> record(BorrowRecord loan) {
+        return transactionTemplate.execute(status -> fineLedger.recordFines(List.of(loan.getId())));
+    }
+
+    private void assertBalance(BorrowRecord loan, String amount, long unpaidCount) {
+        FineLedger.Balance balance = fineLedger.balance(loan.getUser().getId());
+        assertThat(balance.amount()).isEqualByComparingTo(amount);
+        assertThat(balance.unpaidCount()).isEqualTo(unpaidCount);
+    }
+
+    private List<String> entries(Fine fine) {
+        return jdbcTemplate.query("SELECT entry_type, amount FROM fine_ledger WHERE fine_id = ? ORDER BY id",
+                (rs, rowNum) -> rs.getString(1) + " " + rs.getBigDecimal(2).setScale(2), fine.getId());
+    }
+
+    // A running fine written by an accrual run, not yet in the ledger
+    private Fine runningFine(BorrowRecord loan, String amount) {
+        Fine fine = new Fine();
+        fine.setUser(loan.getUser());
+        fine.setBorrowRecord(loan);
+        fine.setAmount(new BigDecimal(amount));
+        fine.setDaysOverdue(4);
+        fine.setDailyRate(new BigDecimal("0.50"));
+        fine.setDueDate(loan.getDueDate());
+        return fineRepository.save(fine);
+    }
+
+    // A loan six days overdue, so a return today is fined 3.00
+    private BorrowRecord newLoan() {
+        String key = UUID.randomUUID().toString();
+        User user = userRepository.save(User.builder()
+                .name("Reader " + key)
+                .email(key + "@example.com")
+                .password("{noop}secret")
+                .build());
+
+        Book book = new Book();
+        book.setTitle("Title");
+        book.setAuthor("Author");
+        book.setIsbn(key);
+        book.setCopiesTotal(1);
+        book.setCopiesAvailable(0);
+        book = bookRepository.save(book);
+
+        BorrowRecord loan = new BorrowRecord();
+        loan.setUser(user);
+        loan.setBook(book);
+        loan.setBorrowDate(LocalDate.now().minusDays(20));
+        loan.setDueDate(LocalDate.now().minusDays(6));
+        return borrowRepository.save(loan);
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.Library.Management.ITITIU22124.service;
+
+import com.example.Library.Management.ITITIU22124.model.Book;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * The ledger's counters are only changed in place, so catalog reloads, total changes
+ * and rollbacks never undo a take or a return made alongside them.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = "library.inventory.mode=ledger")
+class InventoryLedgerTest {
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private InventoryLedger inventoryLedger;
+
+    @Autowired
+    private CatalogIndexLoader catalogIndexLoader;
+
+    @Autowired
+    private BookCache bookCache;
+
+    @Autowired
+    private BookFacetIndex bookFacetIndex;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void catalogReloadKeepsCopiesTakenByOpenTransactions() {
+        Long bookId = newBook(3);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            bookService.borrowCopy(bookId);
+            // e.g. a CSV import finishing while this checkout has not committed yet
+            catalogIndexLoader.reload();
+        });
+
+        assertThat(inventoryLedger.available(bookId)).isEqualTo(2);
+    }
+
+    @Test
+    void changingTheTotalKeepsCopiesOut() {
+        Long bookId = newBook(3);
+        bookService.borrowCopy(bookId);
+
+        Book edit = new Book();
+        edit.setCopiesTotal(5);
+        bookService.updateBook(bookId, edit);
+
+        assertThat(inventoryLedger.available(bookId)).isEqualTo(4);
+    }
+
+    @Test
+    void rolledBackReturnDoesNotDropBelowZero() {
+        Long bookId = newBook(1);
+        bookService.borrowCopy(bookId);
+
+        assertThatThrownBy(() -> transactionTemplate.executeWithoutResult(status -> {
+            bookService.returnCopy(bookId);
+            // The returned copy goes out again before this transaction rolls back
+            CompletableFuture.runAsync(() -> bookService.borrowCopy(bookId)).join();
+            throw new IllegalStateException("Return failed");
+        })).isInstanceOf(IllegalStateException.class);
+
+        assertThat(inventoryLedger.available(bookId)).isZero();
+    }
+
+    @Test
+    void viewsShowTheLedgerCountAfterCheckouts() {
+        Long bookId = newBook(2);
+        bookCache.get(bookId);
+
+        bookService.borrowCopy(bookId);
+        bookService.borrowCopy(bookId);
+
+        assertThat(bookCache.get(bookId).orElseThrow().getCopiesAvailable()).isZero();
+        assertThat(bookFacetIndex.search(null, null, null, true, 10_000).bookIds()).doesNotContain(bookId);
+    }
+
+    private Long newBook(int copies) {
+        Book book = new Book();
+        book.setTitle("Atlas");
+        book.setAuthor("Cartographer");
+        book.setIsbn(UUID.randomUUID().toString());
+        book.setCopiesTotal(copies);
+        return bookService.addBook(book).getId();
+    }
+}
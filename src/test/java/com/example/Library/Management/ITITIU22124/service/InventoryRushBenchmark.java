@@ -0,0 +1,113 @@
+package com.example.Library.Management.ITITIU22124.service;
+
+import com.example.Library.Management.ITITIU22124.exception.BadRequestException;
+import com.example.Library.Management.ITITIU22124.model.Book;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Semester-start rush: many patrons check out the same few titles until the shelves
+ * are empty. Run once per inventory mode by the subclasses; each run checks that no
+ * title was oversold and prints its checkouts/sec for comparison.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+abstract class InventoryRushBenchmark {
+
+    private static final int THREADS = 32;
+    private static final int TITLES = 4;
+    private static final int COPIES_PER_TITLE = 1000;
+
+    @Autowired
+    protected BookService bookService;
+
+    @Autowired
+    protected InventoryLedger inventoryLedger;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    protected abstract String mode();
+
+    @Test
+    void rushOnAFewTitles() throws Exception {
+        List<Long> bookIds = new ArrayList<>(TITLES);
+        for (int i = 0; i < TITLES; i++) {
+            bookIds.add(newBook().getId());
+        }
+        AtomicLongArray taken = new AtomicLongArray(TITLES);
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch startGate = new CountDownLatch(1);
+        long elapsedNanos;
+        try {
+            List<Future<?>> workers = new ArrayList<>(THREADS);
+            for (int i = 0; i < THREADS; i++) {
+                int first = i % TITLES;
+                workers.add(pool.submit(() -> {
+                    startGate.await();
+                    boolean[] empty = new boolean[TITLES];
+                    int left = TITLES;
+                    // Cycle over the titles, starting at a different one per thread, until all are gone
+                    for (int n = first; left > 0; n = (n + 1) % TITLES) {
+                        if (empty[n]) {
+                            continue;
+                        }
+                        try {
+                            bookService.borrowCopy(bookIds.get(n));
+                            taken.incrementAndGet(n);
+                        } catch (BadRequestException e) {
+                            empty[n] = true;
+                            left--;
+                        }
+                    }
+                    return null;
+                }));
+            }
+            long start = System.nanoTime();
+            startGate.countDown();
+            for (Future<?> worker : workers) {
+                worker.get(5, TimeUnit.MINUTES);
+            }
+            elapsedNanos = System.nanoTime() - start;
+        } finally {
+            pool.shutdownNow();
+        }
+
+        // Ledger mode writes back behind the checkouts; push out what is pending
+        inventoryLedger.flush();
+        for (int i = 0; i < TITLES; i++) {
+            assertThat(taken.get(i)).isEqualTo(COPIES_PER_TITLE);
+            assertThat(jdbcTemplate.queryForObject("SELECT copies_available FROM books WHERE id = ?",
+                    Integer.class, bookIds.get(i))).isZero();
+        }
+        long checkouts = (long) TITLES * COPIES_PER_TITLE;
+        System.out.printf("Inventory mode %s: %d checkouts of %d titles by %d threads, %.0f checkouts/sec%n",
+                mode(), checkouts, TITLES, THREADS, checkouts * 1e9 / elapsedNanos);
+    }
+
+    private Book newBook() {
+        Book book = new Book();
+        book.setTitle("Course reader");
+        book.setAuthor("Faculty");
+        book.setIsbn(UUID.randomUUID().toString());
+        book.setCopiesTotal(COPIES_PER_TITLE);
+        book.setCopiesAvailable(COPIES_PER_TITLE);
+        return bookService.addBook(book);
+    }
+}
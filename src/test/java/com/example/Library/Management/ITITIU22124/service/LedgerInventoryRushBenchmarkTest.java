@@ -0,0 +1,38 @@
+package com.example.Library.Management.ITITIU22124.service;
+
+import com.example.Library.Management.ITITIU22124.model.Book;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Rush against the in-memory counters with write-behind flushing
+ */
+@TestPropertySource(properties = "library.inventory.mode=ledger")
+class LedgerInventoryRushBenchmarkTest extends InventoryRushBenchmark {
+
+    @Override
+    protected String mode() {
+        return "ledger";
+    }
+
+    @Test
+    void adminEditOfAvailableCopiesReachesTheCounter() {
+        Book book = new Book();
+        book.setTitle("Atlas");
+        book.setAuthor("Cartographer");
+        book.setIsbn(UUID.randomUUID().toString());
+        book.setCopiesTotal(5);
+        Long bookId = bookService.addBook(book).getId();
+
+        Book edit = new Book();
+        edit.setCopiesAvailable(2);
+        bookService.updateBook(bookId, edit);
+
+        assertThat(inventoryLedger.available(bookId)).isEqualTo(2);
+        assertThat(bookService.getBookById(bookId).orElseThrow().getCopiesAvailable()).isEqualTo(2);
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.Library.Management.ITITIU22124.service;
+
+import com.example.Library.Management.ITITIU22124.model.Book;
+import com.example.Library.Management.ITITIU22124.model.BorrowRecord;
+import com.example.Library.Management.ITITIU22124.model.Fine;
+import com.example.Library.Management.ITITIU22124.model.Reservation;
+import com.example.Library.Management.ITITIU22124.model.User;
+import com.example.Library.Management.ITITIU22124.repository.BookRepository;
+import com.example.Library.Management.ITITIU22124.repository.BorrowRepository;
+import com.example.Library.Management.ITITIU22124.repository.FineRepository;
+import com.example.Library.Management.ITITIU22124.repository.ReservationRepository;
+import com.example.Library.Management.ITITIU22124.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The listing endpoints must run one SQL statement however many rows they return:
+ * no lazy association may be touched while building the DTOs.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class ListingQueryCountTest {
+
+    @Autowired
+    private BorrowService borrowService;
+
+    @Autowired
+    private ReservationService reservationService;
+
+    @Autowired
+    private FineService fineService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private BorrowRepository borrowRepository;
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    @Autowired
+    private FineRepository fineRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void borrowListingIsOneStatement() {
+        assertConstantStatements(borrowService::getAllBorrows);
+    }
+
+    @Test
+    void overdueListingIsOneStatement() {
+        assertConstantStatements(borrowService::getOverdueBooks);
+    }
+
+    @Test
+    void reservationListingIsOneStatement() {
+        assertConstantStatements(reservationService::getAllReservations);
+    }
+
+    @Test
+    void fineListingIsOneStatement() {
+        assertConstantStatements(fineService::getAllFines);
+    }
+
+    @Test
+    void unpaidFineListingIsOneStatement() {
+        assertConstantStatements(fineService::getAllUnpaidFines);
+    }
+
+    private void assertConstantStatements(Supplier<List<?>> listing) {
+        createLoans(2);
+        long few = countStatements(listing);
+        createLoans(40);
+        long many = countStatements(listing);
+
+        assertThat(few).isEqualTo(1);
+        assertThat(many).isEqualTo(few);
+    }
+
+    private long countStatements(Supplier<List<?>> listing) {
+        statistics.clear();
+        List<?> rows = listing.get();
+        long statements = statistics.getPrepareStatementCount();
+        assertThat(rows).isNotEmpty();
+        return statements;
+    }
+
+    // Each loan gets its own user and book, is overdue, has a fine and a pending reservation
+    private void createLoans(int count) {
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int i = 0; i < count; i++) {
+                String key = UUID.randomUUID().toString();
+                User user = userRepository.save(User.builder()
+                        .name("Reader " + key)
+                        .email(key + "@example.com")
+                        .password("{noop}secret")
+                        .build());
+
+                Book book = new Book();
+                book.setTitle("Title " + key);
+                book.setAuthor("Author " + key);
+                book.setIsbn(key);
+                book.setCopiesTotal(1);
+                book.setCopiesAvailable(0);
+                book = bookRepository.save(book);
+
+                BorrowRecord loan = new BorrowRecord();
+                loan.setUser(user);
+                loan.setBook(book);
+                loan.setBorrowDate(LocalDate.now().minusDays(20));
+                loan.setDueDate(LocalDate.now().minusDays(6));
+                loan = borrowRepository.save(loan);
+
+                Fine fine = new Fine();
+                fine.setUser(user);
+                fine.setBorrowRecord(loan);
+                fine.setAmount(new BigDecimal("3.00"));
+                fine.setDaysOverdue(6);
+                fine.setDailyRate(new BigDecimal("0.50"));
+                fine.setDueDate(loan.getDueDate());
+                fineRepository.save(fine);
+
+                Reservation reservation = new Reservation();
+                reservation.setUser(user);
+                reservation.setBook(book);
+                reservationRepository.save(reservation);
+            }
+        });
+    }
+}
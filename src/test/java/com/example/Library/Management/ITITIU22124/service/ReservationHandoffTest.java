@@ -0,0 +1,109 @@
+package com.example.Library.Management.ITITIU22124.service;
+
+import com.example.Library.Management.ITITIU22124.event.EventMetrics;
+import com.example.Library.Management.ITITIU22124.model.Book;
+import com.example.Library.Management.ITITIU22124.model.User;
+import com.example.Library.Management.ITITIU22124.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * A single return commits first; the waiting reservation gets the copy afterwards on the
+ * event executor, with its READY email queued in the handoff's own transaction.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = "library.email.enabled=true")
+class ReservationHandoffTest {
+
+    @Autowired
+    private BorrowService borrowService;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private ReservationService reservationService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EventMetrics eventMetrics;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void returnedCopyGoesToTheWaitingReservationAfterCommit() {
+        Long bookId = newBook(1);
+        Long loanId = borrowService.borrowBook(newUser().getId(), bookId).getId();
+        User waiting = newUser();
+        Long reservationId = reservationService.createReservation(waiting.getId(), bookId).getId();
+
+        borrowService.returnBook(loanId);
+
+        await().atMost(Duration.ofSeconds(5))
+                .untilAsserted(() -> assertThat(reservationStatus(reservationId)).isEqualTo("READY"));
+        assertThat(available(bookId)).isZero();
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM email_outbox WHERE recipient = ? "
+                + "AND template = 'email/reservation-ready'", Integer.class, waiting.getEmail())).isEqualTo(1);
+        assertThat(handoffsHandled()).isPositive();
+    }
+
+    @Test
+    void batchReturnHandsTheCopyOverOnlyOnce() {
+        Long bookId = newBook(2);
+        Long firstLoan = borrowService.borrowBook(newUser().getId(), bookId).getId();
+        Long secondLoan = borrowService.borrowBook(newUser().getId(), bookId).getId();
+        Long reservationId = reservationService.createReservation(newUser().getId(), bookId).getId();
+
+        borrowService.returnBooks(List.of(firstLoan, secondLoan), null);
+
+        assertThat(reservationStatus(reservationId)).isEqualTo("READY");
+        assertThat(available(bookId)).isEqualTo(1);
+    }
+
+    private long handoffsHandled() {
+        Map<String, Object> stats = eventMetrics.snapshot().get("BookReturned/reservationHandoff");
+        return stats == null ? 0 : (Long) stats.get("handled");
+    }
+
+    private User newUser() {
+        String key = UUID.randomUUID().toString();
+        return userRepository.save(User.builder()
+                .name("Reader " + key)
+                .email(key + "@example.com")
+                .password("{noop}secret")
+                .build());
+    }
+
+    private Long newBook(int copies) {
+        Book book = new Book();
+        book.setTitle("Title");
+        book.setAuthor("Author");
+        book.setIsbn(UUID.randomUUID().toString());
+        book.setCopiesTotal(copies);
+        return bookService.addBook(book).getId();
+    }
+
+    private String reservationStatus(Long reservationId) {
+        return jdbcTemplate.queryForObject("SELECT status FROM reservations WHERE id = ?", String.class, reservationId);
+    }
+
+    private int available(Long bookId) {
+        return jdbcTemplate.queryForObject("SELECT copies_available FROM books WHERE id = ?", Integer.class, bookId);
+    }
+}
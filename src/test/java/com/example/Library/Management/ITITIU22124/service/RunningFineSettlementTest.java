@@ -0,0 +1,121 @@
+package com.example.Library.Management.ITITIU22124.service;
+
+import com.example.Library.Management.ITITIU22124.exception.BadRequestException;
+import com.example.Library.Management.ITITIU22124.model.Book;
+import com.example.Library.Management.ITITIU22124.model.BorrowRecord;
+import com.example.Library.Management.ITITIU22124.model.Fine;
+import com.example.Library.Management.ITITIU22124.model.FineStatus;
+import com.example.Library.Management.ITITIU22124.model.User;
+import com.example.Library.Management.ITITIU22124.repository.BookRepository;
+import com.example.Library.Management.ITITIU22124.repository.BorrowRepository;
+import com.example.Library.Management.ITITIU22124.repository.FineRepository;
+import com.example.Library.Management.ITITIU22124.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * A fine accruing on a book that is still out must not be settled, or accrual would
+ * stop updating it and the return would charge nothing more.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class RunningFineSettlementTest {
+
+    @Autowired
+    private FineService fineService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private BorrowRepository borrowRepository;
+
+    @Autowired
+    private FineRepository fineRepository;
+
+    @Test
+    void runningFineCannotBePaidInFull() {
+        Fine fine = newFine(null);
+
+        assertThatThrownBy(() -> fineService.payFine(fine.getId(), null))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessageContaining("still accruing");
+        assertThat(fineRepository.findById(fine.getId()).orElseThrow().getStatus()).isEqualTo(FineStatus.UNPAID);
+    }
+
+    @Test
+    void runningFineCanBePaidInPart() {
+        Fine fine = newFine(null);
+
+        Fine paid = fineService.payFine(fine.getId(), new BigDecimal("1.00"));
+
+        assertThat(paid.getStatus()).isEqualTo(FineStatus.UNPAID);
+        assertThat(paid.getAmountPaid()).isEqualByComparingTo("1.00");
+    }
+
+    @Test
+    void runningFineCannotBeWaived() {
+        Fine fine = newFine(null);
+
+        assertThatThrownBy(() -> fineService.waiveFine(fine.getId()))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessageContaining("still accruing");
+    }
+
+    @Test
+    void fineOnAReturnedBookCanBeSettled() {
+        Fine paid = fineService.payFine(newFine(LocalDate.now()).getId(), null);
+        Fine waived = fineService.waiveFine(newFine(LocalDate.now()).getId());
+
+        assertThat(paid.getStatus()).isEqualTo(FineStatus.PAID);
+        assertThat(waived.getStatus()).isEqualTo(FineStatus.WAIVED);
+    }
+
+    // A 3.00 fine on a loan six days overdue; returnDate null means the book is still out
+    private Fine newFine(LocalDate returnDate) {
+        String key = UUID.randomUUID().toString();
+        User user = userRepository.save(User.builder()
+                .name("Reader " + key)
+                .email(key + "@example.com")
+                .password("{noop}secret")
+                .build());
+
+        Book book = new Book();
+        book.setTitle("Title");
+        book.setAuthor("Author");
+        book.setIsbn(key);
+        book.setCopiesTotal(1);
+        book.setCopiesAvailable(returnDate == null ? 0 : 1);
+        book = bookRepository.save(book);
+
+        BorrowRecord loan = new BorrowRecord();
+        loan.setUser(user);
+        loan.setBook(book);
+        loan.setBorrowDate(LocalDate.now().minusDays(20));
+        loan.setDueDate(LocalDate.now().minusDays(6));
+        loan.setReturnDate(returnDate);
+        loan = borrowRepository.save(loan);
+
+        Fine fine = new Fine();
+        fine.setUser(user);
+        fine.setBorrowRecord(loan);
+        fine.setAmount(new BigDecimal("3.00"));
+        fine.setDaysOverdue(6);
+        fine.setDailyRate(new BigDecimal("0.50"));
+        fine.setDueDate(loan.getDueDate());
+        fine.setReturnDate(returnDate);
+        return fineRepository.save(fine);
+    }
+}
@@ -0,0 +1,47 @@
+-- Tables written only through JDBC, which Hibernate does not create from the entities;
+-- kept in step with db/migration
+CREATE UNIQUE INDEX uk_fine_borrow_record ON fines (borrow_record_id);
+
+CREATE TABLE idempotency_keys (
+    scope_hash CHAR(64) NOT NULL,
+    request_hash CHAR(64) NOT NULL,
+    status_code INT NOT NULL,
+    content_type VARCHAR(100),
+    body BLOB NOT NULL,
+    created_at TIMESTAMP(6) NOT NULL,
+    expires_at TIMESTAMP(6) NOT NULL,
+    PRIMARY KEY (scope_hash)
+);
+
+CREATE TABLE job_checkpoints (
+    job_name VARCHAR(64) NOT NULL,
+    run_date DATE NOT NULL,
+    last_id BIGINT NOT NULL,
+    processed BIGINT NOT NULL,
+    started_at TIMESTAMP(6),
+    completed_at TIMESTAMP(6),
+    locked_by VARCHAR(100),
+    locked_until TIMESTAMP(6),
+    PRIMARY KEY (job_name)
+);
+
+CREATE TABLE fine_ledger (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    user_id BIGINT NOT NULL,
+    fine_id BIGINT NOT NULL,
+    entry_type VARCHAR(20) NOT NULL,
+    amount DECIMAL(12, 2) NOT NULL,
+    created_at TIMESTAMP(6) NOT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE user_fine_balances (
+    user_id BIGINT NOT NULL,
+    balance DECIMAL(12, 2) NOT NULL,
+    unpaid_count INT NOT NULL,
+    updated_at TIMESTAMP(6) NOT NULL,
+    PRIMARY KEY (user_id)
+);
+
+-- Written by FineLedger.recordFines, not mapped on the entity
+ALTER TABLE fines ADD COLUMN recorded_amount DECIMAL(10, 2);